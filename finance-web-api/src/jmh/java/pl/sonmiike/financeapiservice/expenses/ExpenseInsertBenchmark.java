@@ -0,0 +1,122 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of inserting 1000 expenses in one transaction, issuing the statements Hibernate does for each id strategy.
+ * <p>
+ * {@code identity} is {@code GenerationType.IDENTITY}: one {@code INSERT ... RETURNING id} round trip per row, since
+ * Hibernate needs the generated id before it can go on and therefore never batches the inserts.
+ * {@code pooled} is the sequence with {@code allocationSize = 50} from V4 and {@code hibernate.jdbc.batch_size=50}:
+ * one {@code nextval} per 50 rows and the rows sent in batches of 50, which {@code reWriteBatchedInserts} turns
+ * into multi-row inserts. Each invocation is rolled back, so the table does not grow between iterations.
+ * <p>
+ * Needs a database migrated to V4, by default the one from application.properties
+ * (override with {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user}, {@code -Dbench.jdbc.password}).
+ * Run with {@code ./gradlew jmh} while the database from docker-compose.yml is up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExpenseInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+    private static final String EMAIL = "bench-insert@test.com";
+
+    private static final String INSERT_RETURNING_ID = "INSERT INTO expense (name, description, date, amount, user_id, category_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+    private static final String INSERT_WITH_ID = "INSERT INTO expense (name, description, date, amount, user_id, category_id, id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private Connection connection;
+    private long userId;
+    private long categoryId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/finance?reWriteBatchedInserts=true"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "root"));
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (name, username, email, password, role) "
+                    + "VALUES ('bench', 'bench-insert', '" + EMAIL + "', 'x', 'ROLE_USER') ON CONFLICT DO NOTHING");
+            statement.executeUpdate("INSERT INTO category (name) SELECT 'bench-insert' "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = 'bench-insert')");
+            userId = singleLong(statement, "SELECT user_id FROM users WHERE email = '" + EMAIL + "'");
+            categoryId = singleLong(statement, "SELECT min(id) FROM category WHERE name = 'bench-insert'");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.rollback();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identity() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_RETURNING_ID)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, i);
+                try (ResultSet generatedId = insert.executeQuery()) {
+                    generatedId.next();
+                }
+            }
+        } finally {
+            connection.rollback();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooled() throws SQLException {
+        try (PreparedStatement nextValue = connection.prepareStatement("SELECT nextval('expense_seq')");
+             PreparedStatement insert = connection.prepareStatement(INSERT_WITH_ID)) {
+            long id = 0;
+            long highId = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (id == highId) {
+                    try (ResultSet resultSet = nextValue.executeQuery()) {
+                        resultSet.next();
+                        highId = resultSet.getLong(1);
+                    }
+                    id = highId - BATCH_SIZE;
+                }
+                bind(insert, i);
+                insert.setLong(7, ++id);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        } finally {
+            connection.rollback();
+        }
+    }
+
+    private void bind(PreparedStatement insert, int i) throws SQLException {
+        insert.setString(1, "expense " + i);
+        insert.setString(2, "benchmark");
+        insert.setObject(3, LocalDate.now());
+        insert.setBigDecimal(4, BigDecimal.valueOf(i % 1000, 2));
+        insert.setLong(5, userId);
+        insert.setLong(6, categoryId);
+    }
+
+    private static long singleLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
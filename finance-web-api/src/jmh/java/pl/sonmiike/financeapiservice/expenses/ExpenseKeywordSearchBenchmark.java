@@ -0,0 +1,137 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the keyword filter and the ranked search of a user with 1M expenses, with and without the
+ * trigram indexes from V3, running the SQL that Hibernate generates for each against PostgreSQL.
+ * <p>
+ * {@code filter} is the first page (size 10) of {@code /me/expenses/filter?keyword=} with its count query,
+ * {@code search} is {@code /me/expenses/search?q=} with the default limit of 20.
+ * GIN indexes are only read through bitmap scans, so {@code trigramIndexes=false} turns bitmap scans off for the
+ * session and the planner falls back to the plans it had before V3: the (user, date, id) index or a table scan.
+ * {@code keyword} is either in every tenth expense name or only in about a hundred descriptions.
+ * <p>
+ * Needs a database with the application schema migrated to V3, by default the one from application.properties
+ * (override with {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user}, {@code -Dbench.jdbc.password}).
+ * The first run seeds the {@code bench-search@test.com} user with 1M expenses and analyzes the table.
+ * Run with {@code ./gradlew jmh} while the database from docker-compose.yml is up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExpenseKeywordSearchBenchmark {
+
+    private static final int EXPENSES = 1_000_000;
+    private static final String EMAIL = "bench-search@test.com";
+
+    private static final String COLUMNS = "e.id, e.amount, e.category_id, e.date, e.description, e.name, e.user_id";
+    private static final String KEYWORD = "(lower(e.name) LIKE ? ESCAPE '!' OR lower(e.description) LIKE ? ESCAPE '!')";
+    private static final String FILTER_PAGE = "SELECT " + COLUMNS + " FROM expense e WHERE e.user_id = ? AND " + KEYWORD
+            + " ORDER BY e.date DESC, e.id DESC OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY";
+    private static final String FILTER_COUNT = "SELECT count(e.id) FROM expense e WHERE e.user_id = ? AND " + KEYWORD;
+    private static final String SEARCH = "SELECT e.* FROM expense e WHERE e.user_id = ? "
+            + "AND (lower(?) <% lower(e.name) OR lower(?) <% lower(e.description)) "
+            + "ORDER BY greatest(word_similarity(lower(?), lower(e.name)), "
+            + "coalesce(word_similarity(lower(?), lower(e.description)), 0)) DESC, e.date DESC, e.id DESC LIMIT 20";
+
+    @Param({"false", "true"})
+    private boolean trigramIndexes;
+
+    @Param({"pharmacy", "order 4242"})
+    private String keyword;
+
+    private Connection connection;
+    private long userId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/finance"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "root"));
+        userId = seedUser();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_bitmapscan = " + (trigramIndexes ? "on" : "off"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole) throws SQLException {
+        String pattern = "%" + keyword + "%";
+        try (PreparedStatement statement = connection.prepareStatement(FILTER_PAGE)) {
+            statement.setLong(1, userId);
+            statement.setString(2, pattern);
+            statement.setString(3, pattern);
+            consume(statement, blackhole);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(FILTER_COUNT)) {
+            statement.setLong(1, userId);
+            statement.setString(2, pattern);
+            statement.setString(3, pattern);
+            consume(statement, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void search(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SEARCH)) {
+            statement.setLong(1, userId);
+            for (int parameter = 2; parameter <= 5; parameter++) {
+                statement.setString(parameter, keyword);
+            }
+            consume(statement, blackhole);
+        }
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    blackhole.consume(resultSet.getObject(i));
+                }
+            }
+        }
+    }
+
+    private long seedUser() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (name, username, email, password, role) "
+                    + "VALUES ('bench', 'bench-search', '" + EMAIL + "', 'x', 'ROLE_USER') ON CONFLICT DO NOTHING");
+            statement.executeUpdate("INSERT INTO category (name) SELECT 'bench-search' "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = 'bench-search')");
+            long seededUserId = singleLong(statement, "SELECT user_id FROM users WHERE email = '" + EMAIL + "'");
+            long categoryId = singleLong(statement, "SELECT min(id) FROM category WHERE name = 'bench-search'");
+            long existing = singleLong(statement, "SELECT count(*) FROM expense WHERE user_id = " + seededUserId);
+            if (existing < EXPENSES) {
+                // Ten merchant names in rotation and an order number in the description, about 100 expenses per day
+                statement.executeUpdate("INSERT INTO expense (name, description, date, amount, user_id, category_id) "
+                        + "SELECT (ARRAY['Grocery store', 'Pharmacy', 'Coffee shop', 'Fuel station', 'Restaurant', "
+                        + "'Cinema', 'Bookshop', 'Electronics', 'Bakery', 'Taxi'])[n % 10 + 1], "
+                        + "'card payment, order ' || (n % 100000), DATE '" + LocalDate.now() + "' - (n / 100), "
+                        + "(n % 1000) + 0.99, " + seededUserId + ", " + categoryId
+                        + " FROM generate_series(" + (existing + 1) + ", " + EXPENSES + ") AS n");
+                statement.execute("ANALYZE expense");
+            }
+            return seededUserId;
+        }
+    }
+
+    private static long singleLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the page-number and keyset listings of {@code /me/expenses} on page 1 and page 5000 (size 10)
+ * of a user with 500k expenses, running the SQL that Hibernate generates for each mode against PostgreSQL.
+ * <p>
+ * {@code offset} is the former unsorted {@code findExpenseByUserUserId(userId, PageRequest.of(page, size))}: the page query plus
+ * the {@code COUNT(*)} Spring Data issues for a {@code Page}. {@code keyset} is {@code findDtosByUserUserIdAfter}
+ * with one extra row fetched and no count; the cursor of the row preceding the page is looked up in setup.
+ * <p>
+ * Needs a database with the application schema, by default the one from application.properties
+ * (override with {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user}, {@code -Dbench.jdbc.password}).
+ * The first run seeds the {@code bench-pagination@test.com} user with 500k expenses and analyzes the table.
+ * Run with {@code ./gradlew jmh} while the database from docker-compose.yml is up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExpensePaginationBenchmark {
+
+    private static final int EXPENSES = 500_000;
+    private static final int SIZE = 10;
+    private static final String EMAIL = "bench-pagination@test.com";
+
+    private static final String COLUMNS = "e.id, e.amount, e.category_id, e.date, e.description, e.name, e.user_id";
+    private static final String OFFSET_PAGE = "SELECT " + COLUMNS + " FROM expense e WHERE e.user_id = ? OFFSET ? ROWS FETCH FIRST ? ROWS ONLY";
+    private static final String OFFSET_COUNT = "SELECT count(e.id) FROM expense e WHERE e.user_id = ?";
+    private static final String KEYSET_FIRST = "SELECT " + COLUMNS + " FROM expense e WHERE e.user_id = ? "
+            + "ORDER BY e.date DESC, e.id DESC FETCH FIRST ? ROWS ONLY";
+    private static final String KEYSET_AFTER = "SELECT " + COLUMNS + " FROM expense e WHERE e.user_id = ? "
+            + "AND e.date <= ? AND (e.date < ? OR e.id < ?) ORDER BY e.date DESC, e.id DESC FETCH FIRST ? ROWS ONLY";
+
+    @Param({"1", "5000"})
+    private int page;
+
+    private Connection connection;
+    private long userId;
+    private Date cursorDate;
+    private long cursorId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/finance"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "root"));
+        userId = seedUser();
+        if (page > 1) {
+            // Position of the last row of the previous page, what the client would send back as its cursor
+            try (PreparedStatement statement = connection.prepareStatement("SELECT e.date, e.id FROM expense e WHERE e.user_id = ? "
+                    + "ORDER BY e.date DESC, e.id DESC OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY")) {
+                statement.setLong(1, userId);
+                statement.setInt(2, (page - 1) * SIZE - 1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    cursorDate = resultSet.getDate(1);
+                    cursorId = resultSet.getLong(2);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(OFFSET_PAGE)) {
+            statement.setLong(1, userId);
+            statement.setInt(2, (page - 1) * SIZE);
+            statement.setInt(3, SIZE);
+            consume(statement, blackhole);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(OFFSET_COUNT)) {
+            statement.setLong(1, userId);
+            consume(statement, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        if (page == 1) {
+            try (PreparedStatement statement = connection.prepareStatement(KEYSET_FIRST)) {
+                statement.setLong(1, userId);
+                statement.setInt(2, SIZE + 1);
+                consume(statement, blackhole);
+            }
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(KEYSET_AFTER)) {
+            statement.setLong(1, userId);
+            statement.setDate(2, cursorDate);
+            statement.setDate(3, cursorDate);
+            statement.setLong(4, cursorId);
+            statement.setInt(5, SIZE + 1);
+            consume(statement, blackhole);
+        }
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    blackhole.consume(resultSet.getObject(i));
+                }
+            }
+        }
+    }
+
+    private long seedUser() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (name, username, email, password, role) "
+                    + "VALUES ('bench', 'bench-pagination', '" + EMAIL + "', 'x', 'ROLE_USER') ON CONFLICT DO NOTHING");
+            statement.executeUpdate("INSERT INTO category (name) SELECT 'bench-pagination' "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = 'bench-pagination')");
+            long seededUserId = singleLong(statement, "SELECT user_id FROM users WHERE email = '" + EMAIL + "'");
+            long categoryId = singleLong(statement, "SELECT min(id) FROM category WHERE name = 'bench-pagination'");
+            long existing = singleLong(statement, "SELECT count(*) FROM expense WHERE user_id = " + seededUserId);
+            if (existing < EXPENSES) {
+                // About 50 expenses per day over the preceding years, so (date, id) ties occur as they do in real data
+                statement.executeUpdate("INSERT INTO expense (name, description, date, amount, user_id, category_id) "
+                        + "SELECT 'expense ' || n, 'seeded', DATE '" + LocalDate.now() + "' - (n / 50), (n % 1000) + 0.99, "
+                        + seededUserId + ", " + categoryId + " FROM generate_series(" + (existing + 1) + ", " + EXPENSES + ") AS n");
+                statement.execute("ANALYZE expense");
+            }
+            return seededUserId;
+        }
+    }
+
+    private static long singleLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import pl.sonmiike.financeapiservice.category.Category;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and allocation of reading one page of {@code /me/expenses} (first keyset page, {@code size} rows) through
+ * Hibernate, each invocation in its own session and transaction as a request would be.
+ * <p>
+ * {@code entities} is the former read path: managed {@link Expense} entities, snapshotted for dirty checking and
+ * flushed at commit, then converted by {@link ExpenseMapper#toDTO}. {@code projection} is the current one:
+ * {@link ExpenseRepository#SELECT_DTO} in a read-only session with manual flush, as Spring sets up for
+ * {@code @Transactional(readOnly = true)}, returning {@link ExpenseDTO} rows without an entity in between.
+ * Allocation per page is reported as {@code gc.alloc.rate.norm} by the {@code gc} profiler enabled in build.gradle.
+ * <p>
+ * Needs a database with the application schema, by default the one from application.properties
+ * (override with {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user}, {@code -Dbench.jdbc.password}).
+ * The first run seeds the {@code bench-read-path@test.com} user with 10k expenses.
+ * Run with {@code ./gradlew jmh} while the database from docker-compose.yml is up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpenseReadPathBenchmark {
+
+    private static final int EXPENSES = 10_000;
+    private static final String EMAIL = "bench-read-path@test.com";
+    private static final String ORDER = "WHERE e.user.userId = :userId ORDER BY e.date DESC, e.id DESC";
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final ExpenseMapper expenseMapper = new ExpenseMapper();
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private long userId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/finance");
+        String user = System.getProperty("bench.jdbc.user", "postgres");
+        String password = System.getProperty("bench.jdbc.password", "root");
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            userId = seedUser(connection);
+        }
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, user)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_PASSWORD, password)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Expense.class)
+                .addAnnotatedClass(Category.class)
+                .addAnnotatedClass(UserEntity.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public List<ExpenseDTO> entities() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            List<ExpenseDTO> page = session.createQuery("SELECT e FROM Expense e " + ORDER, Expense.class)
+                    .setParameter("userId", userId)
+                    .setMaxResults(size + 1)
+                    .getResultList()
+                    .stream()
+                    .map(expenseMapper::toDTO)
+                    .toList();
+            transaction.commit();
+            return page;
+        }
+    }
+
+    @Benchmark
+    public List<ExpenseDTO> projection() {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            Transaction transaction = session.beginTransaction();
+            List<ExpenseDTO> page = session.createQuery(ExpenseRepository.SELECT_DTO + ORDER, ExpenseDTO.class)
+                    .setParameter("userId", userId)
+                    .setMaxResults(size + 1)
+                    .getResultList();
+            transaction.commit();
+            return page;
+        }
+    }
+
+    private static long seedUser(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (name, username, email, password, role) "
+                    + "VALUES ('bench', 'bench-read-path', '" + EMAIL + "', 'x', 'ROLE_USER') ON CONFLICT DO NOTHING");
+            statement.executeUpdate("INSERT INTO category (name) SELECT 'bench-read-path' "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = 'bench-read-path')");
+            long seededUserId = singleLong(statement, "SELECT user_id FROM users WHERE email = '" + EMAIL + "'");
+            long categoryId = singleLong(statement, "SELECT min(id) FROM category WHERE name = 'bench-read-path'");
+            long existing = singleLong(statement, "SELECT count(*) FROM expense WHERE user_id = " + seededUserId);
+            if (existing < EXPENSES) {
+                statement.executeUpdate("INSERT INTO expense (name, description, date, amount, user_id, category_id) "
+                        + "SELECT 'expense ' || n, 'seeded', DATE '" + LocalDate.now() + "' - (n / 20), (n % 1000) + 0.99, "
+                        + seededUserId + ", " + categoryId + " FROM generate_series(" + (existing + 1) + ", " + EXPENSES + ") AS n");
+                statement.execute("ANALYZE expense");
+            }
+            return seededUserId;
+        }
+    }
+
+    private static long singleLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pl.sonmiike.financeapiservice.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of an autocomplete lookup on a loaded {@link NameIndex}, reported with percentiles
+ * by {@code Mode.SampleTime}; the target is a p99 below 2 ms. {@code names} is the number of distinct expense
+ * names of the user, prefixes of one to three letters are drawn from them, so short prefixes scan large ranges.
+ * Run with {@code ./gradlew jmh}, no database needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpenseNameSuggestionsBenchmark {
+
+    private static final int PREFIXES = 1024;
+
+    @Param({"1000", "50000"})
+    private int names;
+
+    private NameIndex index;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<NameFrequency> frequencies = new ArrayList<>(names);
+        for (int i = 0; i < names; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 4 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            frequencies.add(new NameFrequency(name.toString(), 1 + random.nextInt(500)));
+        }
+        index = NameIndex.of(frequencies);
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String name = frequencies.get(random.nextInt(names)).name();
+            prefixes[i] = name.substring(0, 1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        next = (next + 1) & (PREFIXES - 1);
+        return index.suggest(prefixes[next], 10);
+    }
+}
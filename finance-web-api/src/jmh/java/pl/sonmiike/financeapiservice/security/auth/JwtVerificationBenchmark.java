@@ -0,0 +1,73 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+import pl.sonmiike.financeapiservice.user.UserRole;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the per-request JWT work of the filter before and after the single-parse pipeline.
+ * <p>
+ * {@code legacyThreeParses} reproduces the old path: {@code extractUsername} followed by {@code isTokenValid},
+ * which parsed the token three times and decoded the signing key and built a new parser on every parse.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "OXgzaGZ3OTMzdWRpendib281cHF1bTRsODl1YWx5ejloc2E5Zm16bW5hNzBrcmt5c2p0c3Q5dXhrMDV6YWUzOGFldDNlNHZlajllZWduenlzdTd1Y3RyN2d6dWF1MjBiNm5ib2tjeW9hb3l4aTg3NGMybmV5a3F6NG1zN2E2c20=";
+
+    private JwtService jwtService;
+    private UserEntity user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(VerifiedTokenCache.disabled(), new SimpleMeterRegistry());
+        jwtService.setSecretKey(SECRET_KEY);
+        jwtService.init();
+        user = UserEntity.builder()
+                .userId(1L)
+                .email("bench@test.com")
+                .username("bench")
+                .role(UserRole.ROLE_USER)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyExtractClaim(token, Claims::getSubject);
+        return username.equals(user.getUsername())
+                && legacyExtractClaim(token, Claims::getSubject).equals(user.getUsername())
+                && !legacyExtractClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        VerifiedToken verifiedToken = jwtService.tryVerify(token).token();
+        return jwtService.isTokenValid(verifiedToken, user);
+    }
+
+    private static <T> T legacyExtractClaim(String token, Function<Claims, T> claimsResolver) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        Claims claims = Jwts
+                .parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claimsResolver.apply(claims);
+    }
+}
@@ -0,0 +1,52 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+import pl.sonmiike.financeapiservice.user.UserRole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link JwtService#tryVerify(String)} per request under concurrent load, with and without
+ * {@link VerifiedTokenCache}. Every thread keeps resending tokens from a fixed pool of clients,
+ * like mobile apps reusing their access token. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final String SECRET_KEY = "OXgzaGZ3OTMzdWRpendib281cHF1bTRsODl1YWx5ejloc2E5Zm16bW5hNzBrcmt5c2p0c3Q5dXhrMDV6YWUzOGFldDNlNHZlajllZWduenlzdTd1Y3RyN2d6dWF1MjBiNm5ib2tjeW9hb3l4aTg3NGMybmV5a3F6NG1zN2E2c20=";
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    @Param({"1000"})
+    public int clients;
+
+    private JwtService jwtService;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new VerifiedTokenCache(cacheEnabled, 50_000, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        jwtService.setSecretKey(SECRET_KEY);
+        jwtService.init();
+        tokens = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            tokens[i] = jwtService.generateToken(UserEntity.builder()
+                    .userId((long) i)
+                    .email("client" + i + "@test.com")
+                    .role(UserRole.ROLE_USER)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public TokenVerification verify() {
+        return jwtService.tryVerify(tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+}
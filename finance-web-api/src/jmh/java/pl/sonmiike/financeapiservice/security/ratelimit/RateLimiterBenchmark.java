@@ -0,0 +1,45 @@
+package pl.sonmiike.financeapiservice.security.ratelimit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link TokenBucketRateLimiter#tryAcquire(Object)} on the allowed path under concurrency.
+ * {@code keys=1} puts every thread on the same bucket (worst case CAS contention, e.g. one user hammering the API),
+ * {@code keys=100000} spreads them like real per-user traffic. Limits are high enough that nothing is rejected.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "100000"})
+    private int keys;
+
+    private TokenBucketRateLimiter rateLimiter;
+    private Long[] userIds;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new TokenBucketRateLimiter(Long.MAX_VALUE / 1_000_000_000L, 1_000_000_000, Duration.ofMinutes(1));
+        userIds = new Long[keys];
+        for (int i = 0; i < keys; i++) {
+            userIds[i] = (long) i;
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return rateLimiter.tryAcquire(userIds[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public long baselineKeySelection() {
+        return userIds[ThreadLocalRandom.current().nextInt(keys)];
+    }
+}
@@ -3,11 +3,14 @@ package pl.sonmiike.financeapiservice.category;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudget;
 import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudgetDTO;
 import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudgetRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.YearMonthAttributeConverter;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
 import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 
@@ -27,6 +30,9 @@ public class CategoryService {
     private final ExpenseRepository expenseRepository;
     private final UserRepository userRepository;
     private final MonthlyBudgetRepository monthlyBudgetRepository;
+    private final RecordCountService recordCountService;
+    private final SpentAmountService spentAmountService;
+    private final ExpenseNameSuggestions expenseNameSuggestions;
 
     private final CategoryMapper categoryMapper;
 
@@ -50,6 +56,13 @@ public class CategoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Category with that id not found in database"));
     }
 
+    /**
+     * Proxy carrying only the id, for categories already known to exist.
+     */
+    public Category getCategoryReference(Long id) {
+        return categoryRepository.getReferenceById(id);
+    }
+
     public Category createAndAssignCategoryToUser(Long userId, AddCategoryDTO categoryDTO) {
         String categoryName = capitalizeFirstLetter(categoryDTO.getName().toLowerCase());
         Category category = categoryRepository.findByNameIgnoreCase(categoryName);
@@ -80,34 +93,32 @@ public class CategoryService {
         userCategoryRepository.save(userCategory);
     }
 
+    @Transactional
     public void removeCategoryFromUser(Long userId, Long categoryId) {
         UserCategory userCategory = userCategoryRepository.findByUserUserIdAndCategoryId(userId, categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("User does not have this category assigned"));
 
-        expenseRepository.deleteAllByCategoryIdAndUserUserId(userId, categoryId);
+        long deletedExpenses = expenseRepository.deleteAllByCategoryIdAndUserUserId(categoryId, userId);
+        recordCountService.expensesRemoved(userId, categoryId, deletedExpenses);
+        spentAmountService.categoryCleared(userId, categoryId);
+        expenseNameSuggestions.invalidate(userId);
 
         userCategoryRepository.delete(userCategory);
     }
+
     public MonthlyBudgetDTO setCategoryBudgetAmount(Long userId, MonthlyBudgetDTO monthlyBudgetDTO) {
-        UserCategory userCategory = userCategoryRepository.findByUserUserIdAndCategoryId(userId, monthlyBudgetDTO.getCategoryId())
-                .orElseThrow(() -> new ResourceNotFoundException("User does not have this category assigned"));
+        if (!userCategoryRepository.existsByUserUserIdAndCategoryId(userId, monthlyBudgetDTO.getCategoryId())) {
+            throw new ResourceNotFoundException("User does not have this category assigned");
+        }
 
         YearMonth currentYearMonth = YearMonth.now();
         BigDecimal budgetToSet = monthlyBudgetDTO.getBudgetToSet();
 
-        int updatedRows = monthlyBudgetRepository.updateBudgetAmountByUserIdAndCategoryIdAndYearMonth(userId, monthlyBudgetDTO.getCategoryId(), currentYearMonth.toString(), budgetToSet);
-
-        if (updatedRows == 0) {
-            MonthlyBudget newBudget = MonthlyBudget.builder()
-                    .yearMonth(currentYearMonth.toString())
-                    .budgetAmount(budgetToSet)
-                    .spentAmount(BigDecimal.valueOf(0)) // COUNT THE EXPENSE FOR USER AND THAT CATEGORY
-                    .category(userCategory.getCategory())
-                    .updatedAt(LocalDateTime.now())
-                    .user(userCategory.getUser())
-                    .build();
-            monthlyBudgetRepository.save(newBudget);
-        }
+        // Inserts the budget with the month's spent amount or updates the existing one, the expense writes keep
+        // the spent amount up to date from there
+        monthlyBudgetRepository.upsertBudgetAmount(userId, monthlyBudgetDTO.getCategoryId(),
+                YearMonthAttributeConverter.toInteger(currentYearMonth), budgetToSet,
+                currentYearMonth.atDay(1), currentYearMonth.atEndOfMonth());
 
         return MonthlyBudgetDTO.builder()
                 .categoryId(monthlyBudgetDTO.getCategoryId())
@@ -121,7 +132,7 @@ public class CategoryService {
             throw new ResourceNotFoundException("User does not have this category assigned");
         }
         YearMonth currentYearMonth = YearMonth.now();
-        monthlyBudgetRepository.deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth.toString());
+        monthlyBudgetRepository.deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth);
     }
 
     private String capitalizeFirstLetter(String input) {
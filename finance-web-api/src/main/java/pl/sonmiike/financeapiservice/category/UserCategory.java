@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class UserCategory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_category_seq")
+    @SequenceGenerator(name = "user_category_seq", sequenceName = "user_category_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
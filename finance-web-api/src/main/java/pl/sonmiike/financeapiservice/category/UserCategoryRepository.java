@@ -1,9 +1,12 @@
 package pl.sonmiike.financeapiservice.category;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserCategoryRepository extends JpaRepository<UserCategory, Long> {
 
@@ -13,4 +16,8 @@ public interface UserCategoryRepository extends JpaRepository<UserCategory, Long
     Optional<UserCategory> findByUserUserIdAndCategoryId(Long userId, Long categoryId);
 
     boolean existsByUserUserIdAndCategoryId(Long userId, Long categoryId);
+
+    // Which of the given categories are assigned to the user, one query for a whole batch
+    @Query("SELECT uc.category.id FROM UserCategory uc WHERE uc.user.userId = :userId AND uc.category.id IN :categoryIds")
+    Set<Long> findAssignedCategoryIds(@Param("userId") Long userId, @Param("categoryIds") Set<Long> categoryIds);
 }
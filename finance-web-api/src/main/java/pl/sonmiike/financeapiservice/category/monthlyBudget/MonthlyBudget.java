@@ -15,6 +15,7 @@ import pl.sonmiike.financeapiservice.user.UserEntity;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 @Entity
 @EntityListeners(AuditingEntityListener.class)
@@ -26,11 +27,13 @@ import java.time.LocalDateTime;
 public class MonthlyBudget {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "monthly_budget_seq")
+    @SequenceGenerator(name = "monthly_budget_seq", sequenceName = "monthly_budget_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
-    private String yearMonth;
+    @Convert(converter = YearMonthAttributeConverter.class)
+    private YearMonth yearMonth;
 
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal budgetAmount;
@@ -0,0 +1,55 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the spent amounts of the budgets from the expense table and rewrites the ones that drifted.
+ * <p>
+ * Budgets are checked in id ranges of {@code chunk-size}, each range one statement in its own transaction,
+ * so no run locks more than a chunk of budgets at a time. A write committing while its range is checked can
+ * still leave the budget off by its own delta, the next run corrects it.
+ * Publishes {@code monthly_budget.reconciled} (budgets rewritten) and {@code monthly_budget.reconcile} (run duration).
+ */
+@Component
+public class MonthlyBudgetReconciliationJob {
+
+    private final MonthlyBudgetRepository monthlyBudgetRepository;
+    private final int chunkSize;
+    private final Counter reconciled;
+    private final Timer reconcileTimer;
+
+    public MonthlyBudgetReconciliationJob(MonthlyBudgetRepository monthlyBudgetRepository,
+                                          @Value("${custom.monthly-budget.reconcile.chunk-size:1000}") int chunkSize,
+                                          MeterRegistry meterRegistry) {
+        this.monthlyBudgetRepository = monthlyBudgetRepository;
+        this.chunkSize = chunkSize;
+        this.reconciled = Counter.builder("monthly_budget.reconciled").register(meterRegistry);
+        this.reconcileTimer = Timer.builder("monthly_budget.reconcile").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${custom.monthly-budget.reconcile.interval:PT1H}",
+            initialDelayString = "${custom.monthly-budget.reconcile.initial-delay:PT2M}")
+    public void reconcile() {
+        Timer.Sample sample = Timer.start();
+        reconcileSpentAmounts();
+        sample.stop(reconcileTimer);
+    }
+
+    int reconcileSpentAmounts() {
+        Long maxId = monthlyBudgetRepository.findMaxId();
+        int fixed = 0;
+        if (maxId != null) {
+            for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+                int fixedInChunk = monthlyBudgetRepository.reconcileSpentAmounts(afterId, afterId + chunkSize);
+                reconciled.increment(fixedInChunk);
+                fixed += fixedInChunk;
+            }
+        }
+        return fixed;
+    }
+}
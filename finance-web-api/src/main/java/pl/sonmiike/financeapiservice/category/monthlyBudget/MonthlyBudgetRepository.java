@@ -7,14 +7,59 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 
 public interface MonthlyBudgetRepository extends JpaRepository<MonthlyBudget, Long> {
 
+    // One statement whether or not the budget exists. Concurrent callers conflict on the unique (user, category, month)
+    // key and the later one updates the row the first inserted. A new row's spent amount is the sum of the month's
+    // expenses, the SELECT without GROUP BY always returns that one row
     @Modifying
     @Transactional
-    @Query("UPDATE MonthlyBudget mb SET mb.budgetAmount = :budgetAmount, mb.updatedAt = CURRENT_TIMESTAMP WHERE mb.user.userId = :userId AND mb.category.id = :categoryId AND mb.yearMonth = :yearMonth")
-    int updateBudgetAmountByUserIdAndCategoryIdAndYearMonth(@Param("userId") Long userId, @Param("categoryId") Long categoryId, @Param("yearMonth") String yearMonth, @Param("budgetAmount") BigDecimal budgetAmount);
+    @Query(value = """
+            INSERT INTO monthly_budget (year_month, budget_amount, spent_amount, created_at, updated_at, category_id, user_id)
+            SELECT :yearMonth, :budgetAmount, coalesce(sum(e.amount), 0), LOCALTIMESTAMP, LOCALTIMESTAMP, :categoryId, :userId
+            FROM expense e
+            WHERE e.user_id = :userId AND e.category_id = :categoryId AND e.date BETWEEN :monthStart AND :monthEnd
+            ON CONFLICT (user_id, category_id, year_month)
+            DO UPDATE SET budget_amount = EXCLUDED.budget_amount, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsertBudgetAmount(@Param("userId") Long userId, @Param("categoryId") Long categoryId, @Param("yearMonth") int yearMonth,
+                           @Param("budgetAmount") BigDecimal budgetAmount,
+                           @Param("monthStart") LocalDate monthStart, @Param("monthEnd") LocalDate monthEnd);
 
-    void deleteByUserUserIdAndCategoryIdAndYearMonth(Long userId, Long categoryId, String string);
+    void deleteByUserUserIdAndCategoryIdAndYearMonth(Long userId, Long categoryId, YearMonth yearMonth);
+
+    // Relative to the stored value, so concurrent writers to one budget are serialized by the row lock and none is lost
+    @Modifying
+    @Query("UPDATE MonthlyBudget mb SET mb.spentAmount = mb.spentAmount + :delta WHERE mb.user.userId = :userId AND mb.category.id = :categoryId AND mb.yearMonth = :yearMonth")
+    int addToSpentAmount(@Param("userId") Long userId, @Param("categoryId") Long categoryId, @Param("yearMonth") YearMonth yearMonth, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE MonthlyBudget mb SET mb.spentAmount = 0 WHERE mb.user.userId = :userId AND mb.category.id = :categoryId")
+    int resetSpentAmounts(@Param("userId") Long userId, @Param("categoryId") Long categoryId);
+
+    @Query("SELECT max(mb.id) FROM MonthlyBudget mb")
+    Long findMaxId();
+
+    // Writes only the budgets in (afterId, upToId] whose spent amount differs from their expenses
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE monthly_budget mb SET spent_amount = actual.total
+            FROM (
+                SELECT b.id, coalesce(sum(e.amount), 0) AS total
+                FROM monthly_budget b
+                LEFT JOIN expense e
+                    ON e.user_id = b.user_id AND e.category_id = b.category_id
+                    AND e.date >= make_date(b.year_month / 100, b.year_month % 100, 1)
+                    AND e.date < make_date(b.year_month / 100, b.year_month % 100, 1) + INTERVAL '1 month'
+                WHERE b.id > :afterId AND b.id <= :upToId
+                GROUP BY b.id
+            ) actual
+            WHERE mb.id = actual.id AND mb.spent_amount <> actual.total
+            """, nativeQuery = true)
+    int reconcileSpentAmounts(@Param("afterId") long afterId, @Param("upToId") long upToId);
 }
 
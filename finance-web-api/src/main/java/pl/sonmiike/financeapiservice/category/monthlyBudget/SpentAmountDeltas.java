@@ -0,0 +1,51 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Changes to the spent amounts of one user's budgets collected over a write, summed per category and month
+ * so {@link SpentAmountService#apply} sends one statement per budget however many expenses it touches.
+ * <p>
+ * The deltas are applied ordered by category and month whatever order they were added in, so writers that move
+ * expenses between the same budgets in opposite directions lock the budget rows in the same order and cannot deadlock.
+ */
+public final class SpentAmountDeltas {
+
+    private final Map<Key, BigDecimal> deltas = new TreeMap<>(Key.ORDER);
+
+    public SpentAmountDeltas add(Long categoryId, LocalDate date, BigDecimal amount) {
+        deltas.merge(new Key(categoryId, YearMonth.from(date)), amount, BigDecimal::add);
+        return this;
+    }
+
+    public SpentAmountDeltas subtract(Long categoryId, LocalDate date, BigDecimal amount) {
+        return add(categoryId, date, amount.negate());
+    }
+
+    public BigDecimal get(Long categoryId, YearMonth yearMonth) {
+        return deltas.getOrDefault(new Key(categoryId, yearMonth), BigDecimal.ZERO);
+    }
+
+    public boolean isEmpty() {
+        return deltas.values().stream().allMatch(delta -> delta.signum() == 0);
+    }
+
+    void forEach(BiConsumer<Key, BigDecimal> consumer) {
+        deltas.forEach((key, delta) -> {
+            if (delta.signum() != 0) {
+                consumer.accept(key, delta);
+            }
+        });
+    }
+
+    record Key(Long categoryId, YearMonth yearMonth) {
+
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::categoryId).thenComparing(Key::yearMonth);
+    }
+}
@@ -0,0 +1,49 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Keeps {@link MonthlyBudget#getSpentAmount()} equal to the sum of the user's expenses in the category and month.
+ * <p>
+ * Writers call this in the transaction that inserts, changes or deletes the expenses, and each budget is moved by
+ * an atomic {@code SET spent_amount = spent_amount + :delta}, so concurrent writers never overwrite each other's
+ * amounts and a delta commits or rolls back with its expenses. Budgets are updated in the order of
+ * {@link SpentAmountDeltas}, the same for every writer. Months without a budget row are skipped, a new
+ * budget is seeded by {@link MonthlyBudgetRepository#upsertBudgetAmount}. Expenses written while a budget is being
+ * created, or around this class, are corrected by {@link MonthlyBudgetReconciliationJob}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpentAmountService {
+
+    private final MonthlyBudgetRepository monthlyBudgetRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void expenseAdded(Long userId, Long categoryId, LocalDate date, BigDecimal amount) {
+        apply(userId, new SpentAmountDeltas().add(categoryId, date, amount));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void expenseRemoved(Long userId, Long categoryId, LocalDate date, BigDecimal amount) {
+        apply(userId, new SpentAmountDeltas().subtract(categoryId, date, amount));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Long userId, SpentAmountDeltas deltas) {
+        deltas.forEach((key, delta) -> monthlyBudgetRepository.addToSpentAmount(userId, key.categoryId(), key.yearMonth(), delta));
+    }
+
+    /**
+     * For categories whose expenses were all deleted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void categoryCleared(Long userId, Long categoryId) {
+        monthlyBudgetRepository.resetSpentAmounts(userId, categoryId);
+    }
+}
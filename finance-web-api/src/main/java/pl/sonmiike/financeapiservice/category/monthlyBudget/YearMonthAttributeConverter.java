@@ -0,0 +1,27 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.YearMonth;
+
+/**
+ * Stores a {@link YearMonth} as the integer {@code yyyymm}, e.g. 202403 for March 2024, which sorts like the months.
+ */
+@Converter
+public class YearMonthAttributeConverter implements AttributeConverter<YearMonth, Integer> {
+
+    public static int toInteger(YearMonth yearMonth) {
+        return yearMonth.getYear() * 100 + yearMonth.getMonthValue();
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(YearMonth yearMonth) {
+        return yearMonth == null ? null : toInteger(yearMonth);
+    }
+
+    @Override
+    public YearMonth convertToEntityAttribute(Integer value) {
+        return value == null ? null : YearMonth.of(value / 100, value % 100);
+    }
+}
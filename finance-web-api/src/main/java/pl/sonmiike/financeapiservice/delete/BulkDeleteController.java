@@ -0,0 +1,31 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+
+@RestController
+@RequiredArgsConstructor
+public class BulkDeleteController {
+
+    private final BulkDeleteService bulkDeleteService;
+    private final AuthService authService;
+
+    // POST rather than DELETE, clients and proxies are not required to keep the body of a DELETE
+    @PostMapping("/me/expenses/bulk-delete")
+    public ResponseEntity<BulkDeleteResultDTO> deleteExpenses(@RequestBody BulkDeleteRequestDTO request, Authentication authentication) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(bulkDeleteService.delete(RecordType.EXPENSE, userId, request));
+    }
+
+    @PostMapping("/me/income/bulk-delete")
+    public ResponseEntity<BulkDeleteResultDTO> deleteIncomes(@RequestBody BulkDeleteRequestDTO request, Authentication authentication) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(bulkDeleteService.delete(RecordType.INCOME, userId, request));
+    }
+}
@@ -0,0 +1,25 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Records to delete, either by id or by date range; a range may be open on one side.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteRequestDTO {
+
+    private List<Long> ids;
+
+    private LocalDate dateFrom;
+
+    private LocalDate dateTo;
+}
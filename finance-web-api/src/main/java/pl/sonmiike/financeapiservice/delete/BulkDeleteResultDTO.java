@@ -0,0 +1,19 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk delete. Rows are deleted chunk by chunk, so when {@code failure} is set
+ * the rows counted as deleted are gone and the ones after them are not.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkDeleteResultDTO {
+
+    private long deleted;
+    private int chunksCommitted;
+    private String failure;
+}
@@ -0,0 +1,176 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountDeltas;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Deletes expenses or incomes of a user by id list or date range, mainly to clean up imported statements.
+ * <p>
+ * Each chunk of {@code chunk-size} rows is one set-based {@code DELETE ... WHERE user_id = ?} in its own
+ * transaction, with the record counts updated alongside, so no entity is loaded and locks are held only for
+ * a chunk. Expense deletes return the category, date and amount of every deleted row, which is all the per-category
+ * counts and the budgets of the months involved need.
+ * A range is deleted from the {@code (user, date, id)} index until a chunk comes back short. A chunk that fails
+ * stops the delete; the chunks before it stay committed and the result says so.
+ */
+@Service
+public class BulkDeleteService {
+
+    public static final int MAX_IDS = 10_000;
+
+    private static final String DELETE_EXPENSES = "DELETE FROM expense WHERE user_id = ? AND id IN (%s) RETURNING category_id, date, amount";
+    private static final String DELETE_INCOMES = "DELETE FROM income WHERE user_user_id = ? AND id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecordCountService recordCountService;
+    private final SpentAmountService spentAmountService;
+    private final ExpenseNameSuggestions expenseNameSuggestions;
+    private final int chunkSize;
+
+    public BulkDeleteService(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             RecordCountService recordCountService,
+                             SpentAmountService spentAmountService,
+                             ExpenseNameSuggestions expenseNameSuggestions,
+                             @Value("${custom.bulk-delete.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.recordCountService = recordCountService;
+        this.spentAmountService = spentAmountService;
+        this.expenseNameSuggestions = expenseNameSuggestions;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkDeleteResultDTO delete(RecordType type, Long userId, BulkDeleteRequestDTO request) {
+        List<Long> ids = validate(request);
+        BulkDeleteResultDTO result = new BulkDeleteResultDTO();
+        try {
+            if (ids != null) {
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                    deleteChunk(type, userId, result, DELETE_EXPENSES.formatted(placeholders(chunk.size())),
+                            DELETE_INCOMES.formatted(placeholders(chunk.size())), arguments(userId, chunk));
+                }
+            } else {
+                String range = rangeSelect(type, request.getDateFrom(), request.getDateTo());
+                Object[] arguments = rangeArguments(userId, request.getDateFrom(), request.getDateTo());
+                int deleted;
+                do {
+                    deleted = deleteChunk(type, userId, result, DELETE_EXPENSES.formatted(range), DELETE_INCOMES.formatted(range), arguments);
+                } while (deleted == chunkSize);
+            }
+        } catch (DataAccessException e) {
+            result.setFailure("Deleting stopped after " + result.getDeleted() + " records, the ones deleted before stay deleted");
+        } finally {
+            if (type == RecordType.EXPENSE && result.getDeleted() > 0) {
+                expenseNameSuggestions.invalidate(userId);
+            }
+        }
+        return result;
+    }
+
+    private int deleteChunk(RecordType type, Long userId, BulkDeleteResultDTO result,
+                            String deleteExpenses, String deleteIncomes, Object[] arguments) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            if (type == RecordType.EXPENSE) {
+                Map<Long, Long> byCategory = new HashMap<>();
+                SpentAmountDeltas spent = new SpentAmountDeltas();
+                jdbcTemplate.query(deleteExpenses, (RowCallbackHandler) row -> {
+                    long categoryId = row.getLong(1);
+                    byCategory.merge(categoryId, 1L, Long::sum);
+                    spent.subtract(categoryId, row.getObject(2, LocalDate.class), row.getBigDecimal(3));
+                }, arguments);
+                byCategory.forEach((categoryId, count) -> recordCountService.expensesRemoved(userId, categoryId, count));
+                spentAmountService.apply(userId, spent);
+                return byCategory.values().stream().mapToInt(Long::intValue).sum();
+            }
+            int count = jdbcTemplate.update(deleteIncomes, arguments);
+            recordCountService.incomesRemoved(userId, count);
+            return count;
+        });
+        int count = deleted == null ? 0 : deleted;
+        result.setDeleted(result.getDeleted() + count);
+        result.setChunksCommitted(result.getChunksCommitted() + 1);
+        return count;
+    }
+
+    private static List<Long> validate(BulkDeleteRequestDTO request) {
+        boolean byIds = request.getIds() != null;
+        boolean byRange = request.getDateFrom() != null || request.getDateTo() != null;
+        if (byIds == byRange) {
+            throw new InvalidRequestException("Either ids or a date range must be given");
+        }
+        if (byRange) {
+            if (request.getDateFrom() != null && request.getDateTo() != null && request.getDateFrom().isAfter(request.getDateTo())) {
+                throw new InvalidRequestException("dateFrom must not be after dateTo");
+            }
+            return null;
+        }
+        List<Long> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty() || ids.size() > MAX_IDS) {
+            throw new InvalidRequestException("Between 1 and " + MAX_IDS + " ids can be deleted at once");
+        }
+        return ids;
+    }
+
+    // The ids of the next chunk in the range, the outer DELETE repeats the user so every statement is scoped to it
+    private String rangeSelect(RecordType type, LocalDate dateFrom, LocalDate dateTo) {
+        boolean expenses = type == RecordType.EXPENSE;
+        String table = expenses ? "expense" : "income";
+        String user = expenses ? "user_id" : "user_user_id";
+        String date = expenses ? "date" : "income_date";
+        StringBuilder select = new StringBuilder("SELECT id FROM ").append(table).append(" WHERE ").append(user).append(" = ?");
+        if (dateFrom != null) {
+            select.append(" AND ").append(date).append(" >= ?");
+        }
+        if (dateTo != null) {
+            select.append(" AND ").append(date).append(" <= ?");
+        }
+        return select.append(" LIMIT ").append(chunkSize).toString();
+    }
+
+    private static Object[] rangeArguments(Long userId, LocalDate dateFrom, LocalDate dateTo) {
+        List<Object> arguments = new ArrayList<>(4);
+        arguments.add(userId);
+        arguments.add(userId);
+        if (dateFrom != null) {
+            arguments.add(dateFrom);
+        }
+        if (dateTo != null) {
+            arguments.add(dateTo);
+        }
+        return arguments.toArray();
+    }
+
+    private static Object[] arguments(Long userId, List<Long> ids) {
+        Object[] arguments = new Object[ids.size() + 1];
+        arguments[0] = userId;
+        for (int i = 0; i < ids.size(); i++) {
+            arguments[i + 1] = ids.get(i);
+        }
+        return arguments;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,8 @@
+package pl.sonmiike.financeapiservice.exceptions.custom;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
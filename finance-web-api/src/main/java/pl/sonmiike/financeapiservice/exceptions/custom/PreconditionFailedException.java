@@ -0,0 +1,8 @@
+package pl.sonmiike.financeapiservice.exceptions.custom;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
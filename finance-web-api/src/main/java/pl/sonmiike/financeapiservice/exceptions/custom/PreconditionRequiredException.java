@@ -0,0 +1,8 @@
+package pl.sonmiike.financeapiservice.exceptions.custom;
+
+public class PreconditionRequiredException extends RuntimeException {
+
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package pl.sonmiike.financeapiservice.exceptions.custom;
+
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
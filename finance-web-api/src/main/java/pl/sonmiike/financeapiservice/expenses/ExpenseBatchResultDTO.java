@@ -0,0 +1,30 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch create, with one result per submitted item in submission order.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpenseBatchResultDTO {
+
+    private int created;
+    private int rejected;
+    private List<ItemResult> results;
+
+    /**
+     * {@code id} of the created expense, or {@code error} when the item was rejected.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemResult(int index, Long id, String error) {
+    }
+}
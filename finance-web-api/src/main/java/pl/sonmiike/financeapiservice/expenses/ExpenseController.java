@@ -1,20 +1,27 @@
 package pl.sonmiike.financeapiservice.expenses;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
 import pl.sonmiike.financeapiservice.security.auth.AuthService;
+import pl.sonmiike.financeapiservice.update.EntityTags;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,36 +35,78 @@ public class ExpenseController {
     @GetMapping
     public ResponseEntity<PagedExpensesDTO> getUserExpenses(Authentication authentication,
                                                             @RequestParam(defaultValue = "0") int page,
-                                                            @RequestParam(defaultValue = "10") int size) {
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(defaultValue = "true") boolean withTotal) {
         Long userId = authService.getUserId(authentication);
-        return ResponseEntity.ok(expenseService.getUserExpenses(userId, page, size));
+        return ResponseEntity.ok(expenseService.getUserExpenses(userId, page, size, withTotal));
+    }
+
+    // Keyset mode, selected by the cursor parameter; an empty cursor returns the first page
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<ExpenseDTO>> getUserExpenses(Authentication authentication,
+                                                                     @RequestParam String cursor,
+                                                                     @RequestParam(defaultValue = "10") int size) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(expenseService.getUserExpenses(userId, cursor, size));
     }
 
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<PagedExpensesDTO> getUserExpensesByCategory(Authentication authentication,
                                                                       @PathVariable Long categoryId,
                                                                       @RequestParam(defaultValue = "0") int page,
-                                                                      @RequestParam(defaultValue = "10") int size) {
+                                                                      @RequestParam(defaultValue = "10") int size,
+                                                                      @RequestParam(defaultValue = "true") boolean withTotal) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(expenseService.getUserExpensesByCategory(userId, categoryId, page, size, withTotal));
+    }
+
+    @GetMapping(value = "/category/{categoryId}", params = "cursor")
+    public ResponseEntity<CursorPageDTO<ExpenseDTO>> getUserExpensesByCategory(Authentication authentication,
+                                                                               @PathVariable Long categoryId,
+                                                                               @RequestParam String cursor,
+                                                                               @RequestParam(defaultValue = "10") int size) {
         Long userId = authService.getUserId(authentication);
-        return ResponseEntity.ok(expenseService.getUserExpensesByCategory(userId, categoryId, page, size));
+        return ResponseEntity.ok(expenseService.getUserExpensesByCategory(userId, categoryId, cursor, size));
     }
 
     @GetMapping("/{expenseId}")
     public ResponseEntity<ExpenseDTO> getExpenseById(@PathVariable Long expenseId, Authentication authentication) {
         Long userId = authService.getUserId(authentication);
-        return ResponseEntity.ok(expenseService.getExpenseById(expenseId, userId));
+        ExpenseDTO expenseDTO = expenseService.getExpenseById(expenseId, userId);
+        return ResponseEntity.ok().eTag(EntityTags.of(expenseDTO.getVersion())).body(expenseDTO);
+    }
+
+    // Best matches of the name or description first, typos within a word are tolerated
+    @GetMapping("/search")
+    public ResponseEntity<List<ExpenseDTO>> searchExpenses(Authentication authentication,
+                                                           @RequestParam String q,
+                                                           @RequestParam(defaultValue = "20") int limit) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(expenseService.searchExpenses(userId, q, limit));
+    }
+
+    // Autocomplete, the most used names starting with the prefix
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<String>> suggestExpenseNames(Authentication authentication,
+                                                            @RequestParam(defaultValue = "") String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(expenseService.suggestExpenseNames(userId, prefix, limit));
     }
 
+    // Only "date" can be sorted on, it maps to the indexed date of the entity
     @GetMapping("/filter")
     public ResponseEntity<PagedExpensesDTO> getExpenses(
+            Authentication authentication,
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "dateFrom", required = false) LocalDate dateFrom,
             @RequestParam(value = "dateTo", required = false) LocalDate dateTo,
             @RequestParam(value = "fromAmount", required = false) BigDecimal fromAmount,
             @RequestParam(value = "toAmount", required = false) BigDecimal toAmount,
             @PageableDefault(sort = "date", direction = Sort.Direction.DESC) Pageable pageable) {
-
-        return ResponseEntity.ok(expenseService.findExpensesWithFilters(keyword, dateFrom, dateTo, fromAmount, toAmount, pageable));
+        Long userId = authService.getUserId(authentication);
+        RecordFilter filter = new RecordFilter(userId, keyword, dateFrom, dateTo, fromAmount, toAmount);
+        return ResponseEntity.ok(expenseService.findExpensesWithFilters(filter, pageable));
     }
 
     @PostMapping("/{categoryId}")
@@ -67,14 +116,43 @@ public class ExpenseController {
         expenseService.createExpense(expenseDTO, userId, categoryId);
     }
 
+    // Items are validated one by one by the service, a bad item is reported in the results instead of failing the batch
+    @PostMapping("/batch")
+    public ResponseEntity<ExpenseBatchResultDTO> createExpenses(@RequestBody List<AddExpenseBatchItemDTO> expenses, Authentication authentication) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(expenseService.createExpenses(expenses, userId));
+    }
+
+    // Updates need the ETag of the version they replace in If-Match, or * to overwrite any version; the category stays
+    @PutMapping("/{expenseId}")
+    public ResponseEntity<Void> updateExpense(@PathVariable Long expenseId,
+                                              @RequestBody @Valid AddExpesneDTO expenseDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              Authentication authentication) {
+        Long expectedVersion = EntityTags.parseIfMatch(ifMatch);
+        Long userId = authService.getUserId(authentication);
+        RecordUpdate update = RecordUpdate.replacing(expenseDTO.getName(), expenseDTO.getDescription(), expenseDTO.getDate(), expenseDTO.getAmount());
+        long version = expenseService.updateExpense(expenseId, update, userId, expectedVersion);
+        return ResponseEntity.noContent().eTag(EntityTags.of(version)).build();
+    }
+
+    // JSON Merge Patch of name, description, date and amount
+    @PatchMapping(value = "/{expenseId}", consumes = {"application/merge-patch+json", "application/json"})
+    public ResponseEntity<Void> patchExpense(@PathVariable Long expenseId,
+                                             @RequestBody JsonNode patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             Authentication authentication) {
+        Long expectedVersion = EntityTags.parseIfMatch(ifMatch);
+        Long userId = authService.getUserId(authentication);
+        long version = expenseService.updateExpense(expenseId, RecordUpdate.fromMergePatch(patch, "date"), userId, expectedVersion);
+        return ResponseEntity.noContent().eTag(EntityTags.of(version)).build();
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{expenseId}")
-    public ResponseEntity<Void> deleteExpense(@PathVariable Long expenseId, Authentication authentication) {
+    public void deleteExpense(@PathVariable Long expenseId, Authentication authentication) {
         Long userId = authService.getUserId(authentication);
-        if (expenseService.getExpenseById(expenseId, userId).getUserId().equals(userId)) {
-            expenseService.deleteExpense(expenseId, userId);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        expenseService.deleteExpense(expenseId, userId);
     }
 
 }
@@ -8,6 +8,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,5 +32,12 @@ public class ExpenseDTO {
     private Long userId;
     @NotBlank
     private Long categoryId;
+    private Long version;
 
+    /**
+     * Constructor of the JPQL {@code SELECT new} projections, with the column types of the entity.
+     */
+    public ExpenseDTO(Long id, String name, String description, LocalDate date, BigDecimal amount, Long userId, Long categoryId, Long version) {
+        this(id, name, description, date.toString(), amount.toString(), userId, categoryId, version);
+    }
 }
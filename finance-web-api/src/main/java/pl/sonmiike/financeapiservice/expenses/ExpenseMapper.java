@@ -1,9 +1,14 @@
 package pl.sonmiike.financeapiservice.expenses;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
 
 @Component
 public class ExpenseMapper {
@@ -17,16 +22,16 @@ public class ExpenseMapper {
                 .amount(expense.getAmount().toString())
                 .userId(expense.getUser().getUserId())
                 .categoryId(expense.getCategory().getId())
+                .version(expense.getVersion())
                 .build();
     }
 
-    public Expense toEntity(ExpenseDTO expenseDTO) {
+    public Expense toEntity(AddExpenseBatchItemDTO expenseDTO) {
         return Expense.builder()
-                .id(expenseDTO.getId())
                 .name(expenseDTO.getName())
                 .description(expenseDTO.getDescription())
-                .date(java.time.LocalDate.parse(expenseDTO.getDate()))
-                .amount(new BigDecimal(expenseDTO.getAmount()))
+                .date(expenseDTO.getDate())
+                .amount(expenseDTO.getAmount())
                 .build();
     }
 
@@ -39,13 +44,25 @@ public class ExpenseMapper {
                 .build();
     }
 
-
-
-    public PagedExpensesDTO toPagedDTO(Page<Expense> expenses) {
+    public PagedExpensesDTO toPagedDTO(Page<ExpenseDTO> expenses) {
         return PagedExpensesDTO.builder()
                 .page(expenses.getNumber())
                 .totalPages(expenses.getTotalPages() > 1 ? expenses.getTotalPages() - 1 : expenses.getTotalPages())
-                .expenses(expenses.getContent().stream().map(this::toDTO).toList())
+                .hasNext(expenses.hasNext())
+                .expenses(expenses.getContent())
                 .build();
     }
+
+    public PagedExpensesDTO toSlicedDTO(Slice<ExpenseDTO> expenses) {
+        return PagedExpensesDTO.builder()
+                .page(expenses.getNumber())
+                .hasNext(expenses.hasNext())
+                .expenses(expenses.getContent())
+                .build();
+    }
+
+    // The date is parsed back only for the last row of the page, the one the cursor points at
+    public CursorPageDTO<ExpenseDTO> toCursorPageDTO(List<ExpenseDTO> expenses, int size) {
+        return CursorPageDTO.of(expenses, size, expense -> new Cursor(LocalDate.parse(expense.getDate()), expense.getId()), Function.identity());
+    }
 }
@@ -1,22 +1,89 @@
 package pl.sonmiike.financeapiservice.expenses;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.sonmiike.financeapiservice.search.NameFrequency;
+import pl.sonmiike.financeapiservice.search.SearchCandidate;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
 
-    Page<Expense> findExpenseByUserUserId(Long userId, Pageable pageable);
-    Page<Expense> findExpenseByUserUserIdAndCategoryId(Long userId, Long categoryId, Pageable pageable);
+    // Listings and details are read as DTOs straight from the query, no entity enters the persistence context
+    String SELECT_DTO = "SELECT new pl.sonmiike.financeapiservice.expenses.ExpenseDTO(" +
+            "e.id, e.name, e.description, e.date, e.amount, e.user.userId, e.category.id, e.version) FROM Expense e ";
+
+    // Slices fetch one extra row instead of running COUNT(*), totals come from RecordCountService
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseDTO> findDtosByUserUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId AND e.category.id = :categoryId ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseDTO> findDtosByUserUserIdAndCategoryId(@Param("userId") Long userId, @Param("categoryId") Long categoryId, Pageable pageable);
+
+    // Keyset pages ordered by (date DESC, id DESC), the seek predicate is spelled out so the date bound stays sargable
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId ORDER BY e.date DESC, e.id DESC")
+    List<ExpenseDTO> findDtosByUserUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId " +
+            "AND e.date <= :date AND (e.date < :date OR e.id < :id) " +
+            "ORDER BY e.date DESC, e.id DESC")
+    List<ExpenseDTO> findDtosByUserUserIdAfter(@Param("userId") Long userId,
+                                               @Param("date") LocalDate date,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId AND e.category.id = :categoryId ORDER BY e.date DESC, e.id DESC")
+    List<ExpenseDTO> findDtosByUserUserIdAndCategoryId(@Param("userId") Long userId, @Param("categoryId") Long categoryId, Limit limit);
+
+    @Query(SELECT_DTO + "WHERE e.user.userId = :userId AND e.category.id = :categoryId " +
+            "AND e.date <= :date AND (e.date < :date OR e.id < :id) " +
+            "ORDER BY e.date DESC, e.id DESC")
+    List<ExpenseDTO> findDtosByUserUserIdAndCategoryIdAfter(@Param("userId") Long userId,
+                                                            @Param("categoryId") Long categoryId,
+                                                            @Param("date") LocalDate date,
+                                                            @Param("id") Long id,
+                                                            Limit limit);
+
+    @Query(SELECT_DTO + "WHERE e.id = :id AND e.user.userId = :userId")
+    Optional<ExpenseDTO> findDtoByIdAndUserUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Most recent first, only the texts the in-process search index needs
+    @Query("SELECT new pl.sonmiike.financeapiservice.search.SearchCandidate(e.id, e.name, e.description) " +
+            "FROM Expense e WHERE e.user.userId = :userId ORDER BY e.date DESC, e.id DESC")
+    List<SearchCandidate> findSearchCandidatesByUserUserId(@Param("userId") Long userId, Limit limit);
+
+    // Ranked by pg_trgm word similarity to name or description, served by the trigram indexes from V3
+    @Query(value = "SELECT e.* FROM expense e WHERE e.user_id = :userId " +
+            "AND (lower(:query) <% lower(e.name) OR lower(:query) <% lower(e.description)) " +
+            "ORDER BY greatest(word_similarity(lower(:query), lower(e.name)), " +
+            "coalesce(word_similarity(lower(:query), lower(e.description)), 0)) DESC, e.date DESC, e.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Expense> searchByUserUserId(@Param("userId") Long userId, @Param("query") String query, @Param("limit") int limit);
+
+    @Query("SELECT new pl.sonmiike.financeapiservice.search.NameFrequency(e.name, count(e)) " +
+            "FROM Expense e WHERE e.user.userId = :userId GROUP BY e.name")
+    List<NameFrequency> countNamesByUserUserId(@Param("userId") Long userId);
 
     Optional<Expense> findByIdAndUserUserId(Long id, Long userId);
 
-    void deleteByIdAndUserUserId(Long userId, Long expenseId);
+    @Query("SELECT new pl.sonmiike.financeapiservice.expenses.ExpenseSnapshot(e.category.id, e.name, e.date, e.amount, e.version) " +
+            "FROM Expense e WHERE e.id = :id AND e.user.userId = :userId")
+    Optional<ExpenseSnapshot> findSnapshotByIdAndUserUserId(@Param("id") Long id, @Param("userId") Long userId);
 
-    void deleteAllByUserUserId(Long userid);
+    // Bulk deletes, derived deletes would load every matching entity first
+    @Modifying
+    @Query("DELETE FROM Expense e WHERE e.user.userId = :userId")
+    void deleteAllByUserUserId(@Param("userId") Long userid);
 
-    void deleteAllByCategoryIdAndUserUserId(Long userId, Long categoryId);
+    @Modifying
+    @Query("DELETE FROM Expense e WHERE e.category.id = :categoryId AND e.user.userId = :userId")
+    int deleteAllByCategoryIdAndUserUserId(@Param("categoryId") Long categoryId, @Param("userId") Long userId);
 }
@@ -1,49 +1,118 @@
 package pl.sonmiike.financeapiservice.expenses;
 
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.sonmiike.financeapiservice.category.CategoryService;
 import pl.sonmiike.financeapiservice.category.UserCategoryRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountDeltas;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
 import pl.sonmiike.financeapiservice.exceptions.custom.IdNotMatchingException;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.FilterTarget;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
+import pl.sonmiike.financeapiservice.pagination.UserScopedFilterEngine;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+import pl.sonmiike.financeapiservice.search.RecordSearchService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
+import pl.sonmiike.financeapiservice.update.RecordUpdateEngine;
+import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserService;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    static final FilterTarget<ExpenseDTO> FILTER_TARGET = new FilterTarget<>(Expense.class, ExpenseDTO.class,
+            "new pl.sonmiike.financeapiservice.expenses.ExpenseDTO(r.id, r.name, r.description, r.date, r.amount, r.user.userId, r.category.id, r.version)",
+            "user.userId", "date");
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final ExpenseRepository expenseRepository;
     private final UserCategoryRepository userCategoryRepository;
 
     private final UserService userService;
     private final CategoryService categoryService;
 
+    private final RecordCountService recordCountService;
+    private final SpentAmountService spentAmountService;
+    private final UserScopedFilterEngine filterEngine;
+    private final RecordUpdateEngine recordUpdateEngine;
+    private final RecordSearchService recordSearchService;
+    private final ExpenseNameSuggestions expenseNameSuggestions;
+
     private final ExpenseMapper expenseMapper;
+    private final Validator validator;
 
-    public PagedExpensesDTO getUserExpenses(Long userId, int page, int size) {
-        Page<Expense> pagedExpenses = expenseRepository.findExpenseByUserUserId(userId, PageRequest.of(page, size));
+    /**
+     * @param withTotal whether to fill {@code totalPages}, read from the maintained per-user count rather than {@code COUNT(*)}
+     */
+    @Transactional(readOnly = true)
+    public PagedExpensesDTO getUserExpenses(Long userId, int page, int size, boolean withTotal) {
+        Slice<ExpenseDTO> expenses = expenseRepository.findDtosByUserUserId(userId, PageRequest.of(page, size));
+        if (!withTotal) {
+            return expenseMapper.toSlicedDTO(expenses);
+        }
+        Page<ExpenseDTO> pagedExpenses = PageableExecutionUtils.getPage(
+                expenses.getContent(), expenses.getPageable(), () -> recordCountService.countExpenses(userId));
         return expenseMapper.toPagedDTO(pagedExpenses);
     }
 
-    public PagedExpensesDTO getUserExpensesByCategory(Long userId, Long categoryId, int page, int size) {
-        Page<Expense> pagedExpenses = expenseRepository.findExpenseByUserUserIdAndCategoryId(userId, categoryId, PageRequest.of(page, size));
+    @Transactional(readOnly = true)
+    public PagedExpensesDTO getUserExpensesByCategory(Long userId, Long categoryId, int page, int size, boolean withTotal) {
+        Slice<ExpenseDTO> expenses = expenseRepository.findDtosByUserUserIdAndCategoryId(userId, categoryId, PageRequest.of(page, size));
+        if (!withTotal) {
+            return expenseMapper.toSlicedDTO(expenses);
+        }
+        Page<ExpenseDTO> pagedExpenses = PageableExecutionUtils.getPage(
+                expenses.getContent(), expenses.getPageable(), () -> recordCountService.countExpenses(userId, categoryId));
         return expenseMapper.toPagedDTO(pagedExpenses);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ExpenseDTO> getUserExpenses(Long userId, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<ExpenseDTO> expenses = after == null
+                ? expenseRepository.findDtosByUserUserId(userId, CursorPageDTO.fetchLimit(size))
+                : expenseRepository.findDtosByUserUserIdAfter(userId, after.date(), after.id(), CursorPageDTO.fetchLimit(size));
+        return expenseMapper.toCursorPageDTO(expenses, size);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ExpenseDTO> getUserExpensesByCategory(Long userId, Long categoryId, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<ExpenseDTO> expenses = after == null
+                ? expenseRepository.findDtosByUserUserIdAndCategoryId(userId, categoryId, CursorPageDTO.fetchLimit(size))
+                : expenseRepository.findDtosByUserUserIdAndCategoryIdAfter(userId, categoryId, after.date(), after.id(), CursorPageDTO.fetchLimit(size));
+        return expenseMapper.toCursorPageDTO(expenses, size);
+    }
+
+    @Transactional(readOnly = true)
     public ExpenseDTO getExpenseById(Long id, Long userId) {
-        return expenseRepository.findByIdAndUserUserId(id, userId)
-                .map(expenseMapper::toDTO)
+        return expenseRepository.findDtoByIdAndUserUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense with that id not found in database"));
 
     }
 
+    @Transactional
     public void createExpense(AddExpesneDTO expenseDTO, Long userId, Long categoryId) {
         if (!userCategoryRepository.existsByUserUserIdAndCategoryId(userId, categoryId)) {
             throw new IdNotMatchingException("User does not have category with that id assigned");
@@ -53,27 +122,142 @@ public class ExpenseService {
 
         expense.setCategory(categoryService.getCategoryById(categoryId));
         expenseRepository.save(expense);
+        recordCountService.expensesAdded(userId, categoryId, 1);
+        spentAmountService.expenseAdded(userId, categoryId, expense.getDate(), expense.getAmount());
+        expenseNameSuggestions.nameAdded(userId, expense.getName());
     }
 
-    public PagedExpensesDTO findExpensesWithFilters(String keyword, LocalDate dateFrom, LocalDate dateTo, BigDecimal amountFrom, BigDecimal amountTo, Pageable pageable) {
-        Page<Expense> pagedFilteredExpenses = expenseRepository.findAll(ExpenseFilterSortingSpecifications.withFilters(keyword, dateFrom, dateTo, amountFrom, amountTo), pageable);
+    /**
+     * Creates up to {@link #MAX_BATCH_SIZE} expenses across the user's categories, rejecting invalid items one by one.
+     * <p>
+     * Category ownership is checked for the whole batch with a single query and the user and categories are set as
+     * references, so nothing is loaded per item; the pooled ids let Hibernate send the inserts in JDBC batches.
+     */
+    @Transactional
+    public ExpenseBatchResultDTO createExpenses(List<AddExpenseBatchItemDTO> items, Long userId) {
+        if (items == null || items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("A batch must contain between 1 and " + MAX_BATCH_SIZE + " expenses");
+        }
+        Set<Long> requestedCategories = new HashSet<>();
+        for (AddExpenseBatchItemDTO item : items) {
+            if (item != null && item.getCategoryId() != null) {
+                requestedCategories.add(item.getCategoryId());
+            }
+        }
+        Set<Long> assignedCategories = requestedCategories.isEmpty()
+                ? Set.of()
+                : userCategoryRepository.findAssignedCategoryIds(userId, requestedCategories);
+
+        UserEntity user = userService.getUserReference(userId);
+        ExpenseBatchResultDTO.ItemResult[] results = new ExpenseBatchResultDTO.ItemResult[items.size()];
+        List<Expense> expenses = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            AddExpenseBatchItemDTO item = items.get(i);
+            String error = validate(item, assignedCategories);
+            if (error != null) {
+                results[i] = new ExpenseBatchResultDTO.ItemResult(i, null, error);
+                continue;
+            }
+            Expense expense = expenseMapper.toEntity(item);
+            expense.setUser(user);
+            expense.setCategory(categoryService.getCategoryReference(item.getCategoryId()));
+            expenses.add(expense);
+            positions.add(i);
+        }
+
+        expenseRepository.saveAll(expenses);
+        Map<Long, Integer> createdPerCategory = new HashMap<>();
+        SpentAmountDeltas spent = new SpentAmountDeltas();
+        for (int j = 0; j < expenses.size(); j++) {
+            Expense expense = expenses.get(j);
+            results[positions.get(j)] = new ExpenseBatchResultDTO.ItemResult(positions.get(j), expense.getId(), null);
+            createdPerCategory.merge(expense.getCategory().getId(), 1, Integer::sum);
+            spent.add(expense.getCategory().getId(), expense.getDate(), expense.getAmount());
+        }
+        createdPerCategory.forEach((categoryId, created) -> recordCountService.expensesAdded(userId, categoryId, created));
+        spentAmountService.apply(userId, spent);
+        expenseNameSuggestions.namesAdded(userId, expenses.stream().map(Expense::getName).toList());
+
+        return ExpenseBatchResultDTO.builder()
+                .created(expenses.size())
+                .rejected(items.size() - expenses.size())
+                .results(List.of(results))
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public PagedExpensesDTO findExpensesWithFilters(RecordFilter filter, Pageable pageable) {
+        Page<ExpenseDTO> pagedFilteredExpenses = filterEngine.findPage(FILTER_TARGET, filter, pageable);
         return expenseMapper.toPagedDTO(pagedFilteredExpenses);
     }
 
+    public List<ExpenseDTO> searchExpenses(Long userId, String query, int limit) {
+        return recordSearchService.searchExpenses(userId, query, limit).stream()
+                .map(expenseMapper::toDTO)
+                .toList();
+    }
+
+    public List<String> suggestExpenseNames(Long userId, String prefix, int limit) {
+        return expenseNameSuggestions.suggest(userId, prefix, limit);
+    }
+
+    private String validate(AddExpenseBatchItemDTO item, Set<Long> assignedCategories) {
+        if (item == null) {
+            return "Expense is missing";
+        }
+        String violation = validator.validate(item).stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .findFirst()
+                .orElse(null);
+        if (violation != null) {
+            return violation;
+        }
+        return assignedCategories.contains(item.getCategoryId()) ? null : "User does not have category with that id assigned";
+    }
+
+    /**
+     * Applies a PUT or PATCH of the expense in one {@code UPDATE}. Changes of the name, amount or date read the
+     * expense first, for the name suggestions and the budgets of the months involved.
+     *
+     * @param expectedVersion version from {@code If-Match}, {@code null} for {@code *}
+     * @return the new version
+     */
     @Transactional
-    public void updateExpense(ExpenseDTO expenseDTOtoUpdate, Long userId) {
-        if (!expenseRepository.existsById(expenseDTOtoUpdate.getId())) {
-            throw new IdNotMatchingException("Expense not found");
+    public long updateExpense(Long expenseId, RecordUpdate update, Long userId, Long expectedVersion) {
+        if (!update.has(RecordUpdate.NAME | RecordUpdate.AMOUNT | RecordUpdate.DATE)) {
+            return recordUpdateEngine.update(FILTER_TARGET, expenseId, userId, expectedVersion, update);
         }
-        Expense expense = expenseMapper.toEntity(expenseDTOtoUpdate);
-        expense.setUser(userService.getUserById(userId));
-        expenseRepository.save(expense);
+        // The update is guarded by the version read with the replaced values, so an expense changed in between
+        // fails with 412 instead of moving the budgets by a stale amount or renaming a stale name
+        ExpenseSnapshot previous = expenseRepository.findSnapshotByIdAndUserUserId(expenseId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Expense with that id not found in database"));
+        long version = recordUpdateEngine.update(FILTER_TARGET, expenseId, userId,
+                expectedVersion != null ? expectedVersion : previous.version(), update);
+        if (update.has(RecordUpdate.AMOUNT | RecordUpdate.DATE)) {
+            spentAmountService.apply(userId, new SpentAmountDeltas()
+                    .subtract(previous.categoryId(), previous.date(), previous.amount())
+                    .add(previous.categoryId(),
+                            update.has(RecordUpdate.DATE) ? update.date() : previous.date(),
+                            update.has(RecordUpdate.AMOUNT) ? update.amount() : previous.amount()));
+        }
+        if (update.has(RecordUpdate.NAME)) {
+            expenseNameSuggestions.nameChanged(userId, previous.name(), update.name());
+        }
+        return version;
     }
 
 
     @Transactional
     public void deleteExpense(Long expenseId, Long userId) {
-        expenseRepository.deleteByIdAndUserUserId(expenseId, userId);
+        // Loaded first for its category and name, scoped to the user so another user's expense is not found
+        Expense expense = expenseRepository.findByIdAndUserUserId(expenseId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Expense with that id not found in database"));
+        expenseRepository.delete(expense);
+        recordCountService.expensesRemoved(userId, expense.getCategory().getId(), 1);
+        spentAmountService.expenseRemoved(userId, expense.getCategory().getId(), expense.getDate(), expense.getAmount());
+        expenseNameSuggestions.nameRemoved(userId, expense.getName());
     }
 
 }
@@ -0,0 +1,10 @@
+package pl.sonmiike.financeapiservice.expenses;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * What the budgets and name suggestions depend on, read before the name, amount or date of an expense is replaced.
+ */
+public record ExpenseSnapshot(Long categoryId, String name, LocalDate date, BigDecimal amount, Long version) {
+}
@@ -1,5 +1,6 @@
 package pl.sonmiike.financeapiservice.expenses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -10,6 +11,9 @@ import java.util.List;
 public class PagedExpensesDTO {
 
     private int page;
-    private int totalPages;
+    // Left out when the listing was requested without a total
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
+    private boolean hasNext;
     private List<ExpenseDTO> expenses;
 }
@@ -19,7 +19,8 @@ import java.time.LocalDate;
 public class Income {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "income_seq")
+    @SequenceGenerator(name = "income_seq", sequenceName = "income_seq", allocationSize = 50)
     private Long id;
 
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
@@ -31,7 +32,11 @@ public class Income {
     private BigDecimal amount;
 
     @ManyToOne
+    @JoinColumn(name = "user_user_id")
     private UserEntity user;
 
+    // Incremented by every update and sent to clients as the ETag
+    @Version
+    private long version;
 
 }
@@ -1,20 +1,28 @@
 package pl.sonmiike.financeapiservice.income;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import pl.sonmiike.financeapiservice.exceptions.custom.IdNotMatchingException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionRequiredException;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
 import pl.sonmiike.financeapiservice.security.auth.AuthService;
+import pl.sonmiike.financeapiservice.update.EntityTags;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -25,27 +33,47 @@ public class IncomeController {
     private final AuthService authService;
 
     @GetMapping
-    public ResponseEntity<PagedIncomesDTO> getUserIncome(Authentication authentication, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<PagedIncomesDTO> getUserIncome(Authentication authentication, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "true") boolean withTotal) {
         Long userId = authService.getUserId(authentication);
-        return ResponseEntity.ok(incomeService.getUserIncome(userId, page, size));
+        return ResponseEntity.ok(incomeService.getUserIncome(userId, page, size, withTotal));
+    }
+
+    // Keyset mode, selected by the cursor parameter; an empty cursor returns the first page
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<IncomeDTO>> getUserIncome(Authentication authentication, @RequestParam String cursor, @RequestParam(defaultValue = "10") int size) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(incomeService.getUserIncome(userId, cursor, size));
     }
 
     @GetMapping("/{incomeId}") // TODO Make it for either admin or user scope only
     public ResponseEntity<IncomeDTO> getIncomeById(@PathVariable Long incomeId, Authentication authentication) {
         Long userId = authService.getUserId(authentication);
         IncomeDTO incomeDTO = incomeService.getIncomeById(incomeId, userId);
-        return ResponseEntity.ok(incomeDTO);
+        return ResponseEntity.ok().eTag(EntityTags.of(incomeDTO.getVersion())).body(incomeDTO);
+    }
+
+    // Best matches of the name or description first, typos within a word are tolerated
+    @GetMapping("/search")
+    public ResponseEntity<List<IncomeDTO>> searchIncomes(Authentication authentication,
+                                                         @RequestParam String q,
+                                                         @RequestParam(defaultValue = "20") int limit) {
+        Long userId = authService.getUserId(authentication);
+        return ResponseEntity.ok(incomeService.searchIncomes(userId, q, limit));
     }
 
+    // Only "date" can be sorted on, it maps to the indexed date of the entity
     @GetMapping("/filter")
     public ResponseEntity<PagedIncomesDTO> getIncomes(
+            Authentication authentication,
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "dateFrom", required = false) LocalDate dateFrom,
             @RequestParam(value = "dateTo", required = false) LocalDate dateTo,
             @RequestParam(value = "fromAmount", required = false) BigDecimal fromAmount,
             @RequestParam(value = "toAmount", required = false) BigDecimal toAmount,
-            @PageableDefault(sort = "date", direction = Sort.Direction.DESC)Pageable pageable) {
-        return ResponseEntity.ok(incomeService.findIncomesWithFilters(keyword, dateFrom, dateTo, fromAmount, toAmount, pageable));
+            @PageableDefault(sort = "date", direction = Sort.Direction.DESC) Pageable pageable) {
+        Long userId = authService.getUserId(authentication);
+        RecordFilter filter = new RecordFilter(userId, keyword, dateFrom, dateTo, fromAmount, toAmount);
+        return ResponseEntity.ok(incomeService.findIncomesWithFilters(filter, pageable));
     }
 
     @PostMapping
@@ -56,13 +84,41 @@ public class IncomeController {
 
     }
 
+    // The replaced version comes from If-Match, or from the version in the body of clients that echo the DTO back
     @PutMapping("/{incomeId}")
-    public ResponseEntity<IncomeDTO> updateIncome(@PathVariable Long incomeId, @RequestBody @Valid IncomeDTO incomeDTO, Authentication authentication) {
+    public ResponseEntity<IncomeDTO> updateIncome(@PathVariable Long incomeId,
+                                                  @RequestBody @Valid IncomeDTO incomeDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  Authentication authentication) {
         if (!incomeId.equals(incomeDTO.getId())) {
             throw new IdNotMatchingException("Income id in path and body must be the same");
         }
+        Long expectedVersion;
+        if (ifMatch != null) {
+            expectedVersion = EntityTags.parseIfMatch(ifMatch);
+        } else if (incomeDTO.getVersion() != null) {
+            expectedVersion = incomeDTO.getVersion();
+        } else {
+            throw new PreconditionRequiredException("Updates need an If-Match header or the version of the record");
+        }
+        Long userId = authService.getUserId(authentication);
+        RecordUpdate update = RecordUpdate.replacing(incomeDTO.getName(), incomeDTO.getDescription(), incomeDTO.getIncomeDate(), incomeDTO.getAmount());
+        long version = incomeService.updateIncome(incomeId, update, userId, expectedVersion);
+        incomeDTO.setUserId(userId);
+        incomeDTO.setVersion(version);
+        return ResponseEntity.ok().eTag(EntityTags.of(version)).body(incomeDTO);
+    }
+
+    // JSON Merge Patch of name, description, incomeDate and amount
+    @PatchMapping(value = "/{incomeId}", consumes = {"application/merge-patch+json", "application/json"})
+    public ResponseEntity<Void> patchIncome(@PathVariable Long incomeId,
+                                            @RequestBody JsonNode patch,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            Authentication authentication) {
+        Long expectedVersion = EntityTags.parseIfMatch(ifMatch);
         Long userId = authService.getUserId(authentication);
-        return ResponseEntity.ok(incomeService.updateIncome(incomeDTO, userId));
+        long version = incomeService.updateIncome(incomeId, RecordUpdate.fromMergePatch(patch, "incomeDate"), userId, expectedVersion);
+        return ResponseEntity.noContent().eTag(EntityTags.of(version)).build();
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
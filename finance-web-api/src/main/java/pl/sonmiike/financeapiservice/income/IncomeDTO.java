@@ -38,4 +38,6 @@ public class IncomeDTO {
     private BigDecimal amount;
 
     private Long userId;
+
+    private Long version;
 }
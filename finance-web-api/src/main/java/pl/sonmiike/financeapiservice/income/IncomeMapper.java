@@ -1,7 +1,13 @@
 package pl.sonmiike.financeapiservice.income;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+
+import java.util.List;
+import java.util.function.Function;
 
 @Component
 public class IncomeMapper {
@@ -13,12 +19,12 @@ public class IncomeMapper {
                 .description(income.getDescription())
                 .amount(income.getAmount())
                 .userId(income.getUser().getUserId())
+                .version(income.getVersion())
                 .build();
     }
 
-    public Income toEntity(IncomeDTO incomeDTO) {
+    public Income toEntity(AddIncomeDTO incomeDTO) {
         return Income.builder()
-                .id(incomeDTO.getId())
                 .incomeDate(incomeDTO.getIncomeDate())
                 .name(incomeDTO.getName())
                 .description(incomeDTO.getDescription())
@@ -26,20 +32,24 @@ public class IncomeMapper {
                 .build();
     }
 
-    public Income toEntity(AddIncomeDTO incomeDTO) {
-        return Income.builder()
-                .incomeDate(incomeDTO.getIncomeDate())
-                .name(incomeDTO.getName())
-                .description(incomeDTO.getDescription())
-                .amount(incomeDTO.getAmount())
+    public PagedIncomesDTO toPagedDTO(Page<IncomeDTO> incomes) {
+        return PagedIncomesDTO.builder()
+                .currentPage(incomes.getNumber())
+                .totalPages(incomes.getTotalPages() > 1 ? incomes.getTotalPages() - 1 : incomes.getTotalPages() )
+                .hasNext(incomes.hasNext())
+                .incomes(incomes.getContent())
                 .build();
     }
 
-    public PagedIncomesDTO toPagedDTO(Page<Income> incomes) {
+    public PagedIncomesDTO toSlicedDTO(Slice<IncomeDTO> incomes) {
         return PagedIncomesDTO.builder()
                 .currentPage(incomes.getNumber())
-                .totalPages(incomes.getTotalPages() > 1 ? incomes.getTotalPages() - 1 : incomes.getTotalPages() )
-                .incomes(incomes.map(this::toDTO).getContent())
+                .hasNext(incomes.hasNext())
+                .incomes(incomes.getContent())
                 .build();
     }
+
+    public CursorPageDTO<IncomeDTO> toCursorPageDTO(List<IncomeDTO> incomes, int size) {
+        return CursorPageDTO.of(incomes, size, income -> new Cursor(income.getIncomeDate(), income.getId()), Function.identity());
+    }
 }
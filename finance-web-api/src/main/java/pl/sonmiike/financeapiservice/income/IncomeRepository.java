@@ -1,21 +1,65 @@
 package pl.sonmiike.financeapiservice.income;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.sonmiike.financeapiservice.search.SearchCandidate;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface IncomeRepository extends JpaRepository<Income, Long>, JpaSpecificationExecutor<Income> {
 
-    Page<Income> findByUserUserId(Long userId, Pageable pageable);
+    // Listings and details are read as DTOs straight from the query, no entity enters the persistence context
+    String SELECT_DTO = "SELECT new pl.sonmiike.financeapiservice.income.IncomeDTO(" +
+            "i.id, i.incomeDate, i.name, i.description, i.amount, i.user.userId, i.version) FROM Income i ";
 
-    Optional<Income> findByIdAndUserUserId(Long id, Long userId);
+    // Fetches one extra row instead of running COUNT(*), the total comes from RecordCountService
+    @Query(SELECT_DTO + "WHERE i.user.userId = :userId ORDER BY i.incomeDate DESC, i.id DESC")
+    Slice<IncomeDTO> findDtosByUserUserId(@Param("userId") Long userId, Pageable pageable);
 
-    void deleteIncomeByIdAndUserUserId(Long id, Long userId);
+    // Keyset pages ordered by (incomeDate DESC, id DESC)
+    @Query(SELECT_DTO + "WHERE i.user.userId = :userId ORDER BY i.incomeDate DESC, i.id DESC")
+    List<IncomeDTO> findDtosByUserUserId(@Param("userId") Long userId, Limit limit);
 
-    void deleteAllByUserUserId(Long userId);
+    @Query(SELECT_DTO + "WHERE i.user.userId = :userId " +
+            "AND i.incomeDate <= :date AND (i.incomeDate < :date OR i.id < :id) " +
+            "ORDER BY i.incomeDate DESC, i.id DESC")
+    List<IncomeDTO> findDtosByUserUserIdAfter(@Param("userId") Long userId,
+                                              @Param("date") LocalDate date,
+                                              @Param("id") Long id,
+                                              Limit limit);
+
+    @Query(SELECT_DTO + "WHERE i.id = :id AND i.user.userId = :userId")
+    Optional<IncomeDTO> findDtoByIdAndUserUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Most recent first, only the texts the in-process search index needs
+    @Query("SELECT new pl.sonmiike.financeapiservice.search.SearchCandidate(i.id, i.name, i.description) " +
+            "FROM Income i WHERE i.user.userId = :userId ORDER BY i.incomeDate DESC, i.id DESC")
+    List<SearchCandidate> findSearchCandidatesByUserUserId(@Param("userId") Long userId, Limit limit);
+
+    // Ranked by pg_trgm word similarity to name or description, served by the trigram indexes from V3
+    @Query(value = "SELECT i.* FROM income i WHERE i.user_user_id = :userId " +
+            "AND (lower(:query) <% lower(i.name) OR lower(:query) <% lower(i.description)) " +
+            "ORDER BY greatest(word_similarity(lower(:query), lower(i.name)), " +
+            "coalesce(word_similarity(lower(:query), lower(i.description)), 0)) DESC, i.income_date DESC, i.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Income> searchByUserUserId(@Param("userId") Long userId, @Param("query") String query, @Param("limit") int limit);
+
+    // Bulk deletes, derived deletes would load every matching entity first
+    @Modifying
+    @Query("DELETE FROM Income i WHERE i.id = :id AND i.user.userId = :userId")
+    int deleteIncomeByIdAndUserUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM Income i WHERE i.user.userId = :userId")
+    void deleteAllByUserUserId(@Param("userId") Long userId);
 
 //    Page<Income> findIncomesByUserUserIdAndIncomeDateBetweenAndAmountBetweenAndDescriptionNotContainsIgnoreCase
 }
@@ -4,56 +4,104 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.FilterTarget;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
+import pl.sonmiike.financeapiservice.pagination.UserScopedFilterEngine;
+import pl.sonmiike.financeapiservice.search.RecordSearchService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
+import pl.sonmiike.financeapiservice.update.RecordUpdateEngine;
 import pl.sonmiike.financeapiservice.user.UserService;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.util.List;
 
 
 @Service
 @RequiredArgsConstructor
 public class IncomeService {
-    
+
+    static final FilterTarget<IncomeDTO> FILTER_TARGET = new FilterTarget<>(Income.class, IncomeDTO.class,
+            "new pl.sonmiike.financeapiservice.income.IncomeDTO(r.id, r.incomeDate, r.name, r.description, r.amount, r.user.userId, r.version)",
+            "user.userId", "incomeDate");
+
     private final IncomeRepository incomeRepository;
     private final IncomeMapper incomeMapper;
     private final UserService userService;
+    private final RecordCountService recordCountService;
+    private final UserScopedFilterEngine filterEngine;
+    private final RecordUpdateEngine recordUpdateEngine;
+    private final RecordSearchService recordSearchService;
 
-    public PagedIncomesDTO getUserIncome(Long userId, int page, int size) {
-        Page<Income> incomes = incomeRepository.findByUserUserId(userId, PageRequest.of(page,size));
-        return incomeMapper.toPagedDTO(incomes);
+    /**
+     * @param withTotal whether to fill {@code totalPages}, read from the maintained per-user count rather than {@code COUNT(*)}
+     */
+    @Transactional(readOnly = true)
+    public PagedIncomesDTO getUserIncome(Long userId, int page, int size, boolean withTotal) {
+        Slice<IncomeDTO> incomes = incomeRepository.findDtosByUserUserId(userId, PageRequest.of(page,size));
+        if (!withTotal) {
+            return incomeMapper.toSlicedDTO(incomes);
+        }
+        Page<IncomeDTO> pagedIncomes = PageableExecutionUtils.getPage(
+                incomes.getContent(), incomes.getPageable(), () -> recordCountService.countIncomes(userId));
+        return incomeMapper.toPagedDTO(pagedIncomes);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<IncomeDTO> getUserIncome(Long userId, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        List<IncomeDTO> incomes = after == null
+                ? incomeRepository.findDtosByUserUserId(userId, CursorPageDTO.fetchLimit(size))
+                : incomeRepository.findDtosByUserUserIdAfter(userId, after.date(), after.id(), CursorPageDTO.fetchLimit(size));
+        return incomeMapper.toCursorPageDTO(incomes, size);
+    }
+
+    @Transactional(readOnly = true)
     public IncomeDTO getIncomeById(Long id, Long userId) {
-        return incomeRepository.findByIdAndUserUserId(id, userId)
-                .map(incomeMapper::toDTO)
+        return incomeRepository.findDtoByIdAndUserUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Income not found"));
     }
 
+    @Transactional
     public void createIncome(AddIncomeDTO incomeDTO, Long userId) {
         Income income = incomeMapper.toEntity(incomeDTO);
         income.setUser(userService.getUserById(userId));
         incomeRepository.save(income);
+        recordCountService.incomesAdded(userId, 1);
     }
 
-    public PagedIncomesDTO findIncomesWithFilters(String keyword, LocalDate dateFrom, LocalDate dateTo, BigDecimal amountFrom, BigDecimal amountTo, Pageable pageable) {
-        Page<Income> pagedFilteredIncomes = incomeRepository.findAll(IncomeFilterSortingSpecifications.withFilters(keyword, dateFrom, dateTo, amountFrom, amountTo), pageable);
+    @Transactional(readOnly = true)
+    public PagedIncomesDTO findIncomesWithFilters(RecordFilter filter, Pageable pageable) {
+        Page<IncomeDTO> pagedFilteredIncomes = filterEngine.findPage(FILTER_TARGET, filter, pageable);
         return incomeMapper.toPagedDTO(pagedFilteredIncomes);
     }
 
+    public List<IncomeDTO> searchIncomes(Long userId, String query, int limit) {
+        return recordSearchService.searchIncomes(userId, query, limit).stream()
+                .map(incomeMapper::toDTO)
+                .toList();
+    }
+
+    /**
+     * Applies a PUT or PATCH of the income in one {@code UPDATE}, without reading it first.
+     *
+     * @param expectedVersion version from {@code If-Match}, {@code null} for {@code *}
+     * @return the new version
+     */
     @Transactional
-    public IncomeDTO updateIncome(IncomeDTO incomeDTOtoUpdate, Long userId) {
-        if (!incomeRepository.existsById(incomeDTOtoUpdate.getId())) {
-            throw new ResourceNotFoundException("Income not found");
-        }
-        Income income = incomeMapper.toEntity(incomeDTOtoUpdate);
-        income.setUser(userService.getUserById(userId));
-        return incomeMapper.toDTO(incomeRepository.save(income));
+    public long updateIncome(Long incomeId, RecordUpdate update, Long userId, Long expectedVersion) {
+        return recordUpdateEngine.update(FILTER_TARGET, incomeId, userId, expectedVersion, update);
     }
+
     @Transactional
     public void deleteIncome(Long incomeId, Long userId) {
-        incomeRepository.deleteIncomeByIdAndUserUserId(incomeId, userId);
+        long deleted = incomeRepository.deleteIncomeByIdAndUserUserId(incomeId, userId);
+        recordCountService.incomesRemoved(userId, deleted);
     }
 }
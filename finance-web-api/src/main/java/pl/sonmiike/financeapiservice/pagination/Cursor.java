@@ -0,0 +1,48 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in a listing ordered by {@code (date DESC, id DESC)}.
+ * <p>
+ * Clients only see the encoded form and pass it back unchanged. It is not signed: every cursor query
+ * is scoped to the authenticated user, so a forged cursor can only seek within the caller's own rows.
+ */
+public record Cursor(LocalDate date, Long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        return ENCODER.encodeToString((date.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded position, or {@code null} for a missing or empty cursor, which starts at the first page
+     * @throws InvalidRequestException when the cursor was not produced by {@link #encode()}
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            return new Cursor(
+                    LocalDate.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is an IllegalArgumentException
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
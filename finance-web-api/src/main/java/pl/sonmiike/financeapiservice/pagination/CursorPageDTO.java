@@ -0,0 +1,45 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.domain.Limit;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is {@code null} on the last page.
+ * Unlike the page-number listings there is no total, so no {@code COUNT(*)} runs per request.
+ */
+@Data
+@Builder
+public class CursorPageDTO<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Rows to fetch for a page of {@code size}: one more than shown, to learn whether a next page exists.
+     */
+    public static Limit fetchLimit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new InvalidRequestException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * @param rows up to {@code size + 1} rows fetched with {@link #fetchLimit(int)}
+     */
+    public static <E, T> CursorPageDTO<T> of(List<E> rows, int size, Function<E, Cursor> position, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageDTO.<T>builder()
+                .items(page.stream().map(mapper).toList())
+                .nextCursor(hasNext ? position.apply(page.get(size - 1)).encode() : null)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+/**
+ * Entity a {@link UserScopedFilterEngine} query runs against, with the paths of its owner id and its date.
+ * The date is the only sortable field, it is the one indexed after the owner id.
+ * <p>
+ * {@code selection} is what the query selects from the entity aliased {@code r}, e.g. a {@code new} expression
+ * of {@code resultType} to read DTOs without loading entities.
+ */
+public record FilterTarget<R>(Class<?> entityType, Class<R> resultType, String selection, String userIdPath, String datePath) {
+
+    /**
+     * Target whose queries return the entities themselves.
+     */
+    public FilterTarget(Class<R> entityType, String userIdPath, String datePath) {
+        this(entityType, entityType, "r", userIdPath, datePath);
+    }
+}
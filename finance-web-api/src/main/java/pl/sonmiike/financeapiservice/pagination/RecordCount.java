@@ -0,0 +1,36 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of expenses or incomes of a user, kept next to the rows so listings do not run {@code COUNT(*)}.
+ * {@code categoryId} is {@link #ALL_CATEGORIES} for the per-user total and the category id for per-category expense totals.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(RecordCountId.class)
+public class RecordCount {
+
+    public static final long ALL_CATEGORIES = 0L;
+
+    @Id
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private RecordType recordType;
+
+    @Id
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private long total;
+}
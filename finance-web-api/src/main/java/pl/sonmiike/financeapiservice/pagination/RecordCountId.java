@@ -0,0 +1,17 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordCountId implements Serializable {
+
+    private Long userId;
+    private RecordType recordType;
+    private Long categoryId;
+}
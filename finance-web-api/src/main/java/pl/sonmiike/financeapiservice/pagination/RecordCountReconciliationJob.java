@@ -0,0 +1,55 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the record counts from the expense and income tables and rewrites the ones that drifted.
+ * <p>
+ * Users are checked in id ranges of {@code chunk-size}, each range in its own statements and transactions,
+ * so no run scans the whole expense table at once. A write committing while the job runs can still leave its counter off by its own delta, the next run corrects it.
+ * Publishes {@code record_count.reconciled} (counters rewritten or removed) and {@code record_count.reconcile} (run duration).
+ */
+@Component
+public class RecordCountReconciliationJob {
+
+    private final RecordCountRepository recordCountRepository;
+    private final int chunkSize;
+    private final Counter reconciled;
+    private final Timer reconcileTimer;
+
+    public RecordCountReconciliationJob(RecordCountRepository recordCountRepository,
+                                        @Value("${custom.record-count.reconcile.chunk-size:1000}") int chunkSize,
+                                        MeterRegistry meterRegistry) {
+        this.recordCountRepository = recordCountRepository;
+        this.chunkSize = chunkSize;
+        this.reconciled = Counter.builder("record_count.reconciled").register(meterRegistry);
+        this.reconcileTimer = Timer.builder("record_count.reconcile").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${custom.record-count.reconcile.interval:PT1H}",
+            initialDelayString = "${custom.record-count.reconcile.initial-delay:PT1M}")
+    public void reconcile() {
+        Timer.Sample sample = Timer.start();
+        reconcileCounts();
+        sample.stop(reconcileTimer);
+    }
+
+    int reconcileCounts() {
+        Long maxUserId = recordCountRepository.findMaxUserId();
+        int fixed = 0;
+        if (maxUserId != null) {
+            for (long afterUserId = 0; afterUserId < maxUserId; afterUserId += chunkSize) {
+                int fixedInChunk = recordCountRepository.reconcileCounts(afterUserId, afterUserId + chunkSize)
+                        + recordCountRepository.deleteStaleCounts(afterUserId, afterUserId + chunkSize);
+                reconciled.increment(fixedInChunk);
+                fixed += fixedInChunk;
+            }
+        }
+        return fixed;
+    }
+}
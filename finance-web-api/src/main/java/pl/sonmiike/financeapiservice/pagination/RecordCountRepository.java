@@ -0,0 +1,79 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RecordCountRepository extends JpaRepository<RecordCount, RecordCountId> {
+
+    // Both rows in one statement, always locked in the same order, so concurrent writers cannot deadlock
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_count (user_id, record_type, category_id, total)
+            VALUES (:userId, :recordType, 0, :delta), (:userId, :recordType, :categoryId, :delta)
+            ON CONFLICT (user_id, record_type, category_id) DO UPDATE SET total = record_count.total + EXCLUDED.total
+            """, nativeQuery = true)
+    int addToUserAndCategory(@Param("userId") Long userId,
+                             @Param("recordType") String recordType,
+                             @Param("categoryId") Long categoryId,
+                             @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_count (user_id, record_type, category_id, total)
+            VALUES (:userId, :recordType, 0, :delta)
+            ON CONFLICT (user_id, record_type, category_id) DO UPDATE SET total = record_count.total + EXCLUDED.total
+            """, nativeQuery = true)
+    int addToUser(@Param("userId") Long userId,
+                  @Param("recordType") String recordType,
+                  @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM RecordCount rc WHERE rc.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    // Highest user id with records or counters, the upper bound of the reconciliation ranges
+    @Query(value = "SELECT greatest((SELECT max(user_id) FROM users), (SELECT max(user_id) FROM record_count))", nativeQuery = true)
+    Long findMaxUserId();
+
+    // Writes only the counters of users in (afterUserId, upToUserId] that differ from the source tables,
+    // the ranges are read through the user_id indexes of expense and income
+    @Modifying
+    @Transactional
+    @Query(value = """
+            WITH actual AS (
+                SELECT user_id, 'EXPENSE' AS record_type, 0 AS category_id, count(*) AS total
+                FROM expense WHERE user_id > :afterUserId AND user_id <= :upToUserId GROUP BY user_id
+                UNION ALL
+                SELECT user_id, 'EXPENSE', category_id, count(*)
+                FROM expense WHERE user_id > :afterUserId AND user_id <= :upToUserId GROUP BY user_id, category_id
+                UNION ALL
+                SELECT user_user_id, 'INCOME', 0, count(*)
+                FROM income WHERE user_user_id > :afterUserId AND user_user_id <= :upToUserId GROUP BY user_user_id
+            )
+            INSERT INTO record_count (user_id, record_type, category_id, total)
+            SELECT a.user_id, a.record_type, a.category_id, a.total
+            FROM actual a
+            LEFT JOIN record_count rc
+                ON rc.user_id = a.user_id AND rc.record_type = a.record_type AND rc.category_id = a.category_id
+            WHERE rc.total IS DISTINCT FROM a.total
+            ON CONFLICT (user_id, record_type, category_id) DO UPDATE SET total = EXCLUDED.total
+            """, nativeQuery = true)
+    int reconcileCounts(@Param("afterUserId") long afterUserId, @Param("upToUserId") long upToUserId);
+
+    // A missing counter reads as zero, so counters of rows that no longer exist are removed
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM record_count rc
+            WHERE rc.user_id > :afterUserId AND rc.user_id <= :upToUserId
+              AND ((rc.record_type = 'EXPENSE' AND NOT EXISTS (
+                       SELECT 1 FROM expense e
+                       WHERE e.user_id = rc.user_id AND (rc.category_id = 0 OR e.category_id = rc.category_id)))
+               OR (rc.record_type = 'INCOME' AND NOT EXISTS (
+                       SELECT 1 FROM income i WHERE i.user_user_id = rc.user_id)))
+            """, nativeQuery = true)
+    int deleteStaleCounts(@Param("afterUserId") long afterUserId, @Param("upToUserId") long upToUserId);
+}
@@ -0,0 +1,66 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Per-user expense and income counts, and per-user-per-category expense counts.
+ * <p>
+ * Writers call this in the transaction that inserts or deletes the rows, so a count commits or rolls back
+ * with them. Rows written around it (or before the counters existed) are corrected by {@link RecordCountReconciliationJob}.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordCountService {
+
+    private final RecordCountRepository recordCountRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void expensesAdded(Long userId, Long categoryId, long count) {
+        recordCountRepository.addToUserAndCategory(userId, RecordType.EXPENSE.name(), categoryId, count);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void expensesRemoved(Long userId, Long categoryId, long count) {
+        if (count > 0) {
+            recordCountRepository.addToUserAndCategory(userId, RecordType.EXPENSE.name(), categoryId, -count);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void incomesAdded(Long userId, long count) {
+        recordCountRepository.addToUser(userId, RecordType.INCOME.name(), count);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void incomesRemoved(Long userId, long count) {
+        if (count > 0) {
+            recordCountRepository.addToUser(userId, RecordType.INCOME.name(), -count);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAllForUser(Long userId) {
+        recordCountRepository.deleteAllByUserId(userId);
+    }
+
+    public long countExpenses(Long userId) {
+        return count(userId, RecordType.EXPENSE, RecordCount.ALL_CATEGORIES);
+    }
+
+    public long countExpenses(Long userId, Long categoryId) {
+        return count(userId, RecordType.EXPENSE, categoryId);
+    }
+
+    public long countIncomes(Long userId) {
+        return count(userId, RecordType.INCOME, RecordCount.ALL_CATEGORIES);
+    }
+
+    private long count(Long userId, RecordType recordType, Long categoryId) {
+        return recordCountRepository.findById(new RecordCountId(userId, recordType, categoryId))
+                .map(recordCount -> Math.max(recordCount.getTotal(), 0))
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,43 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Criteria of a {@code /filter} listing. {@code userId} is mandatory, every other bound is optional.
+ */
+public record RecordFilter(
+        Long userId,
+        String keyword,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        BigDecimal amountFrom,
+        BigDecimal amountTo
+) {
+
+    static final int KEYWORD = 1;
+    static final int DATE_FROM = 1 << 1;
+    static final int DATE_TO = 1 << 2;
+    static final int AMOUNT_FROM = 1 << 3;
+    static final int AMOUNT_TO = 1 << 4;
+
+    public RecordFilter {
+        if (userId == null) {
+            throw new IllegalArgumentException("A filter is always scoped to a user");
+        }
+        if (keyword != null && keyword.isBlank()) {
+            keyword = null;
+        }
+    }
+
+    /**
+     * Which optional bounds are set, filters with the same shape share one query string.
+     */
+    int shape() {
+        return (keyword != null ? KEYWORD : 0)
+                | (dateFrom != null ? DATE_FROM : 0)
+                | (dateTo != null ? DATE_TO : 0)
+                | (amountFrom != null ? AMOUNT_FROM : 0)
+                | (amountTo != null ? AMOUNT_TO : 0);
+    }
+}
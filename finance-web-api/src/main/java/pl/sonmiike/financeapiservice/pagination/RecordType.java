@@ -0,0 +1,6 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+public enum RecordType {
+    EXPENSE,
+    INCOME
+}
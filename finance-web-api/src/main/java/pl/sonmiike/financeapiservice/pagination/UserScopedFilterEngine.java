@@ -0,0 +1,136 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the {@code /filter} listings of expenses and incomes.
+ * <p>
+ * Every query starts with the owner predicate followed by the date range, so it is a range scan on the
+ * {@code (user, date, id)} index of the entity; amount only filters the rows of that range. The keyword is matched
+ * as {@code lower(x) LIKE}, the expression of the trigram indexes, so a rare keyword is looked up there instead.
+ * The JPQL is built once per entity, set of present bounds and sort direction and then reused, so the
+ * Hibernate query plan cache serves every later request with the same shape instead of compiling a new Criteria tree.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserScopedFilterEngine {
+
+    public static final int MAX_PAGE_SIZE = CursorPageDTO.MAX_SIZE;
+    // Sort names accepted from clients, mapped to the date path of each target
+    private static final String SORT_BY_DATE = "date";
+    private static final char LIKE_ESCAPE = '!';
+
+    private final EntityManager entityManager;
+
+    private final Map<QueryShape, String> queries = new ConcurrentHashMap<>();
+
+    public <R> Page<R> findPage(FilterTarget<R> target, RecordFilter filter, Pageable pageable) {
+        Sort.Direction direction = dateDirection(pageable.getSort());
+        Pageable bounded = PageRequest.of(
+                pageable.getPageNumber(),
+                Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
+                Sort.by(direction, SORT_BY_DATE));
+
+        TypedQuery<R> select = bind(entityManager.createQuery(jpql(target, filter.shape(), direction, false), target.resultType()), filter);
+        select.setFirstResult((int) bounded.getOffset());
+        select.setMaxResults(bounded.getPageSize());
+        List<R> content = select.getResultList();
+
+        return PageableExecutionUtils.getPage(content, bounded, () ->
+                bind(entityManager.createQuery(jpql(target, filter.shape(), direction, true), Long.class), filter).getSingleResult());
+    }
+
+    String jpql(FilterTarget<?> target, int shape, Sort.Direction direction, boolean count) {
+        return queries.computeIfAbsent(new QueryShape(target, shape, direction, count), this::buildJpql);
+    }
+
+    private String buildJpql(QueryShape shape) {
+        FilterTarget<?> target = shape.target();
+        String date = "r." + target.datePath();
+        StringBuilder jpql = new StringBuilder(shape.count() ? "SELECT count(r)" : "SELECT " + target.selection())
+                .append(" FROM ").append(target.entityType().getSimpleName()).append(" r")
+                .append(" WHERE r.").append(target.userIdPath()).append(" = :userId");
+        if ((shape.filters() & RecordFilter.DATE_FROM) != 0) {
+            jpql.append(" AND ").append(date).append(" >= :dateFrom");
+        }
+        if ((shape.filters() & RecordFilter.DATE_TO) != 0) {
+            jpql.append(" AND ").append(date).append(" <= :dateTo");
+        }
+        if ((shape.filters() & RecordFilter.AMOUNT_FROM) != 0) {
+            jpql.append(" AND r.amount >= :amountFrom");
+        }
+        if ((shape.filters() & RecordFilter.AMOUNT_TO) != 0) {
+            jpql.append(" AND r.amount <= :amountTo");
+        }
+        if ((shape.filters() & RecordFilter.KEYWORD) != 0) {
+            jpql.append(" AND (lower(r.name) LIKE :keyword ESCAPE '").append(LIKE_ESCAPE)
+                    .append("' OR lower(r.description) LIKE :keyword ESCAPE '").append(LIKE_ESCAPE).append("')");
+        }
+        if (!shape.count()) {
+            String order = shape.direction().name();
+            jpql.append(" ORDER BY ").append(date).append(' ').append(order).append(", r.id ").append(order);
+        }
+        return jpql.toString();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, RecordFilter filter) {
+        query.setParameter("userId", filter.userId());
+        if (filter.dateFrom() != null) {
+            query.setParameter("dateFrom", filter.dateFrom());
+        }
+        if (filter.dateTo() != null) {
+            query.setParameter("dateTo", filter.dateTo());
+        }
+        if (filter.amountFrom() != null) {
+            query.setParameter("amountFrom", filter.amountFrom());
+        }
+        if (filter.amountTo() != null) {
+            query.setParameter("amountTo", filter.amountTo());
+        }
+        if (filter.keyword() != null) {
+            query.setParameter("keyword", "%" + escapeLike(filter.keyword().toLowerCase(Locale.ROOT)) + "%");
+        }
+        return query;
+    }
+
+    private static Sort.Direction dateDirection(Sort sort) {
+        Sort.Direction direction = Sort.Direction.DESC;
+        for (Sort.Order order : sort) {
+            if (!SORT_BY_DATE.equals(order.getProperty())) {
+                throw new InvalidRequestException("Results can only be sorted by " + SORT_BY_DATE);
+            }
+            direction = order.getDirection();
+        }
+        return direction;
+    }
+
+    // The keyword is matched literally, % and _ typed by the user are not wildcards
+    private static String escapeLike(String keyword) {
+        StringBuilder escaped = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private record QueryShape(FilterTarget<?> target, int filters, Sort.Direction direction, boolean count) {
+    }
+}
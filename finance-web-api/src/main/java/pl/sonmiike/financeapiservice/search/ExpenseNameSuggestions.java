@@ -0,0 +1,134 @@
+package pl.sonmiike.financeapiservice.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Expense name autocomplete from a per-user {@link NameIndex} held in memory.
+ * <p>
+ * A user's index is built from one grouped query on their first request and then kept up to date by the expense
+ * writes, applied once their transaction commits. Indexes are bounded by their total number of names and dropped
+ * after {@code idle-timeout} without a request, the least recently used first when the bound is reached.
+ * Writes for a user without a loaded index are ignored, the next build reads them from the database.
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics with {@code cache=expenseNames}.
+ */
+@Component
+public class ExpenseNameSuggestions {
+
+    public static final int MAX_LIMIT = 20;
+
+    private final ExpenseRepository expenseRepository;
+    private final Cache<Long, NameIndex> indexes;
+
+    public ExpenseNameSuggestions(ExpenseRepository expenseRepository,
+                                  @Value("${custom.search.suggestions.max-names:1000000}") long maximumNames,
+                                  @Value("${custom.search.suggestions.idle-timeout:PT30M}") Duration idleTimeout,
+                                  MeterRegistry meterRegistry) {
+        this.expenseRepository = expenseRepository;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maximumNames)
+                .<Long, NameIndex>weigher((userId, index) -> index.size() + 1)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "expenseNames");
+    }
+
+    public List<String> suggest(Long userId, String prefix, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return indexes.get(userId, this::load).suggest(prefix == null ? "" : prefix.strip(), limit);
+    }
+
+    public void nameAdded(Long userId, String name) {
+        if (name != null) {
+            afterCommit(userId, Map.of(name, 1L));
+        }
+    }
+
+    /**
+     * The names of a batch of new expenses, applied to the index together once the batch commits.
+     */
+    public void namesAdded(Long userId, Collection<String> names) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (String name : names) {
+            if (name != null) {
+                deltas.merge(name, 1L, Long::sum);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            afterCommit(userId, deltas);
+        }
+    }
+
+    public void nameRemoved(Long userId, String name) {
+        if (name != null) {
+            afterCommit(userId, Map.of(name, -1L));
+        }
+    }
+
+    public void nameChanged(Long userId, String oldName, String newName) {
+        if (!Objects.equals(oldName, newName)) {
+            nameRemoved(userId, oldName);
+            nameAdded(userId, newName);
+        }
+    }
+
+    /**
+     * Drops the index of the user after writes that are not applied one by one, like bulk deletes.
+     */
+    public void invalidate(Long userId) {
+        indexes.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    indexes.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private NameIndex load(Long userId) {
+        return NameIndex.of(expenseRepository.countNamesByUserUserId(userId));
+    }
+
+    private void afterCommit(Long userId, Map<String, Long> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, deltas);
+            }
+        });
+    }
+
+    private void apply(Long userId, Map<String, Long> deltas) {
+        indexes.asMap().computeIfPresent(userId, (id, index) -> {
+            NameIndex updated = index;
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                updated = updated.withCount(delta.getKey(), delta.getValue());
+            }
+            return updated;
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package pl.sonmiike.financeapiservice.search;
+
+/**
+ * A distinct expense name of a user and how many of their expenses carry it.
+ */
+public record NameFrequency(String name, long count) {
+}
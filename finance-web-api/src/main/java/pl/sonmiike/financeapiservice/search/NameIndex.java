@@ -0,0 +1,159 @@
+package pl.sonmiike.financeapiservice.search;
+
+import java.util.*;
+
+/**
+ * Immutable prefix index over the distinct expense names of one user: parallel arrays sorted by lower-cased name,
+ * so the names starting with a prefix are one contiguous range found by binary search.
+ * Updates return a copy, readers never lock.
+ */
+final class NameIndex {
+
+    private final String[] keys;
+    private final String[] names;
+    private final long[] counts;
+
+    private NameIndex(String[] keys, String[] names, long[] counts) {
+        this.keys = keys;
+        this.names = names;
+        this.counts = counts;
+    }
+
+    static NameIndex of(Collection<NameFrequency> frequencies) {
+        List<NameFrequency> sorted = frequencies.stream()
+                .filter(frequency -> frequency.name() != null && frequency.count() > 0)
+                .sorted(Comparator.comparing((NameFrequency frequency) -> key(frequency.name()))
+                        .thenComparing(NameFrequency::name))
+                .toList();
+        String[] keys = new String[sorted.size()];
+        String[] names = new String[sorted.size()];
+        long[] counts = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            keys[i] = key(sorted.get(i).name());
+            names[i] = sorted.get(i).name();
+            counts[i] = sorted.get(i).count();
+        }
+        return new NameIndex(keys, names, counts);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * The {@code limit} most frequent names starting with {@code prefix}, ignoring case, alphabetical among equals.
+     */
+    List<String> suggest(String prefix, int limit) {
+        String keyPrefix = key(prefix);
+        // Min-heap of the best positions so far, the weakest on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, this::compareRank);
+        for (int i = lowerBound(keyPrefix); i < keys.length && keys[i].startsWith(keyPrefix); i++) {
+            best.add(i);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        String[] suggestions = new String[best.size()];
+        for (int i = suggestions.length - 1; i >= 0; i--) {
+            suggestions[i] = names[best.poll()];
+        }
+        return Arrays.asList(suggestions);
+    }
+
+    /**
+     * Copy with {@code delta} added to the count of {@code name}, inserting it or dropping it as its count crosses zero.
+     */
+    NameIndex withCount(String name, long delta) {
+        String key = key(name);
+        int position = find(key, name);
+        if (position >= 0) {
+            long count = counts[position] + delta;
+            if (count > 0) {
+                long[] updatedCounts = counts.clone();
+                updatedCounts[position] = count;
+                return new NameIndex(keys, names, updatedCounts);
+            }
+            return new NameIndex(remove(keys, position), remove(names, position), remove(counts, position));
+        }
+        if (delta <= 0) {
+            return this;
+        }
+        int insertion = -position - 1;
+        return new NameIndex(insert(keys, insertion, key), insert(names, insertion, name), insert(counts, insertion, delta));
+    }
+
+    // Higher count ranks higher, then the alphabetically first name
+    private int compareRank(int left, int right) {
+        int byCount = Long.compare(counts[left], counts[right]);
+        return byCount != 0 ? byCount : names[right].compareTo(names[left]);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Position of the name, or -(insertion point) - 1 as in Arrays.binarySearch
+    private int find(String key, String name) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = keys[middle].compareTo(key);
+            if (comparison == 0) {
+                comparison = names[middle].compareTo(name);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] insert(String[] array, int position, String value) {
+        String[] copy = new String[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, position);
+        copy[position] = value;
+        System.arraycopy(array, position, copy, position + 1, array.length - position);
+        return copy;
+    }
+
+    private static long[] insert(long[] array, int position, long value) {
+        long[] copy = new long[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, position);
+        copy[position] = value;
+        System.arraycopy(array, position, copy, position + 1, array.length - position);
+        return copy;
+    }
+
+    private static String[] remove(String[] array, int position) {
+        String[] copy = new String[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, position);
+        System.arraycopy(array, position + 1, copy, position, array.length - position - 1);
+        return copy;
+    }
+
+    private static long[] remove(long[] array, int position) {
+        long[] copy = new long[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, position);
+        System.arraycopy(array, position + 1, copy, position, array.length - position - 1);
+        return copy;
+    }
+}
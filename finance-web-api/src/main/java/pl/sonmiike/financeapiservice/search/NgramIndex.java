@@ -0,0 +1,86 @@
+package pl.sonmiike.financeapiservice.search;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Inverted trigram index over a set of records, the in-process counterpart of pg_trgm.
+ * <p>
+ * Text is split into trigrams the way pg_trgm does it: lower-cased, cut into words of letters and digits,
+ * each word padded with two spaces in front and one behind. A record matches when the share of the query's
+ * trigrams found in one of its fields reaches {@link #SIMILARITY_THRESHOLD}, which approximates
+ * {@code word_similarity} and its default {@code <%} threshold. Not thread-safe, build one per search.
+ */
+public class NgramIndex<T> {
+
+    static final double SIMILARITY_THRESHOLD = 0.6;
+
+    private final List<T> records;
+    private final int fieldCount;
+    // trigram -> postings, each posting is record * fieldCount + field
+    private final Map<String, List<Integer>> postings = new HashMap<>();
+
+    /**
+     * @param records in the order matches with equal score are returned in
+     * @param fields  searchable texts of a record, null texts are skipped
+     */
+    public NgramIndex(List<T> records, Function<T, List<String>> fields, int fieldCount) {
+        this.records = records;
+        this.fieldCount = fieldCount;
+        for (int record = 0; record < records.size(); record++) {
+            List<String> texts = fields.apply(records.get(record));
+            for (int field = 0; field < fieldCount; field++) {
+                int posting = record * fieldCount + field;
+                for (String trigram : trigrams(texts.get(field))) {
+                    postings.computeIfAbsent(trigram, key -> new ArrayList<>()).add(posting);
+                }
+            }
+        }
+    }
+
+    public List<T> search(String query, int limit) {
+        Set<String> queryTrigrams = trigrams(query);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+        int[] hits = new int[records.size() * fieldCount];
+        for (String trigram : queryTrigrams) {
+            for (int posting : postings.getOrDefault(trigram, List.of())) {
+                hits[posting]++;
+            }
+        }
+
+        double[] scores = new double[records.size()];
+        List<Integer> matches = new ArrayList<>();
+        for (int record = 0; record < records.size(); record++) {
+            int best = 0;
+            for (int field = 0; field < fieldCount; field++) {
+                best = Math.max(best, hits[record * fieldCount + field]);
+            }
+            scores[record] = (double) best / queryTrigrams.size();
+            if (scores[record] >= SIMILARITY_THRESHOLD) {
+                matches.add(record);
+            }
+        }
+        // Stable sort, records with the same score keep the order they were given in
+        matches.sort(Comparator.comparingDouble((Integer record) -> scores[record]).reversed());
+        return matches.stream().limit(limit).map(records::get).toList();
+    }
+
+    static Set<String> trigrams(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        Set<String> trigrams = new HashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
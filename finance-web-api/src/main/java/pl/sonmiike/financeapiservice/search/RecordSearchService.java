@@ -0,0 +1,81 @@
+package pl.sonmiike.financeapiservice.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.expenses.Expense;
+import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+import pl.sonmiike.financeapiservice.income.Income;
+import pl.sonmiike.financeapiservice.income.IncomeRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked keyword search over the names and descriptions of a user's expenses and incomes,
+ * best match first and the most recent record first among equal matches.
+ * <p>
+ * In NGRAM mode only the id, name and description of the user's {@code max-records} most recent records are read
+ * into the index, and just the returned matches are loaded as entities.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordSearchService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+
+    @Value("${custom.search.mode:TRIGRAM}")
+    private SearchMode searchMode = SearchMode.TRIGRAM;
+
+    @Value("${custom.search.ngram.max-records:10000}")
+    private int maxRecords = 10_000;
+
+    public List<Expense> searchExpenses(Long userId, String query, int limit) {
+        validate(query, limit);
+        if (searchMode == SearchMode.TRIGRAM) {
+            return expenseRepository.searchByUserUserId(userId, query, limit);
+        }
+        List<Long> ids = searchCandidates(expenseRepository.findSearchCandidatesByUserUserId(userId, Limit.of(maxRecords)), query, limit);
+        return inOrder(ids, expenseRepository.findAllById(ids), Expense::getId);
+    }
+
+    public List<Income> searchIncomes(Long userId, String query, int limit) {
+        validate(query, limit);
+        if (searchMode == SearchMode.TRIGRAM) {
+            return incomeRepository.searchByUserUserId(userId, query, limit);
+        }
+        List<Long> ids = searchCandidates(incomeRepository.findSearchCandidatesByUserUserId(userId, Limit.of(maxRecords)), query, limit);
+        return inOrder(ids, incomeRepository.findAllById(ids), Income::getId);
+    }
+
+    private static List<Long> searchCandidates(List<SearchCandidate> candidates, String query, int limit) {
+        return new NgramIndex<>(candidates, candidate -> Arrays.asList(candidate.name(), candidate.description()), 2)
+                .search(query, limit).stream()
+                .map(SearchCandidate::id)
+                .toList();
+    }
+
+    // findAllById does not keep the order of the ids, which is the ranking
+    private static <T> List<T> inOrder(List<Long> ids, List<T> records, Function<T, Long> id) {
+        Map<Long, T> byId = records.stream().collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static void validate(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package pl.sonmiike.financeapiservice.search;
+
+/**
+ * The searchable texts of an expense or income, read for the in-process search index instead of the whole record.
+ */
+public record SearchCandidate(Long id, String name, String description) {
+}
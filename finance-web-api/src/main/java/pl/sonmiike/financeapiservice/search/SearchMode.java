@@ -0,0 +1,11 @@
+package pl.sonmiike.financeapiservice.search;
+
+/**
+ * How {@link RecordSearchService} ranks expenses and incomes against a search query.
+ */
+public enum SearchMode {
+    /** pg_trgm word similarity in PostgreSQL, backed by the trigram indexes. */
+    TRIGRAM,
+    /** In-process trigram index over the user's records, for databases without pg_trgm. */
+    NGRAM
+}
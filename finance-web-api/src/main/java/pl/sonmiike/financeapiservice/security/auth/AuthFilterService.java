@@ -6,24 +6,44 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests carrying a bearer token. Rejected tokens leave the request unauthenticated,
+ * so protected routes answer 401, and are counted by {@link JwtService} per rejection reason.
+ */
 @Service
 @RequiredArgsConstructor
 public class AuthFilterService extends OncePerRequestFilter {
 
+    // Matches the permitAll rule in SecurityConfig, a token would not be used there
+    private static final String PUBLIC_PATH = "/api/v1/auth/";
+
     private final JwtService jwtService;
 
     private final UserDetailsService userDetailsService;
 
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${custom.auth.mode:DATABASE}")
+    private AuthenticationMode authenticationMode = AuthenticationMode.DATABASE;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith(PUBLIC_PATH);
+    }
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
@@ -37,11 +57,24 @@ public class AuthFilterService extends OncePerRequestFilter {
         }
 
         String token = authorizationHeader.substring(7);
-        String username = JwtService.extractUsername(token);
+        TokenVerification verification = jwtService.tryVerify(token);
+        if (!verification.isValid()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(token, userDetails)) {
+        VerifiedToken verifiedToken = verification.token();
+        if (tokenRevocationService.isRevoked(verifiedToken)) {
+            jwtService.recordRejection(TokenVerification.Status.REVOKED);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(verifiedToken);
+            if (userDetails == null) {
+                jwtService.recordRejection(TokenVerification.Status.UNKNOWN_USER);
+            } else if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -53,4 +86,17 @@ public class AuthFilterService extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(VerifiedToken verifiedToken) {
+        // Tokens issued before userId was added to the claims still go through the database
+        if (authenticationMode == AuthenticationMode.TOKEN && verifiedToken.userId() != null) {
+            return AuthenticatedUser.fromToken(verifiedToken);
+        }
+        try {
+            return userDetailsService.loadUserByUsername(verifiedToken.subject());
+        } catch (UsernameNotFoundException e) {
+            // Correctly signed token of a deleted account, rare enough that the exception does not matter
+            return null;
+        }
+    }
 }
@@ -1,13 +1,14 @@
 package pl.sonmiike.financeapiservice.security.auth;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import pl.sonmiike.financeapiservice.exceptions.custom.EmailAlreadyTakenException;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 import pl.sonmiike.financeapiservice.user.UserRole;
@@ -22,12 +23,9 @@ public class AuthService {
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthResponse register(RegisterRequest registerRequest) {
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            throw new EmailAlreadyTakenException("Email is already taken");
-        }
-
         var user = UserEntity
                 .builder()
                 .name(registerRequest.getName())
@@ -37,10 +35,16 @@ public class AuthService {
                 .role(UserRole.ROLE_USER)
                 .build();
 
-        UserEntity savedUser = userRepository.save(user);
+        // The unique constraints on email and username reject duplicates, no need for a lookup beforehand
+        UserEntity savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailAlreadyTakenException("Email or username is already taken");
+        }
 
         var accessToken = jwtService.generateToken(savedUser);
-        var refreshToken = refreshTokenService.createRefreshToken(savedUser.getUsername());
+        var refreshToken = refreshTokenService.createRefreshToken(savedUser.getUserId());
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
@@ -50,15 +54,16 @@ public class AuthService {
 
 
     public AuthResponse login(LoginRequest loginRequest) {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getEmail(),
-                            loginRequest.getPassword()
-                    )
-            );
-        var user = userRepository.findByEmail(loginRequest.getEmail()).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(
+                        loginRequest.getEmail(),
+                        loginRequest.getPassword()
+                )
+        );
+        // The principal loaded by the authentication provider already has everything the tokens need
+        var user = (AuthenticatedUser) authentication.getPrincipal();
         var accessToken = jwtService.generateToken(user);
-        var refreshToken = refreshTokenService.createRefreshToken(user.getUsername());
+        var refreshToken = refreshTokenService.createRefreshToken(user.getUserId());
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
@@ -68,7 +73,28 @@ public class AuthService {
 
 
 
+    /**
+     * Revokes the presented access token and deletes the user's refresh token, so neither can be used again.
+     * Does nothing for a missing or already invalid token.
+     */
+    public void logout(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return;
+        }
+        TokenVerification verification = jwtService.tryVerify(authorizationHeader.substring(7));
+        if (!verification.isValid()) {
+            return;
+        }
+        tokenRevocationService.revoke(verification.token());
+        if (verification.token().userId() != null) {
+            refreshTokenService.deleteRefreshToken(verification.token().userId());
+        }
+    }
+
     public Long getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getUserId();
+        }
         UserEntity user = (UserEntity) authentication.getPrincipal();
 //        String email = authentication.getName();
 //        UserEntity user = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User not found"));
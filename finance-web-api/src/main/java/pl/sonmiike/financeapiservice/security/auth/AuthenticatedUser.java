@@ -0,0 +1,75 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal holding only what controllers need, so that authentication
+ * does not have to carry the whole {@link pl.sonmiike.financeapiservice.user.UserEntity} graph.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long userId;
+    private final String email;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    public static AuthenticatedUser fromUser(UserEntity user) {
+        return new AuthenticatedUser(
+                user.getUserId(),
+                user.getEmail(),
+                user.getPassword(),
+                List.copyOf(user.getAuthorities()));
+    }
+
+    public static AuthenticatedUser fromToken(VerifiedToken token) {
+        return new AuthenticatedUser(
+                token.userId(),
+                token.subject(),
+                null,
+                token.roles().stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList());
+    }
+
+    public AuthenticatedUser withPassword(String password) {
+        return new AuthenticatedUser(userId, email, password, authorities);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,11 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+/**
+ * Where {@link AuthFilterService} gets the principal of an authenticated request from.
+ */
+public enum AuthenticationMode {
+    /** Load the user from the database on every request. */
+    DATABASE,
+    /** Build the principal from the verified token claims, without touching the database. */
+    TOKEN
+}
@@ -0,0 +1,75 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * {@link UserDetailsService} keeping recently used principals in a bounded, TTL-evicting cache keyed by email.
+ * Only the lean {@link AuthenticatedUser} is cached, never the entity graph.
+ * <p>
+ * Anything that deletes a user or changes their role must call {@link #evictUser(Long)},
+ * otherwise the old principal stays usable until its entry expires.
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics with {@code cache=userDetails}.
+ */
+public class CachedUserDetailsService implements UserDetailsService {
+
+    private final Function<String, AuthenticatedUser> loader;
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public CachedUserDetailsService(Function<String, AuthenticatedUser> loader,
+                                    boolean enabled,
+                                    long maximumSize,
+                                    Duration timeToLive,
+                                    MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.cache = enabled ? Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build() : null;
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+        }
+    }
+
+    @Override
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cache == null) {
+            return loader.apply(username);
+        }
+        // The loader throws for unknown users, so misses for them are never cached
+        return cache.get(username, loader);
+    }
+
+    /**
+     * Drops the cached principal of the user now and again once the surrounding transaction completes,
+     * so that a request racing with the change cannot cache the old row for a whole TTL.
+     */
+    public void evictUser(Long userId) {
+        if (cache == null) {
+            return;
+        }
+        evictNow(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(userId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Long userId) {
+        cache.asMap().values().removeIf(user -> userId.equals(user.getUserId()));
+    }
+}
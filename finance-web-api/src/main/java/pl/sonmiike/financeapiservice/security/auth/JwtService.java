@@ -1,56 +1,136 @@
 package pl.sonmiike.financeapiservice.security.auth;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.function.Function;
+import java.util.*;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
     @Value("${custom.jwt.secretKey}")
     private String SECRET_KEY;
 
-    private static String STATIC_SECRET_KEY;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MeterRegistry meterRegistry;
+
+    // Decoded once at startup, the parser is immutable and safe to share between request threads
+    private Key signingKey;
+    private JwtParser parser;
+    private final Map<TokenVerification.Status, Counter> rejections = new EnumMap<>(TokenVerification.Status.class);
 
     @PostConstruct
     public void init() {
-        STATIC_SECRET_KEY = SECRET_KEY;
+        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts
+                .parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        for (TokenVerification.Status status : TokenVerification.Status.values()) {
+            if (status != TokenVerification.Status.VALID) {
+                rejections.put(status, Counter.builder("auth.token.rejected")
+                        .tag("reason", status.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+        }
     }
 
-    public static String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Verifies the token with the shared JJWT parser, or returns its claims from {@link VerifiedTokenCache}.
+     * JJWT's exceptions are mapped to a {@link TokenVerification.Status} here, so callers branch on the result instead
+     * of catching; tokens without the shape of a JWS are rejected before reaching the parser.
+     * Rejections are counted in {@code auth.token.rejected} tagged with the reason.
+     */
+    public TokenVerification tryVerify(String token) {
+        TokenVerification verification = verifiedTokenCache.getOrVerify(token, this::decodeAndVerify);
+        if (!verification.isValid()) {
+            recordRejection(verification.status());
+        }
+        return verification;
     }
 
-    public static <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Counts a rejection decided outside of token verification, such as a token of a user that no longer exists.
+     */
+    public void recordRejection(TokenVerification.Status status) {
+        rejections.get(status).increment();
+    }
 
+    private TokenVerification decodeAndVerify(String token) {
+        if (!hasJwsShape(token)) {
+            return TokenVerification.rejected(TokenVerification.Status.MALFORMED);
+        }
+        try {
+            Jws<Claims> jws = parser.parseClaimsJws(token);
+            Claims claims = jws.getBody();
+            // The parser accepts any HMAC algorithm the key is long enough for, this service only issues HS256
+            if (!SignatureAlgorithm.HS256.getValue().equals(jws.getHeader().getAlgorithm())
+                    || claims.getSubject() == null || claims.getIssuedAt() == null || claims.getExpiration() == null) {
+                return TokenVerification.rejected(TokenVerification.Status.MALFORMED);
+            }
+            Object userId = claims.get("userId");
+            return TokenVerification.valid(new VerifiedToken(
+                    claims.getSubject(),
+                    userId instanceof Number number ? number.longValue() : null,
+                    extractRoles(claims.get("role")),
+                    claims.getIssuedAt().toInstant(),
+                    claims.getExpiration().toInstant(),
+                    claims.getId()));
+        } catch (ExpiredJwtException e) {
+            return TokenVerification.rejected(TokenVerification.Status.EXPIRED);
+        } catch (SignatureException e) {
+            return TokenVerification.rejected(TokenVerification.Status.BAD_SIGNATURE);
+        } catch (JwtException | IllegalArgumentException e) {
+            return TokenVerification.rejected(TokenVerification.Status.MALFORMED);
+        }
     }
 
-    private static Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Three non-empty, unpadded segments, so random strings and unsigned tokens are turned away without an exception.
+    // The parser would accept a padded copy of a signature, which is not a compact JWS and would be cached separately
+    private static boolean hasJwsShape(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        return headerEnd > 0
+                && payloadEnd > headerEnd + 1
+                && payloadEnd < token.length() - 1
+                && token.indexOf('.', payloadEnd + 1) < 0
+                && token.indexOf('=') < 0;
     }
 
-    private static Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(STATIC_SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // The role claim is the serialized authority collection, e.g. [{"authority": "ROLE_USER"}]
+    private static List<String> extractRoles(Object authorities) {
+        if (!(authorities instanceof Collection<?> collection)) {
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(collection.size());
+        for (Object authority : collection) {
+            if (authority instanceof Map<?, ?> map && map.get("authority") instanceof String role) {
+                roles.add(role);
+            } else if (authority instanceof String role) {
+                roles.add(role);
+            }
+        }
+        return List.copyOf(roles);
     }
 
     public String generateToken(UserEntity userDetails) {
@@ -58,29 +138,33 @@ public class JwtService {
     }
 
     public String generateToken(HashMap<String, Object> extractClaims, UserEntity userDetails) {
+        return buildToken(extractClaims, userDetails.getUsername(), userDetails.getUserId(), userDetails.getAuthorities());
+    }
+
+    public String generateToken(AuthenticatedUser user) {
+        return buildToken(new HashMap<>(), user.getUsername(), user.getUserId(), user.getAuthorities());
+    }
+
+    private String buildToken(HashMap<String, Object> extractClaims,
+                              String subject,
+                              Long userId,
+                              Collection<? extends GrantedAuthority> authorities) {
         return Jwts
                 .builder()
                 .setClaims(extractClaims)
-                .setSubject(userDetails.getUsername())
-                .claim("role", userDetails.getAuthorities())
+                .setId(UUID.randomUUID().toString())
+                .setSubject(subject)
+                .claim("userId", userId)
+                .claim("role", authorities)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 2000 * 60 * 24 * 60 * 7))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
 
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public String setSecretKey(String secretKey) {
@@ -0,0 +1,42 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+/**
+ * Outcome of {@link JwtService#tryVerify(String)}: either the verified claims or the reason the token was rejected.
+ * Rejections are shared constants, so a storm of bad tokens does not allocate results or build stack traces.
+ */
+public record TokenVerification(Status status, VerifiedToken token) {
+
+    public enum Status {
+        VALID,
+        MALFORMED,
+        EXPIRED,
+        BAD_SIGNATURE,
+        UNKNOWN_USER,
+        REVOKED
+    }
+
+    private static final TokenVerification MALFORMED = new TokenVerification(Status.MALFORMED, null);
+    private static final TokenVerification EXPIRED = new TokenVerification(Status.EXPIRED, null);
+    private static final TokenVerification BAD_SIGNATURE = new TokenVerification(Status.BAD_SIGNATURE, null);
+    private static final TokenVerification UNKNOWN_USER = new TokenVerification(Status.UNKNOWN_USER, null);
+    private static final TokenVerification REVOKED = new TokenVerification(Status.REVOKED, null);
+
+    public static TokenVerification valid(VerifiedToken token) {
+        return new TokenVerification(Status.VALID, token);
+    }
+
+    public static TokenVerification rejected(Status status) {
+        return switch (status) {
+            case MALFORMED -> MALFORMED;
+            case EXPIRED -> EXPIRED;
+            case BAD_SIGNATURE -> BAD_SIGNATURE;
+            case UNKNOWN_USER -> UNKNOWN_USER;
+            case REVOKED -> REVOKED;
+            case VALID -> throw new IllegalArgumentException("A valid verification needs its token");
+        };
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+}
@@ -0,0 +1,23 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of an access token whose signature has already been checked.
+ * Produced once per request by {@link JwtService#tryVerify(String)}.
+ * {@code userId} and {@code tokenId} (the {@code jti} claim) are {@code null} for tokens issued before they were added to the claims.
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt,
+        String tokenId
+) {
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,103 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Optional cache of already verified access tokens, so clients that resend the same token
+ * skip the HMAC check and claims parsing.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the raw token (the token itself is never kept),
+ * bounded by {@code custom.jwt.token-cache.max-size} and expire together with the token's own {@code exp}.
+ * Statistics are published as the {@code cache.*} metrics with {@code cache=verifiedTokens}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Cache<TokenDigest, TokenVerification> cache;
+
+    public VerifiedTokenCache(@Value("${custom.jwt.token-cache.enabled:false}") boolean enabled,
+                              @Value("${custom.jwt.token-cache.max-size:50000}") long maximumSize,
+                              MeterRegistry meterRegistry) {
+        this.cache = enabled ? Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build() : null;
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+        }
+    }
+
+    public static VerifiedTokenCache disabled() {
+        return new VerifiedTokenCache(false, 0, null);
+    }
+
+    /**
+     * Returns the cached verification of the token or verifies it with {@code verifier} and caches the result.
+     * Only valid verifications are cached, and a cached token past its {@code exp} is reported as expired.
+     */
+    public TokenVerification getOrVerify(String token, Function<String, TokenVerification> verifier) {
+        if (cache == null) {
+            return verifier.apply(token);
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        TokenVerification cached = cache.getIfPresent(digest);
+        if (cached != null) {
+            return cached.token().isExpired() ? TokenVerification.rejected(TokenVerification.Status.EXPIRED) : cached;
+        }
+        TokenVerification verification = verifier.apply(token);
+        if (verification.isValid()) {
+            cache.put(digest, verification);
+        }
+        return verification;
+    }
+
+    record TokenDigest(long first, long second, long third, long fourth) {
+
+        static TokenDigest of(String token) {
+            MessageDigest messageDigest = SHA_256.get();
+            ByteBuffer digest = ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    private static class UntilTokenExpires implements Expiry<TokenDigest, TokenVerification> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, TokenVerification verification, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), verification.token().expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, TokenVerification verification, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, TokenVerification verification, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,29 +1,64 @@
 package pl.sonmiike.financeapiservice.security.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import pl.sonmiike.financeapiservice.security.auth.AuthenticatedUser;
+import pl.sonmiike.financeapiservice.security.auth.CachedUserDetailsService;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 
+import java.time.Duration;
+
 
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${custom.auth.user-cache.enabled:true}")
+    private boolean userCacheEnabled;
+
+    @Value("${custom.auth.user-cache.max-size:10000}")
+    private long userCacheMaxSize;
+
+    @Value("${custom.auth.user-cache.ttl:5m}")
+    private Duration userCacheTtl;
+
+    @Value("${custom.auth.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${custom.auth.password.threads:2}")
+    private int passwordHashingThreads;
+
+    @Value("${custom.auth.password.queue-capacity:50}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${custom.auth.password.max-wait:2s}")
+    private Duration passwordHashingMaxWait;
 
 
     @Bean
-    public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    public CachedUserDetailsService userDetailsService() {
+        return new CachedUserDetailsService(
+                username -> userRepository.findByEmail(username)
+                        .map(AuthenticatedUser::fromUser)
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found")),
+                userCacheEnabled,
+                userCacheMaxSize,
+                userCacheTtl,
+                meterRegistry);
     }
 
     @Bean
@@ -31,9 +66,21 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService());
         authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authenticationProvider;
     }
 
+    // Called after a successful login whose stored hash has a lower cost than custom.auth.password.bcrypt-strength
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+            AuthenticatedUser principal = (AuthenticatedUser) user;
+            userDetailsService().evictUser(principal.getUserId());
+            return principal.withPassword(newPassword);
+        };
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
@@ -41,6 +88,11 @@ public class ApplicationConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(bcryptStrength),
+                passwordHashingThreads,
+                passwordHashingQueueCapacity,
+                passwordHashingMaxWait,
+                meterRegistry);
     }
 }
@@ -1,6 +1,8 @@
 package pl.sonmiike.financeapiservice.security.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -17,7 +19,10 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import pl.sonmiike.financeapiservice.security.auth.AuthFilterService;
+import pl.sonmiike.financeapiservice.security.ratelimit.RateLimitFilter;
+import pl.sonmiike.financeapiservice.security.ratelimit.TokenBucketRateLimiter;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -29,6 +34,28 @@ public class SecurityConfig {
     private final AuthFilterService authFilterService;
     private final AuthenticationProvider authenticationProvider;
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${custom.rate-limit.auth.enabled:true}")
+    private boolean authRateLimitEnabled;
+
+    @Value("${custom.rate-limit.auth.capacity:10}")
+    private long authRateLimitCapacity;
+
+    @Value("${custom.rate-limit.auth.refill-per-second:0.5}")
+    private double authRateLimitRefillPerSecond;
+
+    @Value("${custom.rate-limit.user.enabled:true}")
+    private boolean userRateLimitEnabled;
+
+    @Value("${custom.rate-limit.user.capacity:100}")
+    private long userRateLimitCapacity;
+
+    @Value("${custom.rate-limit.user.refill-per-second:20}")
+    private double userRateLimitRefillPerSecond;
+
+    @Value("${custom.rate-limit.idle-sweep-interval:1m}")
+    private Duration rateLimitSweepInterval;
 
 
     @Bean
@@ -50,6 +77,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/admin/users/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest()
                         .authenticated())
                 .exceptionHandling(exception -> exception.accessDeniedHandler(customAccessDeniedHandler)
@@ -57,10 +85,23 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(authFilterService, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authFilterService, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter(), AuthFilterService.class);
 
 
         return http.build();
     }
 
+    // Not a bean, so that the servlet container does not register it a second time outside the security chain
+    private RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(
+                authRateLimitEnabled
+                        ? new TokenBucketRateLimiter(authRateLimitCapacity, authRateLimitRefillPerSecond, rateLimitSweepInterval)
+                        : null,
+                userRateLimitEnabled
+                        ? new TokenBucketRateLimiter(userRateLimitCapacity, userRateLimitRefillPerSecond, rateLimitSweepInterval)
+                        : null,
+                meterRegistry);
+    }
+
 }
\ No newline at end of file
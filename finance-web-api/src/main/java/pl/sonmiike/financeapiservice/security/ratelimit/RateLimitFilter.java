@@ -0,0 +1,89 @@
+package pl.sonmiike.financeapiservice.security.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pl.sonmiike.financeapiservice.security.auth.AuthenticatedUser;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits {@code /api/v1/auth/**} per client address, to keep password hashing from being flooded,
+ * and {@code /me/**} per authenticated user id. Must run after {@link pl.sonmiike.financeapiservice.security.auth.AuthFilterService}.
+ * Rejected requests get 429 with {@code Retry-After} in seconds. A {@code null} limiter disables its route group.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PATH = "/api/v1/auth/";
+    private static final String USER_PATH = "/me/";
+
+    private final TokenBucketRateLimiter authLimiter;
+    private final TokenBucketRateLimiter userLimiter;
+    private final Counter authRejected;
+    private final Counter userRejected;
+
+    public RateLimitFilter(TokenBucketRateLimiter authLimiter,
+                           TokenBucketRateLimiter userLimiter,
+                           MeterRegistry meterRegistry) {
+        this.authLimiter = authLimiter;
+        this.userLimiter = userLimiter;
+        this.authRejected = Counter.builder("rate_limit.rejected").tag("group", "auth").register(meterRegistry);
+        this.userRejected = Counter.builder("rate_limit.rejected").tag("group", "user").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String path = request.getRequestURI();
+        long waitNanos = 0;
+        if (authLimiter != null && path.startsWith(AUTH_PATH)) {
+            waitNanos = authLimiter.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                authRejected.increment();
+            }
+        } else if (userLimiter != null && path.startsWith(USER_PATH)) {
+            Long userId = currentUserId();
+            // Unauthenticated requests are rejected by the authorization rules anyway
+            if (userId != null) {
+                waitNanos = userLimiter.tryAcquire(userId);
+                if (waitNanos > 0) {
+                    userRejected.increment();
+                }
+            }
+        }
+
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getUserId();
+        }
+        if (authentication.getPrincipal() instanceof UserEntity user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package pl.sonmiike.financeapiservice.security.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket implemented as a generic cell rate algorithm: instead of a token count and a refill
+ * timestamp each key keeps a single "theoretical arrival time", updated with one CAS and no locks.
+ * A request is allowed while that time is at most {@code capacity} emission intervals ahead of now.
+ * <p>
+ * A key whose arrival time is in the past has a full bucket and carries no state worth keeping,
+ * so such entries are dropped by a sweep that runs at most once per {@code sweepInterval}, piggybacked on a request.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<Object, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final long sweepIntervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSweep;
+
+    public TokenBucketRateLimiter(long capacity, double refillPerSecond, Duration sweepInterval) {
+        this(capacity, refillPerSecond, sweepInterval, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long capacity, double refillPerSecond, Duration sweepInterval, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit needs a capacity of at least 1 and a positive refill rate");
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+        this.nanoClock = nanoClock;
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong() + sweepIntervalNanos);
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return {@code 0} when the request is allowed, otherwise the nanoseconds until the next token is available
+     */
+    public long tryAcquire(Object key) {
+        long now = nanoClock.getAsLong();
+        sweepIfDue(now);
+
+        AtomicLong arrivalTime = arrivalTimes.get(key);
+        if (arrivalTime == null) {
+            arrivalTime = arrivalTimes.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrivalTime.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstToleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return arrivalTimes.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + sweepIntervalNanos)) {
+            return;
+        }
+        // A request racing with the removal may lose the token it just took, which only makes the limit more lenient
+        arrivalTimes.values().removeIf(arrivalTime -> arrivalTime.get() - now <= 0);
+    }
+}
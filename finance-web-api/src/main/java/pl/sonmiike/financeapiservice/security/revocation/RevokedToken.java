@@ -0,0 +1,29 @@
+package pl.sonmiike.financeapiservice.security.revocation;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class RevokedToken {
+
+    // The jti claim of the revoked access token
+    @Id
+    @Column(length = 36)
+    private String tokenId;
+
+    private Long userId;
+
+    // Copied from the token, after this the row is useless since the token is rejected as expired anyway
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
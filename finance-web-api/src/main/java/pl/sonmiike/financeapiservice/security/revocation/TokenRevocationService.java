@@ -0,0 +1,116 @@
+package pl.sonmiike.financeapiservice.security.revocation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.sonmiike.financeapiservice.security.auth.VerifiedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Denylist of revoked access tokens, keyed by their {@code jti} claim.
+ * <p>
+ * Every request asks {@link #isRevoked(VerifiedToken)}, which answers from an in-memory Bloom filter
+ * and only queries the {@code revoked_token} table on a filter hit. The filter is built from the table at startup,
+ * picks up revocations made by other instances every {@code custom.jwt.revocation.sync-interval},
+ * and is rebuilt and swapped after expired rows are purged.
+ * <p>
+ * Publishes {@code auth.token.revocation.lookups} tagged {@code result=revoked|false_positive}.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveProbability;
+    private final Duration syncInterval;
+    private final Counter revokedLookups;
+    private final Counter falsePositiveLookups;
+
+    private volatile RevocationBloomFilter bloomFilter;
+    // Set while a rebuild loads the table, so revocations made meanwhile also land in the new filter
+    private volatile RevocationBloomFilter rebuildingFilter;
+    private volatile Instant lastSync;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${custom.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+                                  @Value("${custom.jwt.revocation.false-positive-probability:0.001}") double falsePositiveProbability,
+                                  @Value("${custom.jwt.revocation.sync-interval:PT10S}") Duration syncInterval,
+                                  MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.syncInterval = syncInterval;
+        this.revokedLookups = Counter.builder("auth.token.revocation.lookups").tag("result", "revoked").register(meterRegistry);
+        this.falsePositiveLookups = Counter.builder("auth.token.revocation.lookups").tag("result", "false_positive").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Instant now = Instant.now();
+        RevocationBloomFilter newFilter = new RevocationBloomFilter(expectedRevocations, falsePositiveProbability);
+        rebuildingFilter = newFilter;
+        List<String> activeTokenIds = revokedTokenRepository.findActiveTokenIds(now);
+        if (activeTokenIds.size() > expectedRevocations) {
+            // Oversized denylist, size the filter for it instead of letting the false positive rate climb
+            newFilter = new RevocationBloomFilter(activeTokenIds.size() * 2L, falsePositiveProbability);
+            rebuildingFilter = newFilter;
+            activeTokenIds = revokedTokenRepository.findActiveTokenIds(now);
+        }
+        activeTokenIds.forEach(newFilter::put);
+        bloomFilter = newFilter;
+        rebuildingFilter = null;
+        lastSync = now;
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        // Tokens issued before the jti claim was added cannot be revoked individually
+        if (token.tokenId() == null || !bloomFilter.mightContain(token.tokenId())) {
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsById(token.tokenId());
+        (revoked ? revokedLookups : falsePositiveLookups).increment();
+        return revoked;
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.tokenId() == null) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(token.tokenId())
+                .userId(token.userId())
+                .expiresAt(token.expiresAt())
+                .revokedAt(Instant.now())
+                .build());
+        bloomFilter.put(token.tokenId());
+        RevocationBloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(token.tokenId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${custom.jwt.revocation.sync-interval:PT10S}",
+            initialDelayString = "${custom.jwt.revocation.sync-interval:PT10S}")
+    public void syncRecentRevocations() {
+        Instant now = Instant.now();
+        // Overlap the previous window, so rows committed late by another instance are not skipped
+        List<String> recentTokenIds = revokedTokenRepository.findTokenIdsRevokedSince(lastSync.minus(syncInterval));
+        RevocationBloomFilter filter = bloomFilter;
+        recentTokenIds.forEach(filter::put);
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${custom.jwt.revocation.purge-interval:PT1H}",
+            initialDelayString = "${custom.jwt.revocation.purge-interval:PT1H}")
+    public void purgeExpired() {
+        if (revokedTokenRepository.deleteExpired(Instant.now()) > 0) {
+            rebuild();
+        }
+    }
+}
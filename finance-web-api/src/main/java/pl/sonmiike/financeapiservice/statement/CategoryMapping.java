@@ -0,0 +1,44 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import pl.sonmiike.financeapiservice.category.Category;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Assigns imported expenses to the user's categories: by the category name in the row, ignoring case,
+ * otherwise to the default category of the import. Only categories assigned to the user are used.
+ */
+class CategoryMapping {
+
+    private final Map<String, Long> idsByName = new HashMap<>();
+    private final Long defaultCategoryId;
+
+    CategoryMapping(List<Category> userCategories, Long defaultCategoryId) {
+        for (Category category : userCategories) {
+            if (category.getName() != null) {
+                idsByName.putIfAbsent(category.getName().strip().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+        if (defaultCategoryId != null && !idsByName.containsValue(defaultCategoryId)) {
+            throw new InvalidRequestException("Category " + defaultCategoryId + " is not assigned to the user");
+        }
+        this.defaultCategoryId = defaultCategoryId;
+    }
+
+    /**
+     * @return the category id, null when the row names no known category and the import has no default
+     */
+    Long categoryOf(StatementRow row) {
+        if (row.category() != null) {
+            Long id = idsByName.get(row.category().toLowerCase(Locale.ROOT));
+            if (id != null) {
+                return id;
+            }
+        }
+        return defaultCategoryId;
+    }
+}
@@ -0,0 +1,59 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * RFC 4180 CSV with a header row, in the columns {@link CsvStatementParser} reads.
+ */
+class CsvExportWriter implements ExportWriter {
+
+    private final Writer writer;
+    private final boolean withCategory;
+
+    CsvExportWriter(OutputStream output, boolean withCategory) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.withCategory = withCategory;
+        writer.write(withCategory ? "date,amount,name,description,category\r\n" : "date,amount,name,description\r\n");
+    }
+
+    @Override
+    public void write(LocalDate date, BigDecimal amount, String name, String description, String category) throws IOException {
+        writer.write(date == null ? "" : date.toString());
+        writer.write(',');
+        writer.write(amount == null ? "" : amount.toPlainString());
+        writer.write(',');
+        field(name);
+        writer.write(',');
+        field(description);
+        if (withCategory) {
+            writer.write(',');
+            field(category);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
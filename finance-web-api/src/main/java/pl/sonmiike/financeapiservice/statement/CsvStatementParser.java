@@ -0,0 +1,180 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row naming the columns, in any order and case:
+ * {@code date} (yyyy-MM-dd), {@code amount} (dot as decimal separator), {@code name} are required,
+ * {@code description} and {@code category} are optional, other columns are ignored.
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+class CsvStatementParser implements StatementParser {
+
+    // Longer fields cannot be stored anyway, the bound keeps an unterminated quote from reading the rest of the file into memory
+    static final int MAX_FIELD_LENGTH = 4096;
+
+    private static final int END_OF_FILE = -1;
+
+    @Override
+    public void parse(Reader reader, StatementRowHandler handler) throws IOException {
+        RecordReader records = new RecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            throw new StatementFormatException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("date", "amount", "name")) {
+            if (!columns.containsKey(required)) {
+                throw new StatementFormatException("The header has no '" + required + "' column");
+            }
+        }
+
+        List<String> fields;
+        while ((fields = records.next()) != null) {
+            long line = records.startLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                handler.row(line, new StatementRow(
+                        LocalDate.parse(required(fields, columns, "date")),
+                        required(fields, columns, "name"),
+                        optional(fields, columns, "description"),
+                        new BigDecimal(required(fields, columns, "amount")),
+                        optional(fields, columns, "category")));
+            } catch (DateTimeParseException e) {
+                handler.rejected(line, "Invalid date '" + e.getParsedString() + "', expected yyyy-MM-dd");
+            } catch (NumberFormatException e) {
+                handler.rejected(line, "Invalid amount '" + optional(fields, columns, "amount") + "'");
+            } catch (IllegalArgumentException e) {
+                handler.rejected(line, e.getMessage());
+            }
+        }
+    }
+
+    private static String required(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = optional(fields, columns, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value;
+    }
+
+    private static String optional(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits the input into records of fields, one character at a time.
+     */
+    private static final class RecordReader {
+
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+        private long startLine;
+        private int pending = -2;
+
+        RecordReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        long startLine() {
+            return startLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == END_OF_FILE) {
+                return null;
+            }
+            startLine = line;
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean afterQuote = false;
+            while (true) {
+                if (quoted) {
+                    if (c == END_OF_FILE) {
+                        throw new StatementFormatException("Line " + startLine + ": unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            append('"');
+                        } else {
+                            quoted = false;
+                            afterQuote = true;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        append((char) c);
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    afterQuote = false;
+                } else if (c == '\n' || c == END_OF_FILE) {
+                    fields.add(field.toString());
+                    if (c == '\n') {
+                        line++;
+                    }
+                    return fields;
+                } else if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                    c = '\n';
+                    continue;
+                } else if (c == '"' && field.isEmpty() && !afterQuote) {
+                    quoted = true;
+                } else {
+                    append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private void append(char c) {
+            if (field.length() == MAX_FIELD_LENGTH) {
+                throw new StatementFormatException("Line " + startLine + ": field longer than " + MAX_FIELD_LENGTH + " characters");
+            }
+            field.append(c);
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private void unread(int c) {
+            pending = c;
+        }
+    }
+}
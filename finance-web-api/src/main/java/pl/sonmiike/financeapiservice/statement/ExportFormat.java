@@ -0,0 +1,41 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Formats of the expense and income exports, written row by row to the response stream.
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        ExportWriter open(OutputStream output, boolean withCategory) throws IOException {
+            return new CsvExportWriter(output, withCategory);
+        }
+    },
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        ExportWriter open(OutputStream output, boolean withCategory) throws IOException {
+            return new NdjsonExportWriter(output, withCategory);
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    abstract ExportWriter open(OutputStream output, boolean withCategory) throws IOException;
+}
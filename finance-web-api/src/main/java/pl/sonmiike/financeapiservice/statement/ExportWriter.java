@@ -0,0 +1,21 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Writes exported rows through a small buffer, nothing is kept once a row is written.
+ */
+interface ExportWriter {
+
+    /**
+     * @param category name of the expense category, ignored for exports without one
+     */
+    void write(LocalDate date, BigDecimal amount, String name, String description, String category) throws IOException;
+
+    /**
+     * Flushes the buffered rows without closing the stream, which belongs to the caller.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,40 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a statement import. Rows are committed chunk by chunk, so when {@code failure} is set
+ * the rows counted as imported are stored and the ones after them are not.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportReportDTO {
+
+    public static final int MAX_ERRORS = 100;
+
+    private StatementFormat format;
+    private long rowsRead;
+    private long expensesImported;
+    private long incomesImported;
+    private long rowsRejected;
+    private int chunksCommitted;
+    // The first MAX_ERRORS rejections, rowsRejected counts all of them
+    private List<ImportErrorDTO> errors = new ArrayList<>();
+    private String failure;
+
+    public record ImportErrorDTO(long line, String message) {
+    }
+
+    void reject(long line, String message) {
+        rowsRejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ImportErrorDTO(line, message));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One JSON object per line, generated straight into the stream without building a tree per row.
+ */
+class NdjsonExportWriter implements ExportWriter {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JsonGenerator generator;
+    private final boolean withCategory;
+    private boolean empty = true;
+
+    NdjsonExportWriter(OutputStream output, boolean withCategory) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8);
+        // Root values are separated by a newline instead of a space
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        this.withCategory = withCategory;
+    }
+
+    @Override
+    public void write(LocalDate date, BigDecimal amount, String name, String description, String category) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("date", date == null ? null : date.toString());
+        generator.writeFieldName("amount");
+        generator.writeNumber(amount);
+        generator.writeStringField("name", name);
+        generator.writeStringField("description", description);
+        if (withCategory) {
+            generator.writeStringField("category", category);
+        }
+        generator.writeEndObject();
+        empty = false;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!empty) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+}
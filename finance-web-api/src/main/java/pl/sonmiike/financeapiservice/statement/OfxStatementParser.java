@@ -0,0 +1,133 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * OFX bank statements, both SGML (1.x, elements without closing tags) and XML (2.x).
+ * Each {@code STMTTRN} aggregate becomes a row from {@code DTPOSTED}, {@code TRNAMT}, {@code NAME} (or {@code PAYEE})
+ * and {@code MEMO}; headers and every other element are skipped. OFX has no categories, rows get none.
+ */
+class OfxStatementParser implements StatementParser {
+
+    private static final String TRANSACTION = "STMTTRN";
+    private static final DateTimeFormatter POSTED_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Override
+    public void parse(Reader reader, StatementRowHandler handler) throws IOException {
+        TagReader tags = new TagReader(reader);
+        Map<String, String> transaction = null;
+        long ordinal = 0;
+        String tag;
+        while ((tag = tags.nextTag()) != null) {
+            if (tag.equals(TRANSACTION)) {
+                transaction = new HashMap<>();
+                ordinal++;
+            } else if (tag.equals("/" + TRANSACTION)) {
+                if (transaction != null) {
+                    emit(ordinal, transaction, handler);
+                }
+                transaction = null;
+            } else if (transaction != null && !tag.startsWith("/")) {
+                String value = tags.text();
+                if (!value.isEmpty()) {
+                    transaction.putIfAbsent(tag, value);
+                }
+            }
+        }
+        if (transaction != null) {
+            throw new StatementFormatException("Transaction " + ordinal + " is not closed");
+        }
+    }
+
+    private static void emit(long ordinal, Map<String, String> transaction, StatementRowHandler handler) {
+        String posted = transaction.get("DTPOSTED");
+        String amount = transaction.get("TRNAMT");
+        String name = transaction.getOrDefault("NAME", transaction.get("PAYEE"));
+        if (posted == null || amount == null || name == null) {
+            handler.rejected(ordinal, "Transaction without DTPOSTED, TRNAMT or NAME");
+            return;
+        }
+        try {
+            // DTPOSTED is yyyyMMdd followed by an optional time and zone
+            LocalDate date = LocalDate.parse(posted.substring(0, Math.min(8, posted.length())), POSTED_DATE);
+            handler.row(ordinal, new StatementRow(date, name, transaction.get("MEMO"), new BigDecimal(amount.replace(',', '.')), null));
+        } catch (DateTimeParseException e) {
+            handler.rejected(ordinal, "Invalid DTPOSTED '" + posted + "'");
+        } catch (NumberFormatException e) {
+            handler.rejected(ordinal, "Invalid TRNAMT '" + amount + "'");
+        }
+    }
+
+    /**
+     * Walks the elements of the document: {@link #nextTag()} skips to the next tag, {@link #text()} reads the text after it.
+     */
+    private static final class TagReader {
+
+        private final Reader reader;
+        private final StringBuilder buffer = new StringBuilder();
+        private int pending = -2;
+
+        TagReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        String nextTag() throws IOException {
+            int c;
+            while ((c = read()) != '<') {
+                if (c == -1) {
+                    return null;
+                }
+            }
+            buffer.setLength(0);
+            while ((c = read()) != '>') {
+                if (c == -1) {
+                    throw new StatementFormatException("Unterminated tag at the end of the file");
+                }
+                append((char) c);
+            }
+            return buffer.toString().strip().toUpperCase(Locale.ROOT);
+        }
+
+        String text() throws IOException {
+            buffer.setLength(0);
+            int c;
+            while ((c = read()) != '<' && c != -1) {
+                append((char) c);
+            }
+            pending = c;
+            return decode(buffer.toString().strip());
+        }
+
+        private void append(char c) {
+            if (buffer.length() == CsvStatementParser.MAX_FIELD_LENGTH) {
+                throw new StatementFormatException("Element longer than " + CsvStatementParser.MAX_FIELD_LENGTH + " characters");
+            }
+            buffer.append(c);
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private static String decode(String text) {
+            if (text.indexOf('&') < 0) {
+                return text;
+            }
+            return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                    .replace("&apos;", "'").replace("&nbsp;", " ").replace("&amp;", "&");
+        }
+    }
+}
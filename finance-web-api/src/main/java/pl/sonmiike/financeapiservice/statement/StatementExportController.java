@@ -0,0 +1,72 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequiredArgsConstructor
+public class StatementExportController {
+
+    private final StatementExportService statementExportService;
+    private final AuthService authService;
+
+    @GetMapping("/me/expenses/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(Authentication authentication,
+                                                                @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                                @RequestParam(required = false) LocalDate dateFrom,
+                                                                @RequestParam(required = false) LocalDate dateTo,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(RecordType.EXPENSE, "expenses", authentication, format, dateFrom, dateTo, acceptEncoding);
+    }
+
+    @GetMapping("/me/income/export")
+    public ResponseEntity<StreamingResponseBody> exportIncomes(Authentication authentication,
+                                                               @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                               @RequestParam(required = false) LocalDate dateFrom,
+                                                               @RequestParam(required = false) LocalDate dateTo,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(RecordType.INCOME, "incomes", authentication, format, dateFrom, dateTo, acceptEncoding);
+    }
+
+    // The body is written on an async thread after this returns, so the user and range are resolved here
+    private ResponseEntity<StreamingResponseBody> export(RecordType type, String filename, Authentication authentication,
+                                                         ExportFormat format, LocalDate dateFrom, LocalDate dateTo,
+                                                         String acceptEncoding) {
+        Long userId = authService.getUserId(authentication);
+        statementExportService.validateRange(dateFrom, dateTo);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename + "." + format.extension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(output -> statementExportService.export(type, userId, dateFrom, dateTo, format, output));
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(output -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(output, 8192);
+                    statementExportService.export(type, userId, dateFrom, dateTo, format, compressed);
+                    compressed.finish();
+                });
+    }
+}
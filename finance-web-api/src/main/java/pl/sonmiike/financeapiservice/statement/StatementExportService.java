@@ -0,0 +1,108 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports all expenses or incomes of a user, optionally within a date range.
+ * <p>
+ * Rows are read with a forward-only cursor, {@code fetch-size} rows per round trip, and each is written to the
+ * output as it is read, so memory stays flat whatever the number of rows. PostgreSQL only keeps a cursor open
+ * inside a transaction, hence the read-only transaction around the query. Rows come in date and id order along
+ * the {@code (user, date, id)} index.
+ * <p>
+ * Amounts are signed the way the statement import reads them, expenses negative and incomes positive,
+ * so an exported CSV imports back as the same expenses and incomes.
+ */
+@Service
+public class StatementExportService {
+
+    private static final String SELECT_EXPENSES = """
+            SELECT e.date, -e.amount, e.name, e.description, c.name
+            FROM expense e JOIN category c ON c.id = e.category_id
+            WHERE e.user_id = ?""";
+    private static final String SELECT_INCOMES = """
+            SELECT i.income_date, i.amount, i.name, i.description, NULL
+            FROM income i
+            WHERE i.user_user_id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public StatementExportService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${custom.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Checked before the response is committed, {@link #export} runs once the headers are already sent.
+     */
+    public void validateRange(LocalDate dateFrom, LocalDate dateTo) {
+        if (dateFrom != null && dateTo != null && dateFrom.isAfter(dateTo)) {
+            throw new InvalidRequestException("dateFrom must not be after dateTo");
+        }
+    }
+
+    public void export(RecordType type, Long userId, LocalDate dateFrom, LocalDate dateTo,
+                       ExportFormat format, OutputStream output) throws IOException {
+        boolean expenses = type == RecordType.EXPENSE;
+        String date = expenses ? "e.date" : "i.income_date";
+        String id = expenses ? "e.id" : "i.id";
+        StringBuilder sql = new StringBuilder(expenses ? SELECT_EXPENSES : SELECT_INCOMES);
+        List<Object> arguments = new ArrayList<>(3);
+        arguments.add(userId);
+        if (dateFrom != null) {
+            sql.append(" AND ").append(date).append(" >= ?");
+            arguments.add(dateFrom);
+        }
+        if (dateTo != null) {
+            sql.append(" AND ").append(date).append(" <= ?");
+            arguments.add(dateTo);
+        }
+        sql.append(" ORDER BY ").append(date).append(", ").append(id);
+
+        ExportWriter writer = format.open(output, expenses);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < arguments.size(); i++) {
+                    statement.setObject(i + 1, arguments.get(i));
+                }
+                return statement;
+            }, (RowCallbackHandler) row -> {
+                try {
+                    writer.write(row.getObject(1, LocalDate.class), row.getBigDecimal(2),
+                            row.getString(3), row.getString(4), row.getString(5));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // The client went away, the transaction is already rolled back
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+}
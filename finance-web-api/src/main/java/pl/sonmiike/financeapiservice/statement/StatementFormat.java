@@ -0,0 +1,36 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * File formats a bank statement can be imported from.
+ */
+public enum StatementFormat {
+    /** Comma separated with a header row, see {@link CsvStatementParser}. */
+    CSV,
+    /** Open Financial Exchange, SGML (1.x) or XML (2.x), see {@link OfxStatementParser}. */
+    OFX;
+
+    StatementParser parser() {
+        return this == CSV ? new CsvStatementParser() : new OfxStatementParser();
+    }
+
+    /**
+     * The requested format, or the one matching the extension of the uploaded file when none was requested.
+     */
+    static StatementFormat resolve(StatementFormat requested, String filename) {
+        if (requested != null) {
+            return requested;
+        }
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return OFX;
+        }
+        throw new InvalidRequestException("Cannot tell the statement format from the file name, pass format=CSV or format=OFX");
+    }
+}
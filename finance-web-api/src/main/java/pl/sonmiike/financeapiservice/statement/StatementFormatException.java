@@ -0,0 +1,11 @@
+package pl.sonmiike.financeapiservice.statement;
+
+/**
+ * The statement cannot be read any further, e.g. an unterminated quote or a header without the required columns.
+ */
+class StatementFormatException extends RuntimeException {
+
+    StatementFormatException(String message) {
+        super(message);
+    }
+}
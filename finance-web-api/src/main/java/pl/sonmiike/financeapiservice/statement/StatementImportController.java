@@ -0,0 +1,34 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/me/imports")
+public class StatementImportController {
+
+    private final StatementImportService statementImportService;
+    private final AuthService authService;
+
+    // The upload is spooled to disk by the servlet container and read from there as a stream
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReportDTO> importStatement(Authentication authentication,
+                                                           @RequestParam("file") MultipartFile file,
+                                                           @RequestParam(required = false) StatementFormat format,
+                                                           @RequestParam(required = false) Long categoryId) throws IOException {
+        Long userId = authService.getUserId(authentication);
+        StatementFormat statementFormat = StatementFormat.resolve(format, file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(statementImportService.importStatement(userId, input, statementFormat, categoryId));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.sonmiike.financeapiservice.category.CategoryRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountDeltas;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports the transactions of a bank statement as expenses and incomes of a user.
+ * <p>
+ * The file is parsed as a stream and its rows are written in chunks of {@code chunk-size}, each chunk in its own
+ * transaction with one JDBC batch per table and the record counts updated alongside, so memory stays bounded by
+ * the chunk whatever the file size. A chunk that fails stops the import; the chunks before it stay committed
+ * and the report says where it stopped.
+ */
+@Service
+public class StatementImportService {
+
+    private static final String INSERT_EXPENSE =
+            "INSERT INTO expense (name, description, date, amount, user_id, category_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_INCOME =
+            "INSERT INTO income (income_date, name, description, amount, user_user_id) VALUES (?, ?, ?, ?, ?)";
+    // Width of the name and description columns
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final RecordCountService recordCountService;
+    private final SpentAmountService spentAmountService;
+    private final ExpenseNameSuggestions expenseNameSuggestions;
+    private final int chunkSize;
+
+    public StatementImportService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  CategoryRepository categoryRepository,
+                                  RecordCountService recordCountService,
+                                  SpentAmountService spentAmountService,
+                                  ExpenseNameSuggestions expenseNameSuggestions,
+                                  @Value("${custom.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.categoryRepository = categoryRepository;
+        this.recordCountService = recordCountService;
+        this.spentAmountService = spentAmountService;
+        this.expenseNameSuggestions = expenseNameSuggestions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param defaultCategoryId category of the expenses whose row names none of the user's categories,
+     *                          without it such rows are rejected
+     */
+    public ImportReportDTO importStatement(Long userId, InputStream input, StatementFormat format, Long defaultCategoryId) {
+        CategoryMapping categories = new CategoryMapping(categoryRepository.findAllCategoriesByUserId(userId), defaultCategoryId);
+        ImportReportDTO report = new ImportReportDTO();
+        report.setFormat(format);
+        Chunk chunk = new Chunk(userId, categories, report);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            format.parser().parse(reader, chunk);
+            chunk.flush();
+        } catch (StatementFormatException e) {
+            report.setFailure(e.getMessage());
+        } catch (ChunkFailedException e) {
+            report.setFailure("Lines " + e.firstLine + " to " + e.lastLine + " could not be saved, the import stopped there");
+        } catch (IOException | UncheckedIOException e) {
+            report.setFailure("The file could not be read");
+        } finally {
+            if (report.getExpensesImported() > 0) {
+                expenseNameSuggestions.invalidate(userId);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Rows parsed since the last commit.
+     */
+    private final class Chunk implements StatementRowHandler {
+
+        private final Long userId;
+        private final CategoryMapping categories;
+        private final ImportReportDTO report;
+        private final List<Object[]> expenses = new ArrayList<>();
+        private final List<Object[]> incomes = new ArrayList<>();
+        private final Map<Long, Long> expensesByCategory = new HashMap<>();
+        private SpentAmountDeltas spent = new SpentAmountDeltas();
+        private long firstLine = -1;
+        private long lastLine;
+
+        Chunk(Long userId, CategoryMapping categories, ImportReportDTO report) {
+            this.userId = userId;
+            this.categories = categories;
+            this.report = report;
+        }
+
+        @Override
+        public void row(long line, StatementRow row) {
+            report.setRowsRead(report.getRowsRead() + 1);
+            String problem = validate(row);
+            if (problem != null) {
+                report.reject(line, problem);
+                return;
+            }
+            if (row.amount().signum() < 0) {
+                Long categoryId = categories.categoryOf(row);
+                if (categoryId == null) {
+                    report.reject(line, row.category() == null
+                            ? "No category given and no default category for the import"
+                            : "Unknown category '" + row.category() + "'");
+                    return;
+                }
+                expenses.add(new Object[]{row.name(), row.description(), row.date(), row.amount().negate(), userId, categoryId});
+                expensesByCategory.merge(categoryId, 1L, Long::sum);
+                spent.add(categoryId, row.date(), row.amount().negate());
+            } else {
+                incomes.add(new Object[]{row.date(), row.name(), row.description(), row.amount(), userId});
+            }
+            if (firstLine < 0) {
+                firstLine = line;
+            }
+            lastLine = line;
+            if (expenses.size() + incomes.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void rejected(long line, String reason) {
+            report.setRowsRead(report.getRowsRead() + 1);
+            report.reject(line, reason);
+        }
+
+        void flush() {
+            if (expenses.isEmpty() && incomes.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!expenses.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_EXPENSE, expenses);
+                        expensesByCategory.forEach((categoryId, count) -> recordCountService.expensesAdded(userId, categoryId, count));
+                        spentAmountService.apply(userId, spent);
+                    }
+                    if (!incomes.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_INCOME, incomes);
+                        recordCountService.incomesAdded(userId, incomes.size());
+                    }
+                });
+            } catch (DataAccessException e) {
+                throw new ChunkFailedException(firstLine, lastLine);
+            }
+            report.setExpensesImported(report.getExpensesImported() + expenses.size());
+            report.setIncomesImported(report.getIncomesImported() + incomes.size());
+            report.setChunksCommitted(report.getChunksCommitted() + 1);
+            expenses.clear();
+            incomes.clear();
+            expensesByCategory.clear();
+            spent = new SpentAmountDeltas();
+            firstLine = -1;
+        }
+    }
+
+    private static String validate(StatementRow row) {
+        if (row.amount().signum() == 0) {
+            return "Amount is zero";
+        }
+        if (row.amount().scale() > 2 && row.amount().stripTrailingZeros().scale() > 2) {
+            return "Amount has more than two decimal places";
+        }
+        if (row.name().length() > MAX_TEXT_LENGTH || (row.description() != null && row.description().length() > MAX_TEXT_LENGTH)) {
+            return "Name or description longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static final class ChunkFailedException extends RuntimeException {
+
+        private final long firstLine;
+        private final long lastLine;
+
+        ChunkFailedException(long firstLine, long lastLine) {
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+    }
+}
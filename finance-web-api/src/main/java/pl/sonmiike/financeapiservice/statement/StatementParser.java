@@ -0,0 +1,13 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a statement as a stream, holding at most one transaction in memory.
+ * Throws {@link StatementFormatException} when the file is malformed beyond the current transaction.
+ */
+interface StatementParser {
+
+    void parse(Reader reader, StatementRowHandler handler) throws IOException;
+}
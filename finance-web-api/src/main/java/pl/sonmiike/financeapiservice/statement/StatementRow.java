@@ -0,0 +1,12 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One transaction of a bank statement. Negative amounts are expenses, positive ones incomes.
+ *
+ * @param category category name given in the file, null when the format has none
+ */
+public record StatementRow(LocalDate date, String name, String description, BigDecimal amount, String category) {
+}
@@ -0,0 +1,14 @@
+package pl.sonmiike.financeapiservice.statement;
+
+/**
+ * Receives the transactions of a statement one at a time, in file order.
+ */
+interface StatementRowHandler {
+
+    void row(long line, StatementRow row);
+
+    /**
+     * The transaction at {@code line} could not be read, parsing goes on with the next one.
+     */
+    void rejected(long line, String reason);
+}
@@ -0,0 +1,44 @@
+package pl.sonmiike.financeapiservice.update;
+
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionRequiredException;
+
+/**
+ * ETags of expenses and incomes, the quoted {@code version} of the row.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return the version the client last saw, or {@code null} for {@code If-Match: *}, which matches any version
+     * @throws PreconditionRequiredException without an {@code If-Match} header, updates must name the version they replace
+     * @throws PreconditionFailedException    when the header holds no tag issued by {@link #of(long)}
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("Updates need an If-Match header with the ETag of the record");
+        }
+        String tag = ifMatch.strip();
+        if (tag.equals("*")) {
+            return null;
+        }
+        // Weak tags are compared as strong ones, a version identifies the representation exactly
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+    }
+}
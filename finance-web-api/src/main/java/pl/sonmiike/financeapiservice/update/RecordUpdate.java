@@ -0,0 +1,113 @@
+package pl.sonmiike.financeapiservice.update;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * New values of the editable fields of an expense or income; {@code fields} says which of them are set,
+ * the others keep their current value.
+ */
+public record RecordUpdate(String name, String description, LocalDate date, BigDecimal amount, int fields) {
+
+    public static final int NAME = 1;
+    public static final int DESCRIPTION = 1 << 1;
+    public static final int DATE = 1 << 2;
+    public static final int AMOUNT = 1 << 3;
+    public static final int ALL = NAME | DESCRIPTION | DATE | AMOUNT;
+
+    // Same limit as the create and update DTOs
+    static final int MAX_DESCRIPTION_LENGTH = 100;
+
+    /**
+     * Update of every field, for PUT bodies that were already validated.
+     */
+    public static RecordUpdate replacing(String name, String description, LocalDate date, BigDecimal amount) {
+        return new RecordUpdate(name, description, date, amount, ALL);
+    }
+
+    /**
+     * Reads a JSON Merge Patch (RFC 7396) of the editable fields. {@code dateField} is how the date is named in
+     * the DTO of the record. None of the fields can be removed, so {@code null} values are rejected like
+     * unknown or invalid fields.
+     */
+    public static RecordUpdate fromMergePatch(JsonNode patch, String dateField) {
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidRequestException("A merge patch must be a JSON object");
+        }
+        String name = null;
+        String description = null;
+        LocalDate date = null;
+        BigDecimal amount = null;
+        int fields = 0;
+        Iterator<Map.Entry<String, JsonNode>> entries = patch.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            String field = entry.getKey();
+            JsonNode value = entry.getValue();
+            if (value.isNull()) {
+                throw new InvalidRequestException(field + " cannot be removed");
+            }
+            if (field.equals("name")) {
+                name = text(field, value);
+                fields |= NAME;
+            } else if (field.equals("description")) {
+                description = text(field, value);
+                if (description.length() > MAX_DESCRIPTION_LENGTH) {
+                    throw new InvalidRequestException("Description can have max " + MAX_DESCRIPTION_LENGTH + " characters");
+                }
+                fields |= DESCRIPTION;
+            } else if (field.equals(dateField)) {
+                date = date(field, value);
+                fields |= DATE;
+            } else if (field.equals("amount")) {
+                amount = amount(field, value);
+                fields |= AMOUNT;
+            } else {
+                throw new InvalidRequestException(field + " cannot be changed");
+            }
+        }
+        return new RecordUpdate(name, description, date, amount, fields);
+    }
+
+    public boolean isEmpty() {
+        return fields == 0;
+    }
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    private static String text(String field, JsonNode value) {
+        if (!value.isTextual() || value.asText().isBlank()) {
+            throw new InvalidRequestException(field + " must be a non-blank string");
+        }
+        return value.asText();
+    }
+
+    private static LocalDate date(String field, JsonNode value) {
+        try {
+            return LocalDate.parse(text(field, value));
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException(field + " must be an ISO date");
+        }
+    }
+
+    private static BigDecimal amount(String field, JsonNode value) {
+        BigDecimal amount;
+        try {
+            amount = value.isNumber() ? value.decimalValue() : new BigDecimal(text(field, value));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException(field + " must be a number");
+        }
+        if (amount.signum() <= 0) {
+            throw new InvalidRequestException("Amount must be greater than 0");
+        }
+        return amount;
+    }
+}
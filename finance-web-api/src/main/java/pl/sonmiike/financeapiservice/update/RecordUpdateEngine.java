@@ -0,0 +1,116 @@
+package pl.sonmiike.financeapiservice.update;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.FilterTarget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies PUT and PATCH updates of expenses and incomes as one bulk {@code UPDATE} guarded by the owner and version.
+ * <p>
+ * The statement sets the fields present in the update and increments the version
+ * ({@code UPDATE ... WHERE id = ? AND user_id = ? AND version = ?}), so a successful update is a single round trip
+ * with no entity loaded, another user's row never matches, and a concurrent change makes it match no row.
+ * Only then is the version read, to tell a missing record (404) from a stale one (412).
+ * As in {@code UserScopedFilterEngine} the JPQL is built once per entity and set of fields and then reused.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecordUpdateEngine {
+
+    private final EntityManager entityManager;
+
+    private final Map<UpdateShape, String> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Must run inside a transaction.
+     *
+     * @param expectedVersion version from {@code If-Match}, {@code null} to update whatever the current version is
+     * @return the version of the record after the update
+     */
+    public long update(FilterTarget<?> target, Long id, Long userId, Long expectedVersion, RecordUpdate update) {
+        if (update.isEmpty()) {
+            // Nothing to write, the precondition still applies
+            long current = currentVersion(target, id, userId);
+            if (expectedVersion != null && current != expectedVersion) {
+                throw stale(current);
+            }
+            return current;
+        }
+        Query statement = entityManager.createQuery(jpql(target, update.fields(), expectedVersion != null))
+                .setParameter("id", id)
+                .setParameter("userId", userId);
+        if (expectedVersion != null) {
+            statement.setParameter("version", expectedVersion);
+        }
+        if (update.has(RecordUpdate.NAME)) {
+            statement.setParameter("name", update.name());
+        }
+        if (update.has(RecordUpdate.DESCRIPTION)) {
+            statement.setParameter("description", update.description());
+        }
+        if (update.has(RecordUpdate.DATE)) {
+            statement.setParameter("date", update.date());
+        }
+        if (update.has(RecordUpdate.AMOUNT)) {
+            statement.setParameter("amount", update.amount());
+        }
+
+        if (statement.executeUpdate() == 1) {
+            return expectedVersion != null ? expectedVersion + 1 : currentVersion(target, id, userId);
+        }
+        throw stale(currentVersion(target, id, userId));
+    }
+
+    String jpql(FilterTarget<?> target, int fields, boolean versioned) {
+        return statements.computeIfAbsent(new UpdateShape(target.entityType(), target.userIdPath(), target.datePath(), fields, versioned),
+                this::buildJpql);
+    }
+
+    private String buildJpql(UpdateShape shape) {
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(shape.entityType().getSimpleName()).append(" r SET");
+        if ((shape.fields() & RecordUpdate.NAME) != 0) {
+            jpql.append(" r.name = :name,");
+        }
+        if ((shape.fields() & RecordUpdate.DESCRIPTION) != 0) {
+            jpql.append(" r.description = :description,");
+        }
+        if ((shape.fields() & RecordUpdate.DATE) != 0) {
+            jpql.append(" r.").append(shape.datePath()).append(" = :date,");
+        }
+        if ((shape.fields() & RecordUpdate.AMOUNT) != 0) {
+            jpql.append(" r.amount = :amount,");
+        }
+        jpql.append(" r.version = r.version + 1 WHERE r.id = :id AND r.").append(shape.userIdPath()).append(" = :userId");
+        if (shape.versioned()) {
+            jpql.append(" AND r.version = :version");
+        }
+        return jpql.toString();
+    }
+
+    private long currentVersion(FilterTarget<?> target, Long id, Long userId) {
+        List<Long> versions = entityManager.createQuery("SELECT r.version FROM " + target.entityType().getSimpleName()
+                        + " r WHERE r.id = :id AND r." + target.userIdPath() + " = :userId", Long.class)
+                .setParameter("id", id)
+                .setParameter("userId", userId)
+                .getResultList();
+        if (versions.isEmpty()) {
+            throw new ResourceNotFoundException(target.entityType().getSimpleName() + " with that id not found in database");
+        }
+        return versions.get(0);
+    }
+
+    private static PreconditionFailedException stale(long currentVersion) {
+        return new PreconditionFailedException("The record was changed in the meantime, its current ETag is " + EntityTags.of(currentVersion));
+    }
+
+    private record UpdateShape(Class<?> entityType, String userIdPath, String datePath, int fields, boolean versioned) {
+    }
+}
@@ -9,6 +9,9 @@ import pl.sonmiike.financeapiservice.category.UserCategoryRepository;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
 import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
 import pl.sonmiike.financeapiservice.income.IncomeRepository;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+import pl.sonmiike.financeapiservice.security.auth.CachedUserDetailsService;
 import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenRepository;
 
 @Service
@@ -21,9 +24,13 @@ public class UserService {
     private final IncomeRepository incomeRepository;
     private final UserCategoryRepository userCategoryRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RecordCountService recordCountService;
+    private final ExpenseNameSuggestions expenseNameSuggestions;
 
     private final UserMapper userMapper;
 
+    private final CachedUserDetailsService userDetailsService;
+
 
 
     public PagedUsersDTO getAllUsers(int page, int size) {
@@ -37,6 +44,13 @@ public class UserService {
     }
 
 
+    /**
+     * Proxy carrying only the id, for setting the owner of new rows without loading the user.
+     */
+    public UserEntity getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     public UserDTO getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .map(userMapper::toDTO)
@@ -53,7 +67,10 @@ public class UserService {
         expenseRepository.deleteAllByUserUserId(userid);
         userCategoryRepository.deleteAllByUserUserId(userid);
         refreshTokenRepository.deleteAllByUserUserId(userid);
+        recordCountService.deleteAllForUser(userid);
+        expenseNameSuggestions.invalidate(userid);
         userRepository.deleteById(userid);
+        userDetailsService.evictUser(userid);
 
     }
 
@@ -2,7 +2,6 @@ package pl.sonmiike.financeapiservice.user.refreshToken;
 
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 
@@ -17,15 +16,20 @@ import java.time.Instant;
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_seq")
+    @SequenceGenerator(name = "refresh_token_seq", sequenceName = "refresh_token_seq", allocationSize = 50)
     private Long tokenId;
 
-    @Column(nullable = false, unique = true)
-    @NotBlank(message = "Enter refresh token")
+    // Hex SHA-256 of the token handed to the client, the raw value is never stored
+    @Column(name = "refresh_token", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Only known right after the token is issued or presented by the client
+    @Transient
     private String refreshToken;
 
     @Column(nullable = false)
     private Instant expirationTime;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     private UserEntity user;
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package pl.sonmiike.financeapiservice.user.refreshToken;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired refresh tokens in chunks, each in its own short transaction,
+ * so the table does not depend on clients presenting their expired tokens to shrink.
+ * <p>
+ * Publishes {@code auth.refresh_token.purged} (rows deleted), {@code auth.refresh_token.purge} (run duration)
+ * and {@code auth.refresh_token.rows} (table size after the last run).
+ */
+@Component
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final Counter purged;
+    private final Timer purgeTimer;
+    private final AtomicLong rows = new AtomicLong();
+
+    public RefreshTokenPurgeJob(RefreshTokenRepository refreshTokenRepository,
+                                @Value("${custom.refresh-token.purge.chunk-size:1000}") int chunkSize,
+                                @Value("${custom.refresh-token.purge.max-chunks-per-run:100}") int maxChunksPerRun,
+                                MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.purged = Counter.builder("auth.refresh_token.purged").register(meterRegistry);
+        this.purgeTimer = Timer.builder("auth.refresh_token.purge").register(meterRegistry);
+        Gauge.builder("auth.refresh_token.rows", rows, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${custom.refresh-token.purge.interval:PT10M}",
+            initialDelayString = "${custom.refresh-token.purge.interval:PT10M}")
+    public void purgeExpiredTokens() {
+        Timer.Sample sample = Timer.start();
+        purgeInChunks();
+        sample.stop(purgeTimer);
+        rows.set(refreshTokenRepository.count());
+    }
+
+    long purgeInChunks() {
+        Instant now = Instant.now();
+        long deleted = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int deletedInChunk = refreshTokenRepository.deleteExpiredChunk(now, chunkSize);
+            deleted += deletedInChunk;
+            purged.increment(deletedInChunk);
+            if (deletedInChunk < chunkSize) {
+                break;
+            }
+        }
+        return deleted;
+    }
+}
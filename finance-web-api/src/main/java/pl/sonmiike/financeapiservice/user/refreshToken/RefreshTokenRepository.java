@@ -1,12 +1,31 @@
 package pl.sonmiike.financeapiservice.user.refreshToken;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByRefreshToken(String refreshToken);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    Optional<RefreshToken> findByUserUserId(Long userId);
 
     void deleteAllByUserUserId(Long userid);
+
+    // Rows locked by a concurrent login rotation are skipped and picked up by the next run
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM refresh_token WHERE token_id IN (
+                SELECT token_id FROM refresh_token
+                WHERE expiration_time < :now
+                LIMIT :chunkSize
+                FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") Instant now, @Param("chunkSize") int chunkSize);
 }
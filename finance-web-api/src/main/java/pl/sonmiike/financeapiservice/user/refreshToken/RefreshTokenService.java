@@ -2,45 +2,56 @@ package pl.sonmiike.financeapiservice.user.refreshToken;
 
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
-import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
+    private static final long REFRESH_TOKEN_EXPIRATION = 5 * 60 * 60 * 10000;
+
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
 
 
-    public RefreshToken createRefreshToken(String username) {
-        UserEntity user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found + " + username));
+    /**
+     * Issues a new refresh token for the user, replacing the previous one if there was any.
+     * Only its hash is stored, so the raw value is available from {@link RefreshToken#getRefreshToken()} on the returned token only.
+     */
+    @Transactional
+    public RefreshToken createRefreshToken(Long userId) {
+        // The caller has already authenticated or inserted the user, so only a reference is needed for the foreign key
+        RefreshToken refreshToken = refreshTokenRepository.findByUserUserId(userId)
+                .orElseGet(() -> RefreshToken.builder()
+                        .user(userRepository.getReferenceById(userId))
+                        .build());
 
-        RefreshToken refreshToken = user.getRefreshToken();
-        // TODO If login and refresh is expired create new one
-        if (refreshToken == null) {
-            long refreshTokenExpiration = 5 * 60 * 60 * 10000;
-            refreshToken = RefreshToken.builder()
-                    .refreshToken(UUID.randomUUID().toString())
-                    .expirationTime(Instant.now().plusMillis(refreshTokenExpiration))
-                    .user(user)
-                    .build();
+        String rawToken = UUID.randomUUID().toString();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setExpirationTime(Instant.now().plusMillis(REFRESH_TOKEN_EXPIRATION));
 
-            refreshTokenRepository.save(refreshToken);
-        }
+        RefreshToken savedToken = refreshTokenRepository.save(refreshToken);
+        savedToken.setRefreshToken(rawToken);
+        return savedToken;
+    }
 
-        return refreshToken;
+    @Transactional
+    public void deleteRefreshToken(Long userId) {
+        refreshTokenRepository.deleteAllByUserUserId(userId);
     }
 
     public RefreshToken verifyRefreshToken(String refreshToken) {
-        RefreshToken existingRefreshToken = refreshTokenRepository.findByRefreshToken(refreshToken)
+        RefreshToken existingRefreshToken = refreshTokenRepository.findByTokenHash(hash(refreshToken))
                 .orElseThrow(() -> new ResourceNotFoundException("Invalid refresh token"));
 
         if (existingRefreshToken.getExpirationTime().isBefore(Instant.now())) {
@@ -48,6 +59,17 @@ public class RefreshTokenService {
             throw new RuntimeException("Refresh token expired");
         }
 
+        existingRefreshToken.setRefreshToken(refreshToken);
         return existingRefreshToken;
     }
+
+    // Refresh tokens are random UUIDs, a fast unsalted digest is enough to make the stored value useless to a reader
+    static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
@@ -0,0 +1,76 @@
+-- Schema as generated by Hibernate (ddl-auto=update) before migrations took over.
+-- Databases that already have it are baselined at this version instead of running it.
+
+CREATE TABLE users (
+    user_id  BIGSERIAL PRIMARY KEY,
+    name     VARCHAR(255),
+    username VARCHAR(255) UNIQUE,
+    email    VARCHAR(255) UNIQUE,
+    password VARCHAR(255),
+    role     VARCHAR(255) CHECK (role IN ('ROLE_USER', 'ROLE_ADMIN'))
+);
+
+CREATE TABLE category (
+    id   BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255)
+);
+
+CREATE TABLE user_category (
+    id          BIGSERIAL PRIMARY KEY,
+    user_id     BIGINT REFERENCES users (user_id),
+    category_id BIGINT REFERENCES category (id),
+    icon_url    VARCHAR(255),
+    assigned_at TIMESTAMP(6)
+);
+
+CREATE TABLE expense (
+    id          BIGSERIAL PRIMARY KEY,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    date        DATE,
+    amount      NUMERIC(38, 2),
+    user_id     BIGINT NOT NULL REFERENCES users (user_id),
+    category_id BIGINT NOT NULL REFERENCES category (id)
+);
+
+CREATE TABLE income (
+    id           BIGSERIAL PRIMARY KEY,
+    income_date  DATE,
+    name         VARCHAR(255),
+    description  VARCHAR(255),
+    amount       NUMERIC(38, 2),
+    user_user_id BIGINT REFERENCES users (user_id)
+);
+
+CREATE TABLE monthly_budget (
+    id            BIGSERIAL PRIMARY KEY,
+    year_month    VARCHAR(255)   NOT NULL,
+    budget_amount NUMERIC(10, 2) NOT NULL,
+    spent_amount  NUMERIC(10, 2) NOT NULL,
+    created_at    TIMESTAMP(6)   NOT NULL,
+    updated_at    TIMESTAMP(6)   NOT NULL,
+    category_id   BIGINT         NOT NULL REFERENCES category (id),
+    user_id       BIGINT         NOT NULL REFERENCES users (user_id)
+);
+
+CREATE TABLE refresh_token (
+    token_id        BIGSERIAL PRIMARY KEY,
+    refresh_token   VARCHAR(64)                 NOT NULL UNIQUE,
+    expiration_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    user_user_id    BIGINT UNIQUE REFERENCES users (user_id)
+);
+
+CREATE TABLE revoked_token (
+    token_id   VARCHAR(36) PRIMARY KEY,
+    user_id    BIGINT,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE record_count (
+    user_id     BIGINT      NOT NULL,
+    record_type VARCHAR(16) NOT NULL CHECK (record_type IN ('EXPENSE', 'INCOME')),
+    category_id BIGINT      NOT NULL,
+    total       BIGINT      NOT NULL,
+    CONSTRAINT record_count_pkey PRIMARY KEY (category_id, user_id, record_type)
+);
@@ -0,0 +1,36 @@
+-- Indexes for the predicates the repositories filter and sort on. IF NOT EXISTS keeps the ones
+-- ddl-auto already created from @Table(indexes) on databases that were baselined.
+
+-- Listings and keyset pages by user, read backwards for ORDER BY date DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_expense_user_date_id ON expense (user_id, date, id);
+CREATE INDEX IF NOT EXISTS idx_expense_user_category_date_id ON expense (user_id, category_id, date, id);
+CREATE INDEX IF NOT EXISTS idx_income_user_date_id ON income (user_user_id, income_date, id);
+
+-- Purge jobs
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expiration_time ON refresh_token (expiration_time);
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires_at ON revoked_token (expires_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_token_revoked_at ON revoked_token (revoked_at);
+
+-- Counters are read and written by user first, which makes the separate user_id index redundant
+ALTER TABLE record_count DROP CONSTRAINT record_count_pkey;
+ALTER TABLE record_count ADD CONSTRAINT record_count_pkey PRIMARY KEY (user_id, record_type, category_id);
+DROP INDEX IF EXISTS idx_record_count_user_id;
+
+-- A category is assigned to a user once: findByUserUserIdAndCategoryId returns a single row.
+-- Duplicates left by concurrent assignments are dropped, keeping the first one.
+DELETE FROM user_category duplicate
+USING user_category original
+WHERE duplicate.user_id = original.user_id
+  AND duplicate.category_id = original.category_id
+  AND duplicate.id > original.id;
+ALTER TABLE user_category ADD CONSTRAINT uq_user_category_user_category UNIQUE (user_id, category_id);
+
+-- One budget per user, category and month. Duplicates left by concurrent budget updates are dropped,
+-- keeping the latest one, which holds the amount the user set last.
+DELETE FROM monthly_budget duplicate
+USING monthly_budget latest
+WHERE duplicate.user_id = latest.user_id
+  AND duplicate.category_id = latest.category_id
+  AND duplicate.year_month = latest.year_month
+  AND duplicate.id < latest.id;
+ALTER TABLE monthly_budget ADD CONSTRAINT uq_monthly_budget_user_category_month UNIQUE (user_id, category_id, year_month);
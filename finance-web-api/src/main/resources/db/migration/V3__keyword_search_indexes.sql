@@ -0,0 +1,9 @@
+-- Trigram indexes for the keyword filter (lower(x) LIKE '%kw%') and the ranked search (lower(q) <% lower(x)).
+-- B-tree indexes cannot serve a leading wildcard, GIN over trigrams serves both operators.
+-- pg_trgm ships with PostgreSQL but creating it needs a role allowed to create extensions.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_expense_name_trgm ON expense USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_expense_description_trgm ON expense USING gin (lower(description) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_income_name_trgm ON income USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_income_description_trgm ON income USING gin (lower(description) gin_trgm_ops);
@@ -0,0 +1,43 @@
+-- Ids of the tables written in bulk come from sequences stepping by 50: Hibernate's pooled optimizer takes the
+-- 50 ids below each value it fetches, so it inserts in JDBC batches instead of one round trip per row.
+-- Each sequence replaces the serial sequence or identity of its column and becomes its default, so plain SQL
+-- inserts take an id no pooled block can hand out. It starts 50 above the highest id, keeping existing ids
+-- and putting the first pooled block right after them.
+DO $$
+DECLARE
+    target RECORD;
+    first_value BIGINT;
+    serial_sequence TEXT;
+BEGIN
+    FOR target IN
+        SELECT * FROM (VALUES
+            ('category', 'id', 'category_seq'),
+            ('user_category', 'id', 'user_category_seq'),
+            ('expense', 'id', 'expense_seq'),
+            ('income', 'id', 'income_seq'),
+            ('monthly_budget', 'id', 'monthly_budget_seq'),
+            ('refresh_token', 'token_id', 'refresh_token_seq')
+        ) AS targets (table_name, column_name, sequence_name)
+    LOOP
+        EXECUTE format('SELECT COALESCE(MAX(%I), 0) + 50 FROM %I', target.column_name, target.table_name) INTO first_value;
+        EXECUTE format('CREATE SEQUENCE %I START WITH %s INCREMENT BY 50', target.sequence_name, first_value);
+
+        serial_sequence := pg_get_serial_sequence(target.table_name, target.column_name);
+        IF EXISTS (SELECT 1 FROM pg_attribute
+                   WHERE attrelid = target.table_name::regclass
+                     AND attname = target.column_name
+                     AND attidentity <> '') THEN
+            -- Databases baselined from ddl-auto have identity columns, dropping the identity drops its sequence
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY', target.table_name, target.column_name);
+        ELSE
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP DEFAULT', target.table_name, target.column_name);
+            IF serial_sequence IS NOT NULL THEN
+                EXECUTE format('DROP SEQUENCE %s', serial_sequence);
+            END IF;
+        END IF;
+
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET DEFAULT nextval(%L)',
+                       target.table_name, target.column_name, target.sequence_name);
+        EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.%I', target.sequence_name, target.table_name, target.column_name);
+    END LOOP;
+END $$;
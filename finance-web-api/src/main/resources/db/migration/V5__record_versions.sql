@@ -0,0 +1,4 @@
+-- Optimistic locking versions of expenses and incomes, exposed to clients as ETags.
+-- Updates run as UPDATE ... WHERE id = ? AND user_id = ? AND version = ? and increment it.
+ALTER TABLE expense ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE income ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
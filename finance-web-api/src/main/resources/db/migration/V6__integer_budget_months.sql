@@ -0,0 +1,6 @@
+-- Budget months become yyyymm integers (202403 for 2024-03) instead of YearMonth.toString() strings:
+-- four bytes instead of a seven-character string, ordered like the months, turned into dates with arithmetic.
+-- The unique (user_id, category_id, year_month) constraint from V2 is rebuilt on the new type,
+-- it is the conflict target of the single-statement budget upsert.
+ALTER TABLE monthly_budget ALTER COLUMN year_month TYPE INTEGER USING replace(year_month, '-', '')::INTEGER;
+ALTER TABLE monthly_budget ADD CONSTRAINT ck_monthly_budget_year_month CHECK (year_month % 100 BETWEEN 1 AND 12);
@@ -0,0 +1,149 @@
+package pl.sonmiike.financeapiservice;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with {@code EXPLAIN} that the hot queries are served by the indexes from the Flyway migrations.
+ * Starting the context also migrates the database and validates the mappings against it.
+ * <p>
+ * Runs only against a local PostgreSQL given in {@code EXPLAIN_DATASOURCE_URL}
+ * ({@code EXPLAIN_DATASOURCE_USERNAME} and {@code EXPLAIN_DATASOURCE_PASSWORD} default to postgres),
+ * e.g. {@code EXPLAIN_DATASOURCE_URL=jdbc:postgresql://localhost:5432/finance ./gradlew test --tests QueryPlanTest}.
+ * It seeds 2000 {@code explain-plan-*} users with their expenses, incomes and budgets and removes them afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${EXPLAIN_DATASOURCE_URL}",
+        "spring.datasource.username=${EXPLAIN_DATASOURCE_USERNAME:postgres}",
+        "spring.datasource.password=${EXPLAIN_DATASOURCE_PASSWORD:postgres}",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DATASOURCE_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final String USERS = "email LIKE 'explain-plan-%'";
+    private static final String CATEGORIES = "name LIKE 'Explain plan %'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long categoryId;
+
+    @BeforeAll
+    void seed() {
+        deleteSeededRows();
+        jdbcTemplate.update("""
+                INSERT INTO users (name, username, email, password, role)
+                SELECT 'explain', 'explain-plan-' || n, 'explain-plan-' || n || '@test.com', 'x', 'ROLE_USER'
+                FROM generate_series(1, 2000) AS n""");
+        jdbcTemplate.update("""
+                INSERT INTO category (name)
+                SELECT 'Explain plan ' || n FROM generate_series(1, 20) AS n
+                WHERE NOT EXISTS (SELECT 1 FROM category c WHERE c.name = 'Explain plan ' || n)""");
+        jdbcTemplate.update("""
+                INSERT INTO user_category (user_id, category_id, assigned_at)
+                SELECT u.user_id, c.id, now() FROM users u CROSS JOIN category c
+                WHERE u.%s AND c.%s""".formatted(USERS, CATEGORIES));
+        jdbcTemplate.update("""
+                INSERT INTO expense (name, description, date, amount, user_id, category_id)
+                SELECT 'expense', 'seeded', DATE '2024-01-01' + n * 3, n + 0.99, u.user_id, c.id
+                FROM users u CROSS JOIN generate_series(1, 100) AS n
+                JOIN category c ON c.name = 'Explain plan ' || (n % 20 + 1)
+                WHERE u.%s""".formatted(USERS));
+        jdbcTemplate.update("""
+                INSERT INTO income (income_date, name, description, amount, user_user_id)
+                SELECT DATE '2024-01-01' + n * 15, 'income', 'seeded', 1000, u.user_id
+                FROM users u CROSS JOIN generate_series(1, 20) AS n
+                WHERE u.%s""".formatted(USERS));
+        jdbcTemplate.update("""
+                INSERT INTO monthly_budget (year_month, budget_amount, spent_amount, created_at, updated_at, category_id, user_id)
+                SELECT 202400 + m, 500, 0, now(), now(), c.id, u.user_id
+                FROM users u CROSS JOIN category c CROSS JOIN generate_series(1, 3) AS m
+                WHERE u.%s AND c.%s""".formatted(USERS, CATEGORIES));
+        jdbcTemplate.execute("ANALYZE");
+
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = 'explain-plan-1000@test.com'", Long.class);
+        categoryId = jdbcTemplate.queryForObject("SELECT id FROM category WHERE name = 'Explain plan 7'", Long.class);
+    }
+
+    @AfterAll
+    void deleteSeededRows() {
+        String seededUsers = "SELECT user_id FROM users WHERE " + USERS;
+        jdbcTemplate.update("DELETE FROM monthly_budget WHERE user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM income WHERE user_user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM expense WHERE user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM user_category WHERE user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM record_count WHERE user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM users WHERE " + USERS);
+    }
+
+    Stream<Arguments> keyQueries() {
+        return Stream.of(
+                Arguments.of("expense page", """
+                        SELECT * FROM expense e WHERE e.user_id = :user
+                        ORDER BY e.date DESC, e.id DESC LIMIT 11"""),
+                Arguments.of("expense page after cursor", """
+                        SELECT * FROM expense e WHERE e.user_id = :user
+                        AND e.date <= DATE '2024-06-01' AND (e.date < DATE '2024-06-01' OR e.id < 1000)
+                        ORDER BY e.date DESC, e.id DESC LIMIT 11"""),
+                Arguments.of("expense page by category", """
+                        SELECT * FROM expense e WHERE e.user_id = :user AND e.category_id = :category
+                        ORDER BY e.date DESC, e.id DESC LIMIT 11"""),
+                Arguments.of("expense date range", """
+                        SELECT * FROM expense e WHERE e.user_id = :user
+                        AND e.date BETWEEN DATE '2024-02-01' AND DATE '2024-03-01'"""),
+                Arguments.of("expense keyword filter", """
+                        SELECT * FROM expense e WHERE e.user_id = :user
+                        AND (lower(e.name) LIKE '%xpens%' OR lower(e.description) LIKE '%xpens%')
+                        ORDER BY e.date DESC, e.id DESC OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY"""),
+                Arguments.of("expense search", """
+                        SELECT * FROM expense e WHERE e.user_id = :user
+                        AND ('seded' <% lower(e.name) OR 'seded' <% lower(e.description))
+                        ORDER BY greatest(word_similarity('seded', lower(e.name)),
+                        coalesce(word_similarity('seded', lower(e.description)), 0)) DESC LIMIT 20"""),
+                Arguments.of("expense count", """
+                        SELECT count(*) FROM expense e WHERE e.user_id = :user"""),
+                Arguments.of("income page", """
+                        SELECT * FROM income i WHERE i.user_user_id = :user
+                        ORDER BY i.income_date DESC, i.id DESC LIMIT 11"""),
+                Arguments.of("income filter", """
+                        SELECT * FROM income i WHERE i.user_user_id = :user
+                        AND i.income_date >= DATE '2024-02-01' AND i.income_date <= DATE '2024-06-01' AND i.amount >= 100
+                        ORDER BY i.income_date DESC, i.id DESC OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY"""),
+                Arguments.of("user category", """
+                        SELECT * FROM user_category uc WHERE uc.user_id = :user AND uc.category_id = :category"""),
+                Arguments.of("monthly budget", """
+                        SELECT * FROM monthly_budget mb
+                        WHERE mb.user_id = :user AND mb.category_id = :category AND mb.year_month = 202402""")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("keyQueries")
+    void keyQueryUsesIndex(String name, String query) {
+        String sql = query
+                .replace(":user", Long.toString(userId))
+                .replace(":category", Long.toString(categoryId));
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+
+        assertTrue(plan.contains("Index"), () -> name + " does not use an index:\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> name + " scans a whole table:\n" + plan);
+    }
+}
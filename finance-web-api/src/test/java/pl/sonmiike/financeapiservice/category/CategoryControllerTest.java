@@ -17,6 +17,7 @@ import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudgetDTO;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
 import pl.sonmiike.financeapiservice.security.auth.AuthService;
 import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -51,6 +52,9 @@ class CategoryControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
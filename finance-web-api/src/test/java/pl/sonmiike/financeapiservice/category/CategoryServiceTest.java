@@ -6,11 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudget;
 import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudgetDTO;
 import pl.sonmiike.financeapiservice.category.monthlyBudget.MonthlyBudgetRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
 import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 
@@ -41,6 +43,13 @@ public class CategoryServiceTest {
     @Mock
     private MonthlyBudgetRepository monthlyBudgetRepository;
 
+    @Mock
+    private RecordCountService recordCountService;
+    @Mock
+    private SpentAmountService spentAmountService;
+    @Mock
+    private ExpenseNameSuggestions expenseNameSuggestions;
+
     @Mock
     private CategoryMapper categoryMapper;
 
@@ -199,15 +208,18 @@ public class CategoryServiceTest {
     @Test
     void testUnassignCategoryFromUser_Success() {
         Long userId = 1L;
-        Long categoryId = 1L;
+        Long categoryId = 2L;
         UserCategory userCategory = UserCategory.builder().id(1L).build();
 
         when(userCategoryRepository.findByUserUserIdAndCategoryId(userId, categoryId)).thenReturn(Optional.of(userCategory));
+        when(expenseRepository.deleteAllByCategoryIdAndUserUserId(categoryId, userId)).thenReturn(3);
 
         categoryService.removeCategoryFromUser(userId, categoryId);
 
         assertEquals(userCategoryRepository.count(), 0);
-        verify(expenseRepository, times(1)).deleteAllByCategoryIdAndUserUserId(userId, categoryId);
+        verify(expenseRepository, times(1)).deleteAllByCategoryIdAndUserUserId(categoryId, userId);
+        verify(recordCountService).expensesRemoved(userId, categoryId, 3L);
+        verify(spentAmountService).categoryCleared(userId, categoryId);
         verify(userCategoryRepository, times(1)).delete(userCategory);
     }
 
@@ -221,42 +233,26 @@ public class CategoryServiceTest {
 
         assertThrows(ResourceNotFoundException.class, () -> categoryService.removeCategoryFromUser(userId, categoryId));
 
-        verify(expenseRepository, never()).deleteAllByCategoryIdAndUserUserId(userId, categoryId);
+        verify(expenseRepository, never()).deleteAllByCategoryIdAndUserUserId(categoryId, userId);
         verify(userCategoryRepository, never()).delete(any(UserCategory.class));
     }
 
     @Test
-    void whenCreatingNewBudget_thenNewBudgetIsSaved() {
+    void whenSettingBudget_thenCurrentMonthIsUpsertedInOneStatement() {
         Long userId = 1L;
-        MonthlyBudgetDTO inputDTO = MonthlyBudgetDTO.builder().budgetToSet(BigDecimal.valueOf(1000)).build();
-        UserCategory mockUserCategory = UserCategory.builder().id(1L).build();
+        MonthlyBudgetDTO inputDTO = MonthlyBudgetDTO.builder().categoryId(2L).budgetToSet(BigDecimal.valueOf(1000)).build();
+        YearMonth currentYearMonth = YearMonth.now();
 
-        when(userCategoryRepository.findByUserUserIdAndCategoryId(userId, inputDTO.getCategoryId())).thenReturn(Optional.of(mockUserCategory));
-        when(monthlyBudgetRepository.updateBudgetAmountByUserIdAndCategoryIdAndYearMonth(eq(userId), eq(inputDTO.getCategoryId()), any(String.class), eq(inputDTO.getBudgetToSet()))).thenReturn(0);
-        when(monthlyBudgetRepository.save(any(MonthlyBudget.class))).thenAnswer(i -> i.getArgument(0));
+        when(userCategoryRepository.existsByUserUserIdAndCategoryId(userId, 2L)).thenReturn(true);
 
         // Execution
         MonthlyBudgetDTO result = categoryService.setCategoryBudgetAmount(userId, inputDTO);
 
         // Verification
-        verify(monthlyBudgetRepository).save(any(MonthlyBudget.class));
-        assertNotNull(result);
-        assertEquals(inputDTO.getBudgetToSet(), result.getBudgetToSet());
-    }
-
-    @Test
-    void whenUpdatingExistingBudget_thenBudgetIsUpdated() {
-        // Setup
-        Long userId = 1L;
-        MonthlyBudgetDTO inputDTO = MonthlyBudgetDTO.builder().budgetToSet(BigDecimal.valueOf(1000)).build();
-        UserCategory mockUserCategory = UserCategory.builder().id(1L).build();
-        when(userCategoryRepository.findByUserUserIdAndCategoryId(userId, inputDTO.getCategoryId())).thenReturn(Optional.of(mockUserCategory));
-        when(monthlyBudgetRepository.updateBudgetAmountByUserIdAndCategoryIdAndYearMonth(eq(userId), eq(inputDTO.getCategoryId()), any(String.class), eq(inputDTO.getBudgetToSet()))).thenReturn(1);
-
-        MonthlyBudgetDTO result = categoryService.setCategoryBudgetAmount(userId, inputDTO);
-
-        // Verification
-        verify(monthlyBudgetRepository, never()).save(any(MonthlyBudget.class));
+        verify(monthlyBudgetRepository).upsertBudgetAmount(userId, 2L,
+                currentYearMonth.getYear() * 100 + currentYearMonth.getMonthValue(), BigDecimal.valueOf(1000),
+                currentYearMonth.atDay(1), currentYearMonth.atEndOfMonth());
+        verifyNoMoreInteractions(monthlyBudgetRepository);
         assertNotNull(result);
         assertEquals(inputDTO.getBudgetToSet(), result.getBudgetToSet());
     }
@@ -266,11 +262,11 @@ public class CategoryServiceTest {
         Long userId = 1L;
         MonthlyBudgetDTO inputDTO = MonthlyBudgetDTO.builder().budgetToSet(BigDecimal.valueOf(1000)).build();
 
-        when(userCategoryRepository.findByUserUserIdAndCategoryId(userId, inputDTO.getCategoryId())).thenReturn(Optional.empty());
+        when(userCategoryRepository.existsByUserUserIdAndCategoryId(userId, inputDTO.getCategoryId())).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () -> categoryService.setCategoryBudgetAmount(userId, inputDTO));
 
-        verify(monthlyBudgetRepository, never()).save(any(MonthlyBudget.class));
+        verifyNoInteractions(monthlyBudgetRepository);
     }
 
     @Test
@@ -282,7 +278,7 @@ public class CategoryServiceTest {
 
         categoryService.deleteMonthlyBudget(userId, categoryId);
 
-        verify(monthlyBudgetRepository, times(1)).deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth.toString());
+        verify(monthlyBudgetRepository, times(1)).deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth);
     }
 
     @Test
@@ -294,7 +290,7 @@ public class CategoryServiceTest {
 
         assertThrows(ResourceNotFoundException.class, () -> categoryService.deleteMonthlyBudget(userId, categoryId));
 
-        verify(monthlyBudgetRepository, never()).deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth.toString());
+        verify(monthlyBudgetRepository, never()).deleteByUserUserIdAndCategoryIdAndYearMonth(userId, categoryId, currentYearMonth);
     }
 
 }
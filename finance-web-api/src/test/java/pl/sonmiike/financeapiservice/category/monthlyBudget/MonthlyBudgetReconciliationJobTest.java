@@ -0,0 +1,40 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class MonthlyBudgetReconciliationJobTest {
+
+    @Test
+    void reconcile_ChecksBudgetsInIdRangesAndCountsRewrittenOnes() {
+        MonthlyBudgetRepository monthlyBudgetRepository = mock(MonthlyBudgetRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MonthlyBudgetReconciliationJob job = new MonthlyBudgetReconciliationJob(monthlyBudgetRepository, 100, meterRegistry);
+        when(monthlyBudgetRepository.findMaxId()).thenReturn(250L);
+        when(monthlyBudgetRepository.reconcileSpentAmounts(0, 100)).thenReturn(2);
+        when(monthlyBudgetRepository.reconcileSpentAmounts(200, 300)).thenReturn(1);
+
+        job.reconcile();
+
+        verify(monthlyBudgetRepository).reconcileSpentAmounts(0, 100);
+        verify(monthlyBudgetRepository).reconcileSpentAmounts(100, 200);
+        verify(monthlyBudgetRepository).reconcileSpentAmounts(200, 300);
+        verify(monthlyBudgetRepository, times(3)).reconcileSpentAmounts(anyLong(), anyLong());
+        assertEquals(3, meterRegistry.get("monthly_budget.reconciled").counter().count());
+        assertEquals(1, meterRegistry.get("monthly_budget.reconcile").timer().count());
+    }
+
+    @Test
+    void reconcile_WithoutBudgets_DoesNothing() {
+        MonthlyBudgetRepository monthlyBudgetRepository = mock(MonthlyBudgetRepository.class);
+        MonthlyBudgetReconciliationJob job = new MonthlyBudgetReconciliationJob(monthlyBudgetRepository, 100, new SimpleMeterRegistry());
+
+        assertEquals(0, job.reconcileSpentAmounts());
+
+        verify(monthlyBudgetRepository, never()).reconcileSpentAmounts(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,221 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.sonmiike.financeapiservice.category.CategoryService;
+import pl.sonmiike.financeapiservice.expenses.AddExpesneDTO;
+import pl.sonmiike.financeapiservice.expenses.ExpenseService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs many writers against one budget at once and checks that no delta is lost: the spent amount of the
+ * budget has to match the sum of the expenses left in its month, and concurrent budget upserts leave one row.
+ * Writers moving expenses between two budgets in opposite directions must not deadlock.
+ * <p>
+ * Runs only against a local PostgreSQL given in {@code EXPLAIN_DATASOURCE_URL}, like {@code QueryPlanTest}.
+ * It seeds the {@code spent-concurrency@test.com} user and removes it with its rows afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${EXPLAIN_DATASOURCE_URL}",
+        "spring.datasource.username=${EXPLAIN_DATASOURCE_USERNAME:postgres}",
+        "spring.datasource.password=${EXPLAIN_DATASOURCE_PASSWORD:postgres}",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DATASOURCE_URL", matches = ".+")
+class SpentAmountConcurrencyTest {
+
+    private static final String EMAIL = "spent-concurrency@test.com";
+    private static final int WRITERS = 16;
+    private static final int EXPENSES_PER_WRITER = 25;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ExpenseService expenseService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private MonthlyBudgetReconciliationJob reconciliationJob;
+
+    private final YearMonth month = YearMonth.now();
+    private long userId;
+    private long categoryId;
+
+    @BeforeEach
+    void seed() {
+        deleteSeededRows();
+        jdbcTemplate.update("INSERT INTO users (name, username, email, password, role) VALUES ('spent', ?, ?, 'x', 'ROLE_USER')", EMAIL, EMAIL);
+        jdbcTemplate.update("""
+                INSERT INTO category (name) SELECT 'Spent concurrency'
+                WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = 'Spent concurrency')""");
+        userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE email = ?", Long.class, EMAIL);
+        categoryId = jdbcTemplate.queryForObject("SELECT id FROM category WHERE name = 'Spent concurrency'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_category (user_id, category_id, assigned_at) VALUES (?, ?, now())", userId, categoryId);
+        jdbcTemplate.update("""
+                INSERT INTO monthly_budget (year_month, budget_amount, spent_amount, created_at, updated_at, category_id, user_id)
+                VALUES (?, 1000, 0, now(), now(), ?, ?)""", YearMonthAttributeConverter.toInteger(month), categoryId, userId);
+    }
+
+    @AfterEach
+    void deleteSeededRows() {
+        String seededUser = "SELECT user_id FROM users WHERE email = '" + EMAIL + "'";
+        jdbcTemplate.update("DELETE FROM monthly_budget WHERE user_id IN (" + seededUser + ")");
+        jdbcTemplate.update("DELETE FROM expense WHERE user_id IN (" + seededUser + ")");
+        jdbcTemplate.update("DELETE FROM user_category WHERE user_id IN (" + seededUser + ")");
+        jdbcTemplate.update("DELETE FROM record_count WHERE user_id IN (" + seededUser + ")");
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", EMAIL);
+    }
+
+    @Test
+    void parallelWritersToOneBudget_LoseNoUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> writers = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int id = writer;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    return write(id);
+                }));
+            }
+            start.countDown();
+            BigDecimal expected = BigDecimal.ZERO;
+            for (Future<BigDecimal> writer : writers) {
+                expected = expected.add(writer.get(2, TimeUnit.MINUTES));
+            }
+
+            assertEquals(expected, spentAmount(month).setScale(expected.scale()));
+            assertEquals(expected, sumOfExpenses(month).setScale(expected.scale()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reconciliation_RepairsDriftedBudget() {
+        expenseService.createExpense(new AddExpesneDTO("drift", "seeded", month.atDay(2), new BigDecimal("42.00")), userId, categoryId);
+        jdbcTemplate.update("UPDATE monthly_budget SET spent_amount = 7 WHERE user_id = ?", userId);
+
+        assertTrue(reconciliationJob.reconcileSpentAmounts() >= 1);
+
+        assertEquals(0, new BigDecimal("42.00").compareTo(spentAmount(month)));
+    }
+
+    @Test
+    void parallelBudgetUpserts_LeaveOneSeededRow() throws Exception {
+        expenseService.createExpense(new AddExpesneDTO("before", "seeded", month.atDay(3), new BigDecimal("15.50")), userId, categoryId);
+        jdbcTemplate.update("DELETE FROM monthly_budget WHERE user_id = ?", userId);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                MonthlyBudgetDTO budget = MonthlyBudgetDTO.builder().categoryId(categoryId).budgetToSet(BigDecimal.valueOf(100 + writer)).build();
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    return categoryService.setCategoryBudgetAmount(userId, budget);
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM monthly_budget WHERE user_id = ?", Integer.class, userId));
+        assertEquals(new BigDecimal("15.50"), spentAmount(month));
+    }
+
+    @Test
+    void oppositeMovesBetweenTwoBudgets_DoNotDeadlock() throws Exception {
+        YearMonth previous = month.minusMonths(1);
+        jdbcTemplate.update("""
+                INSERT INTO monthly_budget (year_month, budget_amount, spent_amount, created_at, updated_at, category_id, user_id)
+                VALUES (?, 1000, 0, now(), now(), ?, ?)""", YearMonthAttributeConverter.toInteger(previous), categoryId, userId);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                // Half of the writers move expenses into the month before, the other half out of it
+                YearMonth from = writer % 2 == 0 ? month : previous;
+                YearMonth to = writer % 2 == 0 ? previous : month;
+                int id = writer;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    move(id, from, to);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, sumOfExpenses(month).compareTo(spentAmount(month)));
+        assertEquals(0, sumOfExpenses(previous).compareTo(spentAmount(previous)));
+    }
+
+    // Creates the writer's expenses in one month and moves each of them to the other
+    private void move(int writer, YearMonth from, YearMonth to) {
+        for (int i = 0; i < EXPENSES_PER_WRITER; i++) {
+            String name = "move-" + writer + "-" + i;
+            expenseService.createExpense(new AddExpesneDTO(name, "concurrent", from.atDay(1 + i % 28), new BigDecimal("2.00")), userId, categoryId);
+            Long expenseId = jdbcTemplate.queryForObject("SELECT id FROM expense WHERE user_id = ? AND name = ?", Long.class, userId, name);
+            expenseService.updateExpense(expenseId, new RecordUpdate(null, null, to.atDay(1 + i % 28), null, RecordUpdate.DATE), userId, null);
+        }
+    }
+
+    // Creates, edits and deletes the writer's expenses, returning what they should add to the budget
+    private BigDecimal write(int writer) {
+        BigDecimal contributed = BigDecimal.ZERO;
+        for (int i = 0; i < EXPENSES_PER_WRITER; i++) {
+            String name = "spent-" + writer + "-" + i;
+            expenseService.createExpense(new AddExpesneDTO(name, "concurrent", month.atDay(1 + i % 28), new BigDecimal("2.00")), userId, categoryId);
+            Long expenseId = jdbcTemplate.queryForObject("SELECT id FROM expense WHERE user_id = ? AND name = ?", Long.class, userId, name);
+            if (i % 5 == 0) {
+                expenseService.deleteExpense(expenseId, userId);
+            } else if (i % 4 == 0) {
+                // Moved to the month before, which has no budget
+                RecordUpdate update = new RecordUpdate(null, null, month.minusMonths(1).atDay(15), new BigDecimal("3.00"), RecordUpdate.DATE | RecordUpdate.AMOUNT);
+                expenseService.updateExpense(expenseId, update, userId, null);
+            } else {
+                expenseService.updateExpense(expenseId, new RecordUpdate(null, null, null, new BigDecimal("3.25"), RecordUpdate.AMOUNT), userId, null);
+                contributed = contributed.add(new BigDecimal("3.25"));
+            }
+        }
+        return contributed;
+    }
+
+    private BigDecimal spentAmount(YearMonth yearMonth) {
+        return jdbcTemplate.queryForObject("SELECT spent_amount FROM monthly_budget WHERE user_id = ? AND year_month = ?",
+                BigDecimal.class, userId, YearMonthAttributeConverter.toInteger(yearMonth));
+    }
+
+    private BigDecimal sumOfExpenses(YearMonth yearMonth) {
+        return jdbcTemplate.queryForObject("""
+                SELECT coalesce(sum(amount), 0) FROM expense
+                WHERE user_id = ? AND category_id = ? AND date BETWEEN ? AND ?""",
+                BigDecimal.class, userId, categoryId, yearMonth.atDay(1), yearMonth.atEndOfMonth());
+    }
+}
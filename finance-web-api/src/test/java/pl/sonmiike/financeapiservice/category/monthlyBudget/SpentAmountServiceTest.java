@@ -0,0 +1,89 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.mockito.Mockito.*;
+
+class SpentAmountServiceTest {
+
+    private MonthlyBudgetRepository monthlyBudgetRepository;
+    private SpentAmountService spentAmountService;
+
+    @BeforeEach
+    void setUp() {
+        monthlyBudgetRepository = mock(MonthlyBudgetRepository.class);
+        spentAmountService = new SpentAmountService(monthlyBudgetRepository);
+    }
+
+    @Test
+    void expenseAdded_MovesBudgetOfItsMonth() {
+        spentAmountService.expenseAdded(1L, 5L, LocalDate.of(2024, 3, 31), new BigDecimal("12.50"));
+
+        verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 3), new BigDecimal("12.50"));
+    }
+
+    @Test
+    void expenseRemoved_AppliesNegativeDelta() {
+        spentAmountService.expenseRemoved(1L, 5L, LocalDate.of(2024, 3, 1), new BigDecimal("12.50"));
+
+        verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 3), new BigDecimal("-12.50"));
+    }
+
+    @Test
+    void apply_SendsOneUpdatePerCategoryAndMonth() {
+        SpentAmountDeltas deltas = new SpentAmountDeltas()
+                .add(5L, LocalDate.of(2024, 3, 1), new BigDecimal("10.00"))
+                .add(5L, LocalDate.of(2024, 3, 20), new BigDecimal("2.50"))
+                .add(5L, LocalDate.of(2024, 4, 1), new BigDecimal("1.00"))
+                .add(6L, LocalDate.of(2024, 3, 1), new BigDecimal("4.00"));
+
+        spentAmountService.apply(1L, deltas);
+
+        verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 3), new BigDecimal("12.50"));
+        verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 4), new BigDecimal("1.00"));
+        verify(monthlyBudgetRepository).addToSpentAmount(1L, 6L, YearMonth.of(2024, 3), new BigDecimal("4.00"));
+        verifyNoMoreInteractions(monthlyBudgetRepository);
+    }
+
+    @Test
+    void apply_UpdatesBudgetsOrderedByCategoryAndMonth() {
+        // Moving an expense back a month and to another category, added in the reverse of the lock order
+        SpentAmountDeltas deltas = new SpentAmountDeltas()
+                .subtract(6L, LocalDate.of(2024, 4, 2), new BigDecimal("3.00"))
+                .add(5L, LocalDate.of(2024, 4, 2), new BigDecimal("1.00"))
+                .add(5L, LocalDate.of(2024, 3, 2), new BigDecimal("2.00"));
+
+        spentAmountService.apply(1L, deltas);
+
+        InOrder inOrder = inOrder(monthlyBudgetRepository);
+        inOrder.verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 3), new BigDecimal("2.00"));
+        inOrder.verify(monthlyBudgetRepository).addToSpentAmount(1L, 5L, YearMonth.of(2024, 4), new BigDecimal("1.00"));
+        inOrder.verify(monthlyBudgetRepository).addToSpentAmount(1L, 6L, YearMonth.of(2024, 4), new BigDecimal("-3.00"));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void apply_SkipsDeltasThatCancelOut() {
+        // An amount edit within the same month that keeps the amount
+        SpentAmountDeltas deltas = new SpentAmountDeltas()
+                .subtract(5L, LocalDate.of(2024, 3, 1), new BigDecimal("7.00"))
+                .add(5L, LocalDate.of(2024, 3, 9), new BigDecimal("7.00"));
+
+        spentAmountService.apply(1L, deltas);
+
+        verifyNoInteractions(monthlyBudgetRepository);
+    }
+
+    @Test
+    void categoryCleared_ResetsAllBudgetsOfCategory() {
+        spentAmountService.categoryCleared(1L, 5L);
+
+        verify(monthlyBudgetRepository).resetSpentAmounts(1L, 5L);
+    }
+}
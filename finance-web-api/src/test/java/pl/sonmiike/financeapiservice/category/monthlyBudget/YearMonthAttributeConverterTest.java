@@ -0,0 +1,25 @@
+package pl.sonmiike.financeapiservice.category.monthlyBudget;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YearMonthAttributeConverterTest {
+
+    private final YearMonthAttributeConverter converter = new YearMonthAttributeConverter();
+
+    @Test
+    void yearMonth_IsStoredAsSortableInteger() {
+        assertEquals(202403, converter.convertToDatabaseColumn(YearMonth.of(2024, 3)));
+        assertEquals(YearMonth.of(2024, 12), converter.convertToEntityAttribute(202412));
+        assertTrue(converter.convertToDatabaseColumn(YearMonth.of(2023, 12)) < converter.convertToDatabaseColumn(YearMonth.of(2024, 1)));
+    }
+
+    @Test
+    void null_IsStoredAsNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
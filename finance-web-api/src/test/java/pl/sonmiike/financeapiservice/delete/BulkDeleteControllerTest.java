@@ -0,0 +1,87 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BulkDeleteController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class BulkDeleteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
+    @MockBean
+    private AuthService authService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void deleteExpenses_ByIds_ReturnsDeletedCount() throws Exception {
+        BulkDeleteResultDTO result = new BulkDeleteResultDTO();
+        result.setDeleted(2);
+        result.setChunksCommitted(1);
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(bulkDeleteService.delete(RecordType.EXPENSE, 1L, BulkDeleteRequestDTO.builder().ids(List.of(4L, 5L)).build()))
+                .thenReturn(result);
+
+        mockMvc.perform(post("/me/expenses/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[4,5]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.failure").doesNotExist());
+    }
+
+    @Test
+    void deleteIncomes_ByRange_PassesDates() throws Exception {
+        BulkDeleteRequestDTO request = BulkDeleteRequestDTO.builder()
+                .dateFrom(LocalDate.of(2024, 3, 1)).dateTo(LocalDate.of(2024, 3, 31)).build();
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(bulkDeleteService.delete(RecordType.INCOME, 1L, request)).thenReturn(new BulkDeleteResultDTO());
+
+        mockMvc.perform(post("/me/income/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dateFrom\":\"2024-03-01\",\"dateTo\":\"2024-03-31\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(0));
+    }
+
+    @Test
+    void deleteExpenses_InvalidRequest_ReturnsBadRequest() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(bulkDeleteService.delete(eq(RecordType.EXPENSE), eq(1L), any()))
+                .thenThrow(new InvalidRequestException("Either ids or a date range must be given"));
+
+        mockMvc.perform(post("/me/expenses/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,132 @@
+package pl.sonmiike.financeapiservice.delete;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountDeltas;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkDeleteServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private JdbcTemplate jdbcTemplate;
+    private RecordCountService recordCountService;
+    private SpentAmountService spentAmountService;
+    private ExpenseNameSuggestions expenseNameSuggestions;
+    private BulkDeleteService bulkDeleteService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        recordCountService = mock(RecordCountService.class);
+        expenseNameSuggestions = mock(ExpenseNameSuggestions.class);
+        spentAmountService = mock(SpentAmountService.class);
+        bulkDeleteService = new BulkDeleteService(jdbcTemplate, transactionTemplate, recordCountService, spentAmountService, expenseNameSuggestions, 2);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    // Stubs the RETURNING rows of one expense DELETE as (category_id, date, amount)
+    private void returning(String sql, Object... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < rows.length; i += 3) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getLong(1)).thenReturn((Long) rows[i]);
+                when(row.getObject(2, LocalDate.class)).thenReturn((LocalDate) rows[i + 1]);
+                when(row.getBigDecimal(3)).thenReturn((BigDecimal) rows[i + 2]);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(sql), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void deleteExpensesByIds_OneStatementPerChunkAndCountsPerCategory() {
+        LocalDate march = LocalDate.of(2024, 3, 5);
+        String firstChunk = "DELETE FROM expense WHERE user_id = ? AND id IN (?, ?) RETURNING category_id, date, amount";
+        String secondChunk = "DELETE FROM expense WHERE user_id = ? AND id IN (?) RETURNING category_id, date, amount";
+        returning(firstChunk, 10L, march, new BigDecimal("4.50"), 20L, march, BigDecimal.ONE);
+        returning(secondChunk, 10L, march.plusDays(1), new BigDecimal("2.00"));
+
+        BulkDeleteResultDTO result = bulkDeleteService.delete(RecordType.EXPENSE, USER_ID,
+                BulkDeleteRequestDTO.builder().ids(Arrays.asList(5L, 6L, 6L, null, 7L)).build());
+
+        assertEquals(3, result.getDeleted());
+        assertEquals(2, result.getChunksCommitted());
+        verify(jdbcTemplate).query(eq(firstChunk), any(RowCallbackHandler.class), eq(USER_ID), eq(5L), eq(6L));
+        verify(jdbcTemplate).query(eq(secondChunk), any(RowCallbackHandler.class), eq(USER_ID), eq(7L));
+        verify(recordCountService, times(2)).expensesRemoved(USER_ID, 10L, 1L);
+        verify(recordCountService).expensesRemoved(USER_ID, 20L, 1L);
+        verify(spentAmountService, times(2)).apply(eq(USER_ID), any(SpentAmountDeltas.class));
+        verify(expenseNameSuggestions).invalidate(USER_ID);
+    }
+
+    @Test
+    void deleteIncomesByRange_RepeatsUntilChunkComesBackShort() {
+        String sql = "DELETE FROM income WHERE user_user_id = ? AND id IN "
+                + "(SELECT id FROM income WHERE user_user_id = ? AND income_date >= ? LIMIT 2)";
+        when(jdbcTemplate.update(eq(sql), any(Object[].class))).thenReturn(2, 2, 1);
+
+        BulkDeleteResultDTO result = bulkDeleteService.delete(RecordType.INCOME, USER_ID,
+                BulkDeleteRequestDTO.builder().dateFrom(LocalDate.of(2024, 3, 1)).build());
+
+        assertEquals(5, result.getDeleted());
+        assertEquals(3, result.getChunksCommitted());
+        verify(jdbcTemplate, times(3)).update(sql, USER_ID, USER_ID, LocalDate.of(2024, 3, 1));
+        verify(recordCountService, times(2)).incomesRemoved(USER_ID, 2);
+        verify(recordCountService).incomesRemoved(USER_ID, 1);
+        verifyNoInteractions(expenseNameSuggestions);
+    }
+
+    @Test
+    void failedChunk_StopsAndReportsWhatWasDeleted() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenReturn(2)
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        BulkDeleteResultDTO result = bulkDeleteService.delete(RecordType.INCOME, USER_ID,
+                BulkDeleteRequestDTO.builder().dateFrom(LocalDate.of(2024, 1, 1)).dateTo(LocalDate.of(2024, 12, 31)).build());
+
+        assertEquals(2, result.getDeleted());
+        assertEquals(1, result.getChunksCommitted());
+        assertNotNull(result.getFailure());
+    }
+
+    @Test
+    void invalidRequests_AreRejectedBeforeDeleting() {
+        List<Long> tooMany = LongStream.rangeClosed(1, BulkDeleteService.MAX_IDS + 1).boxed().toList();
+        for (BulkDeleteRequestDTO request : List.of(
+                new BulkDeleteRequestDTO(),
+                BulkDeleteRequestDTO.builder().ids(List.of(1L)).dateFrom(LocalDate.now()).build(),
+                BulkDeleteRequestDTO.builder().ids(List.of()).build(),
+                BulkDeleteRequestDTO.builder().ids(tooMany).build(),
+                BulkDeleteRequestDTO.builder().dateFrom(LocalDate.of(2024, 2, 1)).dateTo(LocalDate.of(2024, 1, 1)).build())) {
+            assertThrows(InvalidRequestException.class, () -> bulkDeleteService.delete(RecordType.EXPENSE, USER_ID, request));
+        }
+        verifyNoInteractions(jdbcTemplate, recordCountService);
+    }
+}
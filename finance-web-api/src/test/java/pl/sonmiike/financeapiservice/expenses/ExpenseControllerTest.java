@@ -14,8 +14,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.sonmiike.financeapiservice.category.Category;
 import pl.sonmiike.financeapiservice.category.UserCategoryRepository;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
 import pl.sonmiike.financeapiservice.security.auth.AuthService;
 import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -23,8 +29,10 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ExpenseController.class)
@@ -44,6 +52,9 @@ class ExpenseControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @MockBean
     private UserCategoryRepository userCategoryRepository;
 
@@ -55,7 +66,7 @@ class ExpenseControllerTest {
 
     @BeforeEach
     void setUp() {
-        expenseDTO = ExpenseDTO.builder().id(1L).name("Groceries").date(LocalDate.now().toString()).amount(BigDecimal.valueOf(100).toString()).build();
+        expenseDTO = ExpenseDTO.builder().id(1L).name("Groceries").date(LocalDate.now().toString()).amount(BigDecimal.valueOf(100).toString()).version(4L).build();
         pagedExpensesDTO = PagedExpensesDTO.builder().page(0).totalPages(1).expenses(List.of(expenseDTO)).build();
     }
 
@@ -63,7 +74,7 @@ class ExpenseControllerTest {
     void getUserExpenses_ReturnsExpenses() throws Exception {
         Long userId = 1L;
         Mockito.when(authService.getUserId(any())).thenReturn(userId);
-        Mockito.when(expenseService.getUserExpenses(userId, 0, 10)).thenReturn(pagedExpensesDTO);
+        Mockito.when(expenseService.getUserExpenses(userId, 0, 10, true)).thenReturn(pagedExpensesDTO);
 
         mockMvc.perform(get("/me/expenses")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -75,13 +86,44 @@ class ExpenseControllerTest {
         Long userId = 1L;
         Long categoryId = 2L;
         Mockito.when(authService.getUserId(any())).thenReturn(userId);
-        Mockito.when(expenseService.getUserExpensesByCategory(userId, categoryId, 0, 10)).thenReturn(pagedExpensesDTO);
+        Mockito.when(expenseService.getUserExpensesByCategory(userId, categoryId, 0, 10, true)).thenReturn(pagedExpensesDTO);
 
         mockMvc.perform(get("/me/expenses/category/{categoryId}", categoryId)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getUserExpenses_WithCursor_ReturnsCursorPage() throws Exception {
+        Long userId = 1L;
+        CursorPageDTO<ExpenseDTO> cursorPage = CursorPageDTO.<ExpenseDTO>builder().items(List.of(expenseDTO)).build();
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(expenseService.getUserExpenses(userId, "abc", 20)).thenReturn(cursorPage);
+
+        mockMvc.perform(get("/me/expenses")
+                        .param("cursor", "abc")
+                        .param("size", "20")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Groceries"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getUserExpensesByCategory_WithCursor_ReturnsCursorPage() throws Exception {
+        Long userId = 1L;
+        Long categoryId = 2L;
+        CursorPageDTO<ExpenseDTO> cursorPage = CursorPageDTO.<ExpenseDTO>builder().items(List.of(expenseDTO)).nextCursor("next").build();
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(expenseService.getUserExpensesByCategory(userId, categoryId, "", 10)).thenReturn(cursorPage);
+
+        mockMvc.perform(get("/me/expenses/category/{categoryId}", categoryId)
+                        .param("cursor", "")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
     @Test
     void getExpenseById_ReturnsExpense() throws Exception {
         Long userId = 1L;
@@ -91,7 +133,73 @@ class ExpenseControllerTest {
 
         mockMvc.perform(get("/me/expenses/{expenseId}", expenseId)
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateExpense_ReplacesFieldsAndReturnsNewETag() throws Exception {
+        AddExpesneDTO body = new AddExpesneDTO("Groceries", "Weekly", LocalDate.of(2024, 5, 1), new BigDecimal("120.50"));
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(expenseService.updateExpense(3L, RecordUpdate.replacing("Groceries", "Weekly", LocalDate.of(2024, 5, 1), new BigDecimal("120.50")), 1L, 4L))
+                .thenReturn(5L);
+
+        mockMvc.perform(put("/me/expenses/{expenseId}", 3L)
+                        .header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"5\""));
+    }
+
+    @Test
+    void updateExpense_WithoutIfMatch_Returns428() throws Exception {
+        AddExpesneDTO body = new AddExpesneDTO("Groceries", "Weekly", LocalDate.of(2024, 5, 1), new BigDecimal("120.50"));
+
+        mockMvc.perform(put("/me/expenses/{expenseId}", 3L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isPreconditionRequired());
+
+        Mockito.verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void patchExpense_WildcardIfMatch_UpdatesAnyVersion() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(expenseService.updateExpense(3L, new RecordUpdate("Bakery", null, null, null, RecordUpdate.NAME), 1L, null))
+                .thenReturn(9L);
+
+        mockMvc.perform(patch("/me/expenses/{expenseId}", 3L)
+                        .header("If-Match", "*")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Bakery\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"9\""));
+    }
+
+    @Test
+    void patchExpense_StaleVersion_Returns412() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(expenseService.updateExpense(eq(3L), any(RecordUpdate.class), eq(1L), eq(3L)))
+                .thenThrow(new PreconditionFailedException("The record was changed in the meantime, its current ETag is \"4\""));
+
+        mockMvc.perform(patch("/me/expenses/{expenseId}", 3L)
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"amount\":\"15.00\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void patchExpense_CategoryInPatch_Returns400() throws Exception {
+        mockMvc.perform(patch("/me/expenses/{expenseId}", 3L)
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"categoryId\":2}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(expenseService);
     }
 
     @Test
@@ -99,7 +207,7 @@ class ExpenseControllerTest {
         Long userId = 1L;
         Mockito.when(authService.getUserId(any())).thenReturn(userId);
 
-        Mockito.when(expenseService.findExpensesWithFilters(anyString(), any(), any(), any(), any(), any())).thenReturn(pagedExpensesDTO);
+        Mockito.when(expenseService.findExpensesWithFilters(eq(new RecordFilter(userId, "food", null, null, null, null)), any())).thenReturn(pagedExpensesDTO);
 
         mockMvc.perform(get("/me/expenses/filter")
                         .param("keyword", "food")
@@ -107,6 +215,33 @@ class ExpenseControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void searchExpenses_ReturnsRankedMatches() throws Exception {
+        Long userId = 1L;
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(expenseService.searchExpenses(userId, "coffee", 20)).thenReturn(List.of(ExpenseDTO.builder().id(7L).build()));
+
+        mockMvc.perform(get("/me/expenses/search")
+                        .param("q", "coffee")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7));
+    }
+
+    @Test
+    void suggestExpenseNames_ReturnsSuggestionsForPrefix() throws Exception {
+        Long userId = 1L;
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(expenseService.suggestExpenseNames(userId, "co", 10)).thenReturn(List.of("Coffee", "Cola"));
+
+        mockMvc.perform(get("/me/expenses/suggestions")
+                        .param("prefix", "co")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Coffee"))
+                .andExpect(jsonPath("$[1]").value("Cola"));
+    }
+
     @Test
     void createExpense_CreatesExpense() throws Exception {
         Long userId = 1L;
@@ -121,32 +256,53 @@ class ExpenseControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void createExpenses_ReturnsPerItemResults() throws Exception {
+        Long userId = 1L;
+        List<AddExpenseBatchItemDTO> items = List.of(
+                new AddExpenseBatchItemDTO(2L, "Groceries", "Walmart", LocalDate.of(2024, 5, 1), BigDecimal.TEN),
+                new AddExpenseBatchItemDTO(9L, "Cinema", "Tickets", LocalDate.of(2024, 5, 2), BigDecimal.ONE));
+        ExpenseBatchResultDTO result = new ExpenseBatchResultDTO(1, 1, List.of(
+                new ExpenseBatchResultDTO.ItemResult(0, 40L, null),
+                new ExpenseBatchResultDTO.ItemResult(1, null, "User does not have category with that id assigned")));
+        Mockito.when(authService.getUserId(Mockito.any())).thenReturn(userId);
+        Mockito.when(expenseService.createExpenses(items, userId)).thenReturn(result);
+
+        mockMvc.perform(post("/me/expenses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].id").value(40))
+                .andExpect(jsonPath("$.results[1].error").value("User does not have category with that id assigned"));
+    }
+
     @Test
     void deleteExpense_DeletesExpense() throws Exception {
         Long userId = 1L;
         Long expenseId = 3L;
-        expenseDTO.setUserId(userId);
         Mockito.when(authService.getUserId(Mockito.any())).thenReturn(userId);
-        Mockito.when(expenseService.getExpenseById(expenseId, userId)).thenReturn(expenseDTO);
         Mockito.doNothing().when(expenseService).deleteExpense(expenseId, userId);
 
         mockMvc.perform(delete("/me/expenses/{expenseId}", expenseId)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
+
+        Mockito.verify(expenseService).deleteExpense(expenseId, userId);
+        Mockito.verify(expenseService, Mockito.never()).getExpenseById(any(), any());
     }
 
     @Test
     void deleteExpense_DeletesExpenseThatExistsNotForThisUser() throws Exception {
         Long userId = 1L;
         Long expenseId = 3L;
-        expenseDTO.setUserId(3L);
         Mockito.when(authService.getUserId(Mockito.any())).thenReturn(userId);
-        Mockito.when(expenseService.getExpenseById(expenseId, userId)).thenReturn(expenseDTO);
-        Mockito.doNothing().when(expenseService).deleteExpense(expenseId, userId);
+        Mockito.doThrow(new ResourceNotFoundException("Expense with that id not found in database"))
+                .when(expenseService).deleteExpense(expenseId, userId);
 
         mockMvc.perform(delete("/me/expenses/{expenseId}", expenseId)
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isForbidden());
+                .andExpect(status().isNotFound());
     }
 
 
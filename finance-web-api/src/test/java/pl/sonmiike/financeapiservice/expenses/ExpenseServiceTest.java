@@ -1,26 +1,45 @@
 package pl.sonmiike.financeapiservice.expenses;
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.SliceImpl;
 import pl.sonmiike.financeapiservice.category.Category;
 import pl.sonmiike.financeapiservice.category.CategoryService;
 import pl.sonmiike.financeapiservice.category.UserCategory;
 import pl.sonmiike.financeapiservice.category.UserCategoryRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountDeltas;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
 import pl.sonmiike.financeapiservice.exceptions.custom.IdNotMatchingException;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
+import pl.sonmiike.financeapiservice.pagination.UserScopedFilterEngine;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+import pl.sonmiike.financeapiservice.search.RecordSearchService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
+import pl.sonmiike.financeapiservice.update.RecordUpdateEngine;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,7 +57,21 @@ class ExpenseServiceTest {
     @Mock
     private CategoryService categoryService;
     @Mock
+    private RecordCountService recordCountService;
+    @Mock
+    private SpentAmountService spentAmountService;
+    @Mock
+    private UserScopedFilterEngine filterEngine;
+    @Mock
+    private RecordSearchService recordSearchService;
+    @Mock
+    private ExpenseNameSuggestions expenseNameSuggestions;
+    @Mock
+    private RecordUpdateEngine recordUpdateEngine;
+    @Mock
     private ExpenseMapper expenseMapper;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
 
     @InjectMocks
@@ -46,6 +79,8 @@ class ExpenseServiceTest {
 
     @Captor
     private ArgumentCaptor<Expense> expenseCaptor;
+    @Captor
+    private ArgumentCaptor<Page<ExpenseDTO>> pageCaptor;
 
 
     private AutoCloseable openMocks;
@@ -67,19 +102,50 @@ class ExpenseServiceTest {
         Long userId = 1L;
         int page = 0;
         int size = 10;
-        Expense mockExpense = mock(Expense.class);
-
-        Page<Expense> expensePage = new PageImpl<>(Collections.singletonList(mockExpense));
+        Page<ExpenseDTO> expensePage = new PageImpl<>(Collections.singletonList(new ExpenseDTO()));
 
         PagedExpensesDTO mockPagedExpensesDTO = mock(PagedExpensesDTO.class);
 
-        when(expenseRepository.findExpenseByUserUserId(eq(userId), any(PageRequest.class))).thenReturn(expensePage);
+        when(expenseRepository.findDtosByUserUserId(eq(userId), any(PageRequest.class))).thenReturn(expensePage);
         when(expenseMapper.toPagedDTO(any(Page.class))).thenReturn(mockPagedExpensesDTO);
 
-        PagedExpensesDTO result = expenseService.getUserExpenses(userId, page, size);
+        PagedExpensesDTO result = expenseService.getUserExpenses(userId, page, size, true);
         assertEquals(mockPagedExpensesDTO, result);
-        verify(expenseRepository).findExpenseByUserUserId(eq(userId), eq(PageRequest.of(page, size)));
-        verify(expenseMapper).toPagedDTO(expensePage);
+        verify(expenseRepository).findDtosByUserUserId(eq(userId), eq(PageRequest.of(page, size)));
+        verify(expenseMapper).toPagedDTO(any(Page.class));
+        // A partial first page is its own total
+        verifyNoInteractions(recordCountService, spentAmountService);
+    }
+
+    @Test
+    void getUserExpenses_FullPage_TotalComesFromRecordCount() {
+        Long userId = 1L;
+        PageRequest pageRequest = PageRequest.of(2, 10);
+        List<ExpenseDTO> expenses = Collections.nCopies(10, new ExpenseDTO());
+
+        when(expenseRepository.findDtosByUserUserId(userId, pageRequest)).thenReturn(new SliceImpl<>(expenses, pageRequest, true));
+        when(recordCountService.countExpenses(userId)).thenReturn(57L);
+
+        expenseService.getUserExpenses(userId, 2, 10, true);
+
+        verify(expenseMapper).toPagedDTO(pageCaptor.capture());
+        assertEquals(57L, pageCaptor.getValue().getTotalElements());
+        assertEquals(6, pageCaptor.getValue().getTotalPages());
+    }
+
+    @Test
+    void getUserExpenses_WithoutTotal_ReturnsSlice() {
+        Long userId = 1L;
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        SliceImpl<ExpenseDTO> slice = new SliceImpl<>(Collections.nCopies(10, new ExpenseDTO()), pageRequest, true);
+        PagedExpensesDTO expectedDto = PagedExpensesDTO.builder().hasNext(true).build();
+
+        when(expenseRepository.findDtosByUserUserId(userId, pageRequest)).thenReturn(slice);
+        when(expenseMapper.toSlicedDTO(slice)).thenReturn(expectedDto);
+
+        assertSame(expectedDto, expenseService.getUserExpenses(userId, 0, 10, false));
+        verify(expenseMapper, never()).toPagedDTO(any());
+        verifyNoInteractions(recordCountService);
     }
 
 
@@ -90,37 +156,69 @@ class ExpenseServiceTest {
         int page = 0;
         int size = 10;
 
-        Expense testExpense = new Expense();
-        Page<Expense> expensePage = new PageImpl<>(Collections.singletonList(testExpense), PageRequest.of(page, size), 1);
+        Page<ExpenseDTO> expensePage = new PageImpl<>(Collections.singletonList(new ExpenseDTO()), PageRequest.of(page, size), 1);
 
         PagedExpensesDTO expectedDto = mock(PagedExpensesDTO.class);
 
-        when(expenseRepository.findExpenseByUserUserIdAndCategoryId(eq(userId), eq(categoryId), any(PageRequest.class))).thenReturn(expensePage);
+        when(expenseRepository.findDtosByUserUserIdAndCategoryId(eq(userId), eq(categoryId), any(PageRequest.class))).thenReturn(expensePage);
         when(expenseMapper.toPagedDTO(any(Page.class))).thenReturn(expectedDto);
 
-        PagedExpensesDTO result = expenseService.getUserExpensesByCategory(userId, categoryId, page, size);
+        PagedExpensesDTO result = expenseService.getUserExpensesByCategory(userId, categoryId, page, size, true);
 
         assertEquals(expectedDto, result);
-        verify(expenseRepository).findExpenseByUserUserIdAndCategoryId(eq(userId), eq(categoryId), eq(PageRequest.of(page, size)));
-        verify(expenseMapper).toPagedDTO(expensePage);
+        verify(expenseRepository).findDtosByUserUserIdAndCategoryId(eq(userId), eq(categoryId), eq(PageRequest.of(page, size)));
+        verify(expenseMapper).toPagedDTO(any(Page.class));
+    }
+
+    @Test
+    void getUserExpenses_WithoutCursor_SeeksFromTheNewestExpense() {
+        Long userId = 1L;
+        List<ExpenseDTO> expenses = List.of(new ExpenseDTO());
+        CursorPageDTO<ExpenseDTO> expectedDto = CursorPageDTO.<ExpenseDTO>builder().build();
+
+        when(expenseRepository.findDtosByUserUserId(userId, Limit.of(11))).thenReturn(expenses);
+        when(expenseMapper.toCursorPageDTO(expenses, 10)).thenReturn(expectedDto);
+
+        assertSame(expectedDto, expenseService.getUserExpenses(userId, "", 10));
+        verify(expenseRepository, never()).findDtosByUserUserIdAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void getUserExpensesByCategory_WithCursor_SeeksPastCursorPosition() {
+        Long userId = 1L;
+        Long categoryId = 2L;
+        Cursor cursor = new Cursor(LocalDate.of(2024, 2, 1), 77L);
+        List<ExpenseDTO> expenses = List.of(new ExpenseDTO());
+        CursorPageDTO<ExpenseDTO> expectedDto = CursorPageDTO.<ExpenseDTO>builder().build();
+
+        when(expenseRepository.findDtosByUserUserIdAndCategoryIdAfter(userId, categoryId, cursor.date(), cursor.id(), Limit.of(6))).thenReturn(expenses);
+        when(expenseMapper.toCursorPageDTO(expenses, 5)).thenReturn(expectedDto);
+
+        assertSame(expectedDto, expenseService.getUserExpensesByCategory(userId, categoryId, cursor.encode(), 5));
+        verify(expenseRepository, never()).findDtosByUserUserIdAndCategoryId(any(), any(), any(PageRequest.class));
+    }
+
+    @Test
+    void getUserExpenses_InvalidCursor_ThrowsException() {
+        assertThrows(InvalidRequestException.class, () -> expenseService.getUserExpenses(1L, "%%%", 10));
+        verifyNoInteractions(expenseRepository);
     }
 
     @Test
     void testGetExpenseById_Success() {
         Long id = 1L;
         Long userId = 1L;
-        Expense testExpense = new Expense();
         ExpenseDTO expectedDto = new ExpenseDTO();
 
-        when(expenseRepository.findByIdAndUserUserId(eq(id), eq(userId))).thenReturn(Optional.of(testExpense));
-        when(expenseMapper.toDTO(any(Expense.class))).thenReturn(expectedDto);
+        when(expenseRepository.findDtoByIdAndUserUserId(eq(id), eq(userId))).thenReturn(Optional.of(expectedDto));
 
         ExpenseDTO result = expenseService.getExpenseById(id, userId);
 
         assertNotNull(result, "The result should not be null.");
         assertEquals(expectedDto, result, "The returned DTO should match the expected DTO.");
-        verify(expenseRepository).findByIdAndUserUserId(id, userId);
-        verify(expenseMapper).toDTO(testExpense);
+        verify(expenseRepository).findDtoByIdAndUserUserId(id, userId);
+        verify(expenseRepository, never()).findByIdAndUserUserId(any(), any());
+        verifyNoInteractions(expenseMapper);
     }
 
     @Test
@@ -128,11 +226,11 @@ class ExpenseServiceTest {
         Long id = 1L;
         Long userId = 1L;
 
-        when(expenseRepository.findByIdAndUserUserId(eq(id), eq(userId))).thenReturn(Optional.empty());
+        when(expenseRepository.findDtoByIdAndUserUserId(eq(id), eq(userId))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> expenseService.getExpenseById(id, userId), "Expected getExpenseById to throw, but it didn't");
 
-        verify(expenseRepository).findByIdAndUserUserId(id, userId);
+        verify(expenseRepository).findDtoByIdAndUserUserId(id, userId);
         verify(expenseMapper, never()).toDTO(any(Expense.class));
     }
 
@@ -140,7 +238,7 @@ class ExpenseServiceTest {
     void createExpense_SuccessfulCreation() {
         Long userId = 1L, categoryId = 1L;
         AddExpesneDTO expenseDTO = new AddExpesneDTO("apteka", "leki", LocalDate.now(), BigDecimal.valueOf(150));
-        Expense expense = new Expense(1L, "apteka", "leki", LocalDate.now(), BigDecimal.valueOf(150), null, null);
+        Expense expense = new Expense(1L, "apteka", "leki", LocalDate.now(), BigDecimal.valueOf(150), null, null, 0);
 
         UserCategory userCategory = new UserCategory();
         when(userCategoryRepository.existsByUserUserIdAndCategoryId(userId, categoryId)).thenReturn(true);
@@ -153,6 +251,52 @@ class ExpenseServiceTest {
         expenseService.createExpense(expenseDTO, userId, categoryId);
 
         verify(expenseRepository).save(any(Expense.class));
+        verify(recordCountService).expensesAdded(userId, categoryId, 1);
+        verify(spentAmountService).expenseAdded(userId, categoryId, expense.getDate(), BigDecimal.valueOf(150));
+        verify(expenseNameSuggestions).nameAdded(userId, "apteka");
+    }
+
+    @Test
+    void createExpenses_ChecksCategoriesOnceAndReportsEachItem() {
+        Long userId = 1L;
+        AddExpenseBatchItemDTO valid = new AddExpenseBatchItemDTO(2L, "apteka", "leki", LocalDate.now(), BigDecimal.TEN);
+        AddExpenseBatchItemDTO foreignCategory = new AddExpenseBatchItemDTO(3L, "kino", "bilety", LocalDate.now(), BigDecimal.ONE);
+        AddExpenseBatchItemDTO invalid = new AddExpenseBatchItemDTO(2L, "", "pusta nazwa", LocalDate.now(), BigDecimal.ONE);
+        Category category = Category.builder().id(2L).build();
+
+        when(userCategoryRepository.findAssignedCategoryIds(userId, Set.of(2L, 3L))).thenReturn(Set.of(2L));
+        when(userService.getUserReference(userId)).thenReturn(UserEntity.builder().userId(userId).build());
+        when(categoryService.getCategoryReference(2L)).thenReturn(category);
+        when(expenseMapper.toEntity(valid)).thenReturn(Expense.builder().name("apteka").date(valid.getDate()).amount(BigDecimal.TEN).build());
+        when(expenseRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Expense> saved = invocation.getArgument(0);
+            saved.forEach(expense -> expense.setId(40L));
+            return saved;
+        });
+
+        ExpenseBatchResultDTO result = expenseService.createExpenses(List.of(valid, foreignCategory, invalid), userId);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getRejected());
+        assertEquals(new ExpenseBatchResultDTO.ItemResult(0, 40L, null), result.getResults().get(0));
+        assertEquals("User does not have category with that id assigned", result.getResults().get(1).error());
+        assertTrue(result.getResults().get(2).error().startsWith("name: "));
+        verify(userCategoryRepository, never()).existsByUserUserIdAndCategoryId(any(), any());
+        verify(userService, never()).getUserById(any());
+        verify(recordCountService).expensesAdded(userId, 2L, 1);
+        ArgumentCaptor<SpentAmountDeltas> spent = ArgumentCaptor.forClass(SpentAmountDeltas.class);
+        verify(spentAmountService).apply(eq(userId), spent.capture());
+        assertEquals(BigDecimal.TEN, spent.getValue().get(2L, YearMonth.from(valid.getDate())));
+        verify(expenseNameSuggestions).namesAdded(userId, List.of("apteka"));
+    }
+
+    @Test
+    void createExpenses_RejectsBatchOverLimit() {
+        List<AddExpenseBatchItemDTO> items = Collections.nCopies(ExpenseService.MAX_BATCH_SIZE + 1, new AddExpenseBatchItemDTO());
+
+        assertThrows(InvalidRequestException.class, () -> expenseService.createExpenses(items, 1L));
+        assertThrows(InvalidRequestException.class, () -> expenseService.createExpenses(List.of(), 1L));
+        verifyNoInteractions(expenseRepository, userCategoryRepository);
     }
 
     @Test
@@ -169,6 +313,7 @@ class ExpenseServiceTest {
 
     @Test
     void findExpensesWithFilters_AllFilters() {
+        Long userId = 1L;
         String keyword = "test";
         LocalDate dateFrom = LocalDate.of(2020, 1, 1);
         LocalDate dateTo = LocalDate.of(2020, 12, 31);
@@ -176,52 +321,108 @@ class ExpenseServiceTest {
         BigDecimal amountTo = BigDecimal.valueOf(500);
         PageRequest pageable = PageRequest.of(0, 10);
 
-        Expense testExpense = new Expense(); // Assuming a suitable constructor or setters
-        PageImpl<Expense> pagedExpenses = new PageImpl<>(Collections.singletonList(testExpense), pageable, 1);
-        PagedExpensesDTO expectedDTO = new PagedExpensesDTO(pagedExpenses.getNumber(), pagedExpenses.getTotalPages(), pagedExpenses.getContent().stream().map(expenseMapper::toDTO).toList());
+        PageImpl<ExpenseDTO> pagedExpenses = new PageImpl<>(Collections.singletonList(new ExpenseDTO()), pageable, 1);
+        PagedExpensesDTO expectedDTO = new PagedExpensesDTO(pagedExpenses.getNumber(), pagedExpenses.getTotalPages(), false, pagedExpenses.getContent());
+
+        RecordFilter filter = new RecordFilter(userId, keyword, dateFrom, dateTo, amountFrom, amountTo);
 
-        when(expenseRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(pagedExpenses);
+        when(filterEngine.findPage(ExpenseService.FILTER_TARGET, filter, pageable)).thenReturn(pagedExpenses);
         when(expenseMapper.toPagedDTO(any())).thenReturn(expectedDTO);
 
-        PagedExpensesDTO result = expenseService.findExpensesWithFilters(keyword, dateFrom, dateTo, amountFrom, amountTo, pageable);
+        PagedExpensesDTO result = expenseService.findExpensesWithFilters(filter, pageable);
 
 
         assertEquals(expectedDTO, result);
-        verify(expenseRepository).findAll(any(Specification.class), eq(pageable));
+        verify(filterEngine).findPage(ExpenseService.FILTER_TARGET, filter, pageable);
         verify(expenseMapper).toPagedDTO(pagedExpenses);
     }
 
     @Test
-    void updateExpense_SuccessfulUpdate() {
-        ExpenseDTO expenseDTO = new ExpenseDTO();
-        expenseDTO.setId(1L);
-        Long userId = 1L;
-        UserEntity user = new UserEntity();
-        user.setUserId(userId);
-        Expense expense = new Expense();
+    void searchExpenses_MapsRankedMatchesInOrder() {
+        Expense first = Expense.builder().id(1L).build();
+        Expense second = Expense.builder().id(2L).build();
+        ExpenseDTO firstDTO = ExpenseDTO.builder().id(1L).build();
+        ExpenseDTO secondDTO = ExpenseDTO.builder().id(2L).build();
 
-        when(expenseRepository.existsById(expenseDTO.getId())).thenReturn(true);
-        when(expenseMapper.toEntity(expenseDTO)).thenReturn(expense);
-        when(userService.getUserById(userId)).thenReturn(user);
+        when(recordSearchService.searchExpenses(1L, "coffe", 20)).thenReturn(List.of(first, second));
+        when(expenseMapper.toDTO(first)).thenReturn(firstDTO);
+        when(expenseMapper.toDTO(second)).thenReturn(secondDTO);
+
+        assertEquals(List.of(firstDTO, secondDTO), expenseService.searchExpenses(1L, "coffe", 20));
+    }
+
+    @Test
+    void updateExpense_DescriptionOnly_RunsSingleUpdate() {
+        RecordUpdate update = new RecordUpdate(null, "Morning", null, null, RecordUpdate.DESCRIPTION);
+        when(recordUpdateEngine.update(ExpenseService.FILTER_TARGET, 5L, 1L, 3L, update)).thenReturn(4L);
 
-        expenseService.updateExpense(expenseDTO, userId);
+        assertEquals(4L, expenseService.updateExpense(5L, update, 1L, 3L));
 
-        verify(expenseRepository).save(expenseCaptor.capture());
-        Expense savedExpense = expenseCaptor.getValue();
-        assertEquals(userId, savedExpense.getUser().getUserId());
+        verifyNoInteractions(expenseRepository, userService, spentAmountService, expenseNameSuggestions);
     }
 
     @Test
-    void updateExpense_ExpenseNotFound_ThrowsException() {
-        ExpenseDTO expenseDTO = new ExpenseDTO();
-        expenseDTO.setId(1L);
-        Long userId = 1L;
+    void updateExpense_Rename_MovesNameInSuggestions() {
+        RecordUpdate update = new RecordUpdate("Coffee", "Morning", null, null, RecordUpdate.NAME | RecordUpdate.DESCRIPTION);
+        when(expenseRepository.findSnapshotByIdAndUserUserId(5L, 1L))
+                .thenReturn(Optional.of(new ExpenseSnapshot(4L, "Tea", LocalDate.of(2024, 5, 30), BigDecimal.ONE, 3L)));
+        when(recordUpdateEngine.update(ExpenseService.FILTER_TARGET, 5L, 1L, 3L, update)).thenReturn(4L);
 
-        when(expenseRepository.existsById(expenseDTO.getId())).thenReturn(false);
+        assertEquals(4L, expenseService.updateExpense(5L, update, 1L, null));
 
-        Exception exception = assertThrows(IdNotMatchingException.class, () -> expenseService.updateExpense(expenseDTO, userId));
+        verify(expenseNameSuggestions).nameChanged(1L, "Tea", "Coffee");
+        verify(expenseNameSuggestions, never()).invalidate(any());
+        verifyNoInteractions(spentAmountService);
+    }
 
-        assertEquals("Expense not found", exception.getMessage());
+    @Test
+    void updateExpense_AmountAndDate_MovesSpentAmountBetweenMonths() {
+        RecordUpdate update = new RecordUpdate(null, null, LocalDate.of(2024, 6, 2), new BigDecimal("12.00"), RecordUpdate.DATE | RecordUpdate.AMOUNT);
+        when(expenseRepository.findSnapshotByIdAndUserUserId(5L, 1L))
+                .thenReturn(Optional.of(new ExpenseSnapshot(4L, "Tea", LocalDate.of(2024, 5, 30), new BigDecimal("10.00"), 3L)));
+        when(recordUpdateEngine.update(ExpenseService.FILTER_TARGET, 5L, 1L, 3L, update)).thenReturn(4L);
+
+        assertEquals(4L, expenseService.updateExpense(5L, update, 1L, 3L));
+
+        ArgumentCaptor<SpentAmountDeltas> deltas = ArgumentCaptor.forClass(SpentAmountDeltas.class);
+        verify(spentAmountService).apply(eq(1L), deltas.capture());
+        assertEquals(new BigDecimal("-10.00"), deltas.getValue().get(4L, YearMonth.of(2024, 5)));
+        assertEquals(new BigDecimal("12.00"), deltas.getValue().get(4L, YearMonth.of(2024, 6)));
+    }
+
+    @Test
+    void updateExpense_WildcardAmountChange_IsGuardedByVersionRead() {
+        RecordUpdate update = new RecordUpdate(null, null, null, BigDecimal.TEN, RecordUpdate.AMOUNT);
+        when(expenseRepository.findSnapshotByIdAndUserUserId(5L, 1L))
+                .thenReturn(Optional.of(new ExpenseSnapshot(4L, "Tea", LocalDate.of(2024, 5, 30), BigDecimal.ONE, 7L)));
+        when(recordUpdateEngine.update(ExpenseService.FILTER_TARGET, 5L, 1L, 7L, update)).thenReturn(8L);
+
+        assertEquals(8L, expenseService.updateExpense(5L, update, 1L, null));
+
+        verifyNoInteractions(expenseNameSuggestions);
+    }
+
+    @Test
+    void updateExpense_StaleVersion_LeavesBudgetsUnchanged() {
+        RecordUpdate update = new RecordUpdate(null, null, null, BigDecimal.TEN, RecordUpdate.AMOUNT);
+        when(expenseRepository.findSnapshotByIdAndUserUserId(5L, 1L))
+                .thenReturn(Optional.of(new ExpenseSnapshot(4L, "Tea", LocalDate.of(2024, 5, 30), BigDecimal.ONE, 7L)));
+        when(recordUpdateEngine.update(ExpenseService.FILTER_TARGET, 5L, 1L, 6L, update))
+                .thenThrow(new PreconditionFailedException("The record was changed in the meantime, its current ETag is \"7\""));
+
+        assertThrows(PreconditionFailedException.class, () -> expenseService.updateExpense(5L, update, 1L, 6L));
+
+        verifyNoInteractions(spentAmountService);
+    }
+
+    @Test
+    void updateExpense_ExpenseNotFound_ThrowsException() {
+        RecordUpdate update = RecordUpdate.replacing("Coffee", "Morning", LocalDate.of(2024, 5, 1), BigDecimal.TEN);
+        when(expenseRepository.findSnapshotByIdAndUserUserId(5L, 1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> expenseService.updateExpense(5L, update, 1L, 3L));
+
+        verifyNoInteractions(recordUpdateEngine, expenseNameSuggestions, spentAmountService);
     }
 
 
@@ -230,9 +431,25 @@ class ExpenseServiceTest {
         Long expenseId = 1L;
         Long userId = 1L;
 
+        Expense expense = Expense.builder().id(expenseId).category(Category.builder().id(4L).build())
+                .date(LocalDate.of(2024, 5, 3)).amount(new BigDecimal("9.99")).build();
+        when(expenseRepository.findByIdAndUserUserId(expenseId, userId)).thenReturn(Optional.of(expense));
+
         expenseService.deleteExpense(expenseId, userId);
 
-        verify(expenseRepository).deleteByIdAndUserUserId(expenseId, userId);
+        verify(expenseRepository).delete(expense);
+        verify(recordCountService).expensesRemoved(userId, 4L, 1);
+        verify(spentAmountService).expenseRemoved(userId, 4L, LocalDate.of(2024, 5, 3), new BigDecimal("9.99"));
+    }
+
+    @Test
+    void deleteExpense_NotFound_LeavesCountsUnchanged() {
+        when(expenseRepository.findByIdAndUserUserId(1L, 1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> expenseService.deleteExpense(1L, 1L));
+
+        verify(expenseRepository, never()).delete(any(Expense.class));
+        verifyNoInteractions(recordCountService);
     }
 
 
@@ -12,8 +12,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
 import pl.sonmiike.financeapiservice.security.auth.AuthService;
 import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,6 +27,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,6 +49,9 @@ public class IncomeControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -50,7 +60,7 @@ public class IncomeControllerTest {
 
     @BeforeEach
     void setUp() {
-        incomeDTO = IncomeDTO.builder().name("Salary").description("Monthly salary").amount(new BigDecimal("1000")).incomeDate(LocalDate.now()).id(1L).build();
+        incomeDTO = IncomeDTO.builder().name("Salary").description("Monthly salary").amount(new BigDecimal("1000")).incomeDate(LocalDate.now()).id(1L).version(2L).build();
         pagedIncomesDTO = PagedIncomesDTO.builder().currentPage(0).totalPages(1).incomes(List.of(incomeDTO)).build();
     }
 
@@ -59,7 +69,7 @@ public class IncomeControllerTest {
         Long userId = 1L;
 
         Mockito.when(authService.getUserId(any())).thenReturn(userId);
-        Mockito.when(incomeService.getUserIncome(userId, 0, 10)).thenReturn(pagedIncomesDTO);
+        Mockito.when(incomeService.getUserIncome(userId, 0, 10, true)).thenReturn(pagedIncomesDTO);
 
         mockMvc.perform(get("/me/income")
                         .param("page", "0")
@@ -73,6 +83,50 @@ public class IncomeControllerTest {
                 .andExpect(jsonPath("$.incomes[0].amount").value(1000));
     }
 
+    @Test
+    void getUserIncome_WithoutTotal_OmitsTotalPages() throws Exception {
+        Long userId = 1L;
+        PagedIncomesDTO slicedIncomesDTO = PagedIncomesDTO.builder().currentPage(0).hasNext(true).incomes(List.of(incomeDTO)).build();
+
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(incomeService.getUserIncome(userId, 0, 10, false)).thenReturn(slicedIncomesDTO);
+
+        mockMvc.perform(get("/me/income")
+                        .param("withTotal", "false")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPages").doesNotExist())
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void getUserIncome_WithCursor_ReturnsCursorPage() throws Exception {
+        Long userId = 1L;
+        CursorPageDTO<IncomeDTO> cursorPage = CursorPageDTO.<IncomeDTO>builder().items(List.of(incomeDTO)).nextCursor("next").build();
+
+        Mockito.when(authService.getUserId(any())).thenReturn(userId);
+        Mockito.when(incomeService.getUserIncome(userId, "", 10)).thenReturn(cursorPage);
+
+        mockMvc.perform(get("/me/income")
+                        .param("cursor", "")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Salary"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+        Mockito.verify(incomeService, Mockito.never()).getUserIncome(anyLong(), anyInt(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void getUserIncome_WithInvalidCursor_ReturnsBadRequest() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(incomeService.getUserIncome(1L, "garbage", 10)).thenThrow(new InvalidRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/me/income")
+                        .param("cursor", "garbage")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getIncomeById_ReturnsIncome() throws Exception {
         Long userId = 1L;
@@ -86,7 +140,8 @@ public class IncomeControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Salary"))
                 .andExpect(jsonPath("$.description").value("Monthly salary"))
-                .andExpect(jsonPath("$.amount").value(1000));
+                .andExpect(jsonPath("$.amount").value(1000))
+                .andExpect(header().string("ETag", "\"2\""));
     }
 
     @Test
@@ -94,7 +149,7 @@ public class IncomeControllerTest {
         Long userId = 1L;
 
         Mockito.when(authService.getUserId(any())).thenReturn(userId);
-        Mockito.when(incomeService.findIncomesWithFilters(anyString(), any(), any(), any(), any(), any())).thenReturn(pagedIncomesDTO);
+        Mockito.when(incomeService.findIncomesWithFilters(eq(new RecordFilter(userId, "salary", null, null, null, null)), any())).thenReturn(pagedIncomesDTO);
 
         mockMvc.perform(get("/me/income/filter")
                         .param("keyword", "salary")
@@ -108,6 +163,17 @@ public class IncomeControllerTest {
     }
 
 
+    @Test
+    void searchIncomes_WithBlankQuery_ReturnsBadRequest() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(incomeService.searchIncomes(1L, " ", 20)).thenThrow(new InvalidRequestException("Search query must not be blank"));
+
+        mockMvc.perform(get("/me/income/search")
+                        .param("q", " ")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void createIncome_CreatesIncome() throws Exception {
         Long userId = 1L;
@@ -125,22 +191,76 @@ public class IncomeControllerTest {
     @Test
     void updateIncome_Success() throws Exception {
         Long userId = 1L;
+        RecordUpdate update = RecordUpdate.replacing("Salary", "Monthly salary", incomeDTO.getIncomeDate(), new BigDecimal("1000"));
         given(authService.getUserId(any())).willReturn(userId);
-        given(incomeService.updateIncome(any(IncomeDTO.class), eq(userId))).willReturn(incomeDTO);
+        given(incomeService.updateIncome(1L, update, userId, 2L)).willReturn(3L);
 
         mockMvc.perform(put("/me/income/{incomeId}", incomeDTO.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(incomeDTO))
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(content().json(objectMapper.writeValueAsString(incomeDTO)));
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.userId").value(1));
+    }
+
+    @Test
+    void updateIncome_IfMatchTakesPrecedenceOverBodyVersion() throws Exception {
+        given(authService.getUserId(any())).willReturn(1L);
+        given(incomeService.updateIncome(eq(1L), any(RecordUpdate.class), eq(1L), eq(7L))).willReturn(8L);
+
+        mockMvc.perform(put("/me/income/{incomeId}", incomeDTO.getId())
+                        .header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(incomeDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+    }
+
+    @Test
+    void updateIncome_WithoutVersion_Returns428() throws Exception {
+        incomeDTO.setVersion(null);
+
+        mockMvc.perform(put("/me/income/{incomeId}", incomeDTO.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(incomeDTO)))
+                .andExpect(status().isPreconditionRequired());
+
+        verifyNoInteractions(incomeService);
+    }
+
+    @Test
+    void patchIncome_AppliesMergePatch() throws Exception {
+        given(authService.getUserId(any())).willReturn(1L);
+        given(incomeService.updateIncome(1L, new RecordUpdate(null, null, LocalDate.of(2024, 5, 10), null, RecordUpdate.DATE), 1L, 2L))
+                .willReturn(3L);
+
+        mockMvc.perform(patch("/me/income/{incomeId}", 1L)
+                        .header("If-Match", "\"2\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"incomeDate\":\"2024-05-10\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void patchIncome_StaleVersion_Returns412() throws Exception {
+        given(authService.getUserId(any())).willReturn(1L);
+        given(incomeService.updateIncome(eq(1L), any(RecordUpdate.class), eq(1L), eq(1L)))
+                .willThrow(new PreconditionFailedException("The record was changed in the meantime, its current ETag is \"2\""));
+
+        mockMvc.perform(patch("/me/income/{incomeId}", 1L)
+                        .header("If-Match", "\"1\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"amount\":1200}"))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
     void updateIncome_ThrowsIdNotMatchingException() throws Exception {
         Long userId = 1L;
         given(authService.getUserId(any())).willReturn(userId);
-        given(incomeService.updateIncome(any(IncomeDTO.class), eq(userId))).willReturn(incomeDTO);
 
         System.out.println(incomeDTO);
         mockMvc.perform(put("/me/income/{incomeId}", 5L)
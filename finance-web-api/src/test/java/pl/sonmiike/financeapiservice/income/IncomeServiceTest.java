@@ -6,12 +6,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.SliceImpl;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.pagination.Cursor;
+import pl.sonmiike.financeapiservice.pagination.CursorPageDTO;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.pagination.RecordFilter;
+import pl.sonmiike.financeapiservice.pagination.UserScopedFilterEngine;
+import pl.sonmiike.financeapiservice.search.RecordSearchService;
+import pl.sonmiike.financeapiservice.update.RecordUpdate;
+import pl.sonmiike.financeapiservice.update.RecordUpdateEngine;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserService;
 
@@ -35,6 +44,14 @@ public class IncomeServiceTest {
     private IncomeMapper incomeMapper;
     @Mock
     private UserService userService;
+    @Mock
+    private RecordCountService recordCountService;
+    @Mock
+    private UserScopedFilterEngine filterEngine;
+    @Mock
+    private RecordSearchService recordSearchService;
+    @Mock
+    private RecordUpdateEngine recordUpdateEngine;
 
     @InjectMocks
     private IncomeService incomeService;
@@ -58,20 +75,6 @@ public class IncomeServiceTest {
         int page = 0;
         int size = 10;
 
-        List<Income> incomeList = new ArrayList<>();
-        incomeList.add(Income.builder()
-                .id(1L)
-                .incomeDate(LocalDate.now())
-                .name("Salary")
-                .description("Monthly Salary")
-                .amount(BigDecimal.valueOf(5000))
-                .user(new UserEntity())
-                .build());
-
-        Page<Income> incomePage = new PageImpl<>(incomeList);
-
-        when(incomeRepository.findByUserUserId(userId, PageRequest.of(page, size))).thenReturn(incomePage);
-
         List<IncomeDTO> incomeDTOList = new ArrayList<>();
         incomeDTOList.add(IncomeDTO.builder()
                 .id(1L)
@@ -81,6 +84,10 @@ public class IncomeServiceTest {
                 .amount(BigDecimal.valueOf(5000))
                 .build());
 
+        Page<IncomeDTO> incomePage = new PageImpl<>(incomeDTOList);
+
+        when(incomeRepository.findDtosByUserUserId(userId, PageRequest.of(page, size))).thenReturn(incomePage);
+
         PagedIncomesDTO expectedPagedIncomesDTO = PagedIncomesDTO.builder()
                 .currentPage(0)
                 .totalPages(1)
@@ -90,40 +97,66 @@ public class IncomeServiceTest {
         when(incomeMapper.toPagedDTO(incomePage)).thenReturn(expectedPagedIncomesDTO);
 
         // When
-        PagedIncomesDTO result = incomeService.getUserIncome(userId, page, size);
+        PagedIncomesDTO result = incomeService.getUserIncome(userId, page, size, true);
 
         // Then
         assertNotNull(result);
         assertEquals(expectedPagedIncomesDTO, result);
-        verify(incomeRepository, times(1)).findByUserUserId(userId, PageRequest.of(page, size));
+        verify(incomeRepository, times(1)).findDtosByUserUserId(userId, PageRequest.of(page, size));
         verify(incomeMapper, times(1)).toPagedDTO(incomePage);
     }
 
+    @Test
+    void getUserIncome_WithoutTotal_NeverCounts() {
+        Long userId = 1L;
+        PageRequest pageRequest = PageRequest.of(3, 10);
+        SliceImpl<IncomeDTO> slice = new SliceImpl<>(Collections.nCopies(10, new IncomeDTO()), pageRequest, false);
+        PagedIncomesDTO expectedDto = PagedIncomesDTO.builder().currentPage(3).build();
+
+        when(incomeRepository.findDtosByUserUserId(userId, pageRequest)).thenReturn(slice);
+        when(incomeMapper.toSlicedDTO(slice)).thenReturn(expectedDto);
+
+        assertSame(expectedDto, incomeService.getUserIncome(userId, 3, 10, false));
+        verifyNoInteractions(recordCountService);
+    }
+
+    @Test
+    void getUserIncome_WithCursor_SeeksPastCursorPosition() {
+        Long userId = 1L;
+        Cursor cursor = new Cursor(LocalDate.of(2024, 5, 31), 9L);
+        List<IncomeDTO> incomes = List.of(new IncomeDTO());
+        CursorPageDTO<IncomeDTO> expectedDto = CursorPageDTO.<IncomeDTO>builder().build();
+
+        when(incomeRepository.findDtosByUserUserIdAfter(userId, cursor.date(), cursor.id(), Limit.of(11))).thenReturn(incomes);
+        when(incomeMapper.toCursorPageDTO(incomes, 10)).thenReturn(expectedDto);
+
+        assertSame(expectedDto, incomeService.getUserIncome(userId, cursor.encode(), 10));
+        verify(incomeRepository, never()).findDtosByUserUserId(any(), any(PageRequest.class));
+    }
+
     @Test
     void getIncomeById_ShouldReturnIncomeDTO() {
         Long incomeId = 1L, userId = 1L;
-        Income income = new Income(incomeId, LocalDate.now(), "Test", "beka", BigDecimal.valueOf(100.00), null);
-        IncomeDTO incomeDTO = new IncomeDTO(incomeId, LocalDate.now(), "Test", "beka", BigDecimal.valueOf(100.00), userId);
-        when(incomeRepository.findByIdAndUserUserId(eq(incomeId), eq(userId))).thenReturn(Optional.of(income));
-        when(incomeMapper.toDTO(eq(income))).thenReturn(incomeDTO);
+        IncomeDTO incomeDTO = new IncomeDTO(incomeId, LocalDate.now(), "Test", "beka", BigDecimal.valueOf(100.00), userId, 0L);
+        when(incomeRepository.findDtoByIdAndUserUserId(eq(incomeId), eq(userId))).thenReturn(Optional.of(incomeDTO));
 
         IncomeDTO result = incomeService.getIncomeById(incomeId, userId);
 
         assertEquals(incomeDTO, result);
         assertNotNull(result);
-        verify(incomeRepository).findByIdAndUserUserId(eq(incomeId), eq(userId));
-        verify(incomeMapper).toDTO(eq(income));
+        verify(incomeRepository).findDtoByIdAndUserUserId(eq(incomeId), eq(userId));
+        verifyNoInteractions(incomeMapper);
     }
 
     @Test
     void getIncomeById_ShouldThrowResourceNotFoundException() {
         Long incomeId = 1L, userId = 1L;
 
-        when(incomeRepository.findByIdAndUserUserId(eq(incomeId), eq(userId))).thenReturn(Optional.empty());
+        when(incomeRepository.findDtoByIdAndUserUserId(eq(incomeId), eq(userId))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> incomeService.getIncomeById(incomeId, userId));
 
-        verify(incomeRepository).findByIdAndUserUserId(incomeId, userId);
+        verify(incomeRepository).findDtoByIdAndUserUserId(incomeId, userId);
         verify(incomeMapper, never()).toDTO(any(Income.class));
     }
 
@@ -131,7 +164,7 @@ public class IncomeServiceTest {
     void createIncome_SuccessfulCreation() {
         Long userId = 1L;
         AddIncomeDTO addIncomeDTO = new AddIncomeDTO(LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00));
-        Income income = new Income(1L, LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00), UserEntity.builder().userId(userId).build());
+        Income income = new Income(1L, LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00), UserEntity.builder().userId(userId).build(), 0);
 
         when(incomeMapper.toEntity(eq(addIncomeDTO))).thenReturn(income);
         when(userService.getUserById(eq(userId))).thenReturn(UserEntity.builder().userId(userId).build());
@@ -141,55 +174,54 @@ public class IncomeServiceTest {
         verify(incomeMapper, times(1)).toEntity(eq(addIncomeDTO));
         verify(userService, times(1)).getUserById(eq(userId));
         verify(incomeRepository, times(1)).save(eq(income));
+        verify(recordCountService).incomesAdded(userId, 1);
+    }
 
+    @Test
+    void searchIncomes_MapsRankedMatches() {
+        Income income = new Income();
+        IncomeDTO incomeDTO = IncomeDTO.builder().id(1L).build();
 
+        when(recordSearchService.searchIncomes(1L, "salary", 20)).thenReturn(List.of(income));
+        when(incomeMapper.toDTO(income)).thenReturn(incomeDTO);
+
+        assertEquals(List.of(incomeDTO), incomeService.searchIncomes(1L, "salary", 20));
     }
 
     @Test
     void testUpdateIncome_ShouldUpdateWithSuccess() {
         Long userId = 1L;
-        IncomeDTO incomeDTO = new IncomeDTO(1L, LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00), userId);
-        Income income = new Income(1L, LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00), UserEntity.builder().userId(userId).build());
+        RecordUpdate update = RecordUpdate.replacing("Salary", "May Salary", LocalDate.now(), BigDecimal.valueOf(150.00));
 
-        when(incomeMapper.toEntity(eq(incomeDTO))).thenReturn(income);
-        when(userService.getUserById(eq(userId))).thenReturn(UserEntity.builder().userId(userId).build());
-        when(incomeRepository.save(eq(income))).thenReturn(income);
-        when(incomeMapper.toDTO(eq(income))).thenReturn(incomeDTO);
-        when(incomeRepository.existsById(eq(incomeDTO.getId()))).thenReturn(true);
+        when(recordUpdateEngine.update(eq(IncomeService.FILTER_TARGET), eq(1L), eq(userId), eq(2L), eq(update))).thenReturn(3L);
 
-        IncomeDTO result = incomeService.updateIncome(incomeDTO, userId);
+        assertEquals(3L, incomeService.updateIncome(1L, update, userId, 2L));
 
-        assertNotNull(result);
-        assertEquals(incomeDTO, result);
-        verify(incomeMapper, times(1)).toEntity(eq(incomeDTO));
-        verify(userService, times(1)).getUserById(eq(userId));
-        verify(incomeRepository, times(1)).save(eq(income));
-        verify(incomeMapper, times(1)).toDTO(eq(income));
+        verify(recordUpdateEngine, times(1)).update(IncomeService.FILTER_TARGET, 1L, userId, 2L, update);
+        verifyNoInteractions(incomeRepository, incomeMapper, userService);
     }
 
     @Test
     void testUpdateIncome_ShouldThrowResourceNotFoundException() {
         Long userId = 1L;
-        IncomeDTO incomeDTO = new IncomeDTO(1L, LocalDate.now(), "Salary", "May Salary", BigDecimal.valueOf(150.00), userId);
-
-        when(incomeRepository.existsById(eq(incomeDTO.getId()))).thenReturn(false);
+        RecordUpdate update = RecordUpdate.replacing("Salary", "May Salary", LocalDate.now(), BigDecimal.valueOf(150.00));
 
-        assertThrows(ResourceNotFoundException.class, () -> incomeService.updateIncome(incomeDTO, userId));
+        when(recordUpdateEngine.update(IncomeService.FILTER_TARGET, 1L, userId, 2L, update))
+                .thenThrow(new ResourceNotFoundException("Income with that id not found in database"));
 
-        verify(incomeRepository, times(1)).existsById(eq(incomeDTO.getId()));
-        verify(incomeMapper, never()).toEntity(any(IncomeDTO.class));
-        verify(userService, never()).getUserById(any(Long.class));
-        verify(incomeRepository, never()).save(any(Income.class));
-        verify(incomeMapper, never()).toDTO(any(Income.class));
+        assertThrows(ResourceNotFoundException.class, () -> incomeService.updateIncome(1L, update, userId, 2L));
     }
 
     @Test
     void testDeleteIncome() {
         Long incomeId = 1L, userId = 1L;
 
+        when(incomeRepository.deleteIncomeByIdAndUserUserId(incomeId, userId)).thenReturn(1);
+
         incomeService.deleteIncome(incomeId, userId);
 
         verify(incomeRepository, times(1)).deleteIncomeByIdAndUserUserId(eq(incomeId), eq(userId));
+        verify(recordCountService).incomesRemoved(userId, 1L);
         assertEquals(incomeRepository.count(), 0);
     }
 
@@ -201,21 +233,22 @@ public class IncomeServiceTest {
         LocalDate dateTo = LocalDate.of(2022, 12, 31);
         BigDecimal amountFrom = new BigDecimal("100.00");
         BigDecimal amountTo = new BigDecimal("1000.00");
-        Pageable pageable = Pageable.unpaged();
+        Pageable pageable = PageRequest.of(0, 10);
+        RecordFilter filter = new RecordFilter(1L, keyword, dateFrom, dateTo, amountFrom, amountTo);
 
-        Page<Income> mockPage = mock(Page.class);
-        PagedIncomesDTO mockPagedIncomesDTO = new PagedIncomesDTO(mockPage.getNumber(), mockPage.getTotalPages(), mockPage.getContent().stream().map(incomeMapper::toDTO).toList());
+        Page<IncomeDTO> mockPage = mock(Page.class);
+        PagedIncomesDTO mockPagedIncomesDTO = new PagedIncomesDTO(mockPage.getNumber(), mockPage.getTotalPages(), false, mockPage.getContent());
         mockPagedIncomesDTO.setIncomes(Collections.emptyList()); // Assume an empty list for simplicity
 
-        when(incomeRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(mockPage);
+        when(filterEngine.findPage(IncomeService.FILTER_TARGET, filter, pageable)).thenReturn(mockPage);
         when(incomeMapper.toPagedDTO(mockPage)).thenReturn(mockPagedIncomesDTO);
 
         // Execute
-        PagedIncomesDTO result = incomeService.findIncomesWithFilters(keyword, dateFrom, dateTo, amountFrom, amountTo, pageable);
+        PagedIncomesDTO result = incomeService.findIncomesWithFilters(filter, pageable);
 
         // Assert
         assertEquals(mockPagedIncomesDTO, result);
-        verify(incomeRepository, times(1)).findAll(any(Specification.class), eq(pageable));
+        verify(filterEngine, times(1)).findPage(IncomeService.FILTER_TARGET, filter, pageable);
         verify(incomeMapper, times(1)).toPagedDTO(mockPage);
     }
 }
@@ -0,0 +1,60 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import org.junit.jupiter.api.Test;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageDTOTest {
+
+    @Test
+    void cursor_RoundTripsThroughEncodedForm() {
+        Cursor cursor = new Cursor(LocalDate.of(2024, 3, 15), 42L);
+
+        String encoded = cursor.encode();
+
+        assertFalse(encoded.contains("2024"));
+        assertEquals(cursor, Cursor.decode(encoded));
+    }
+
+    @Test
+    void cursor_EmptyOrMissingStartsAtFirstPage() {
+        assertNull(Cursor.decode(null));
+        assertNull(Cursor.decode(""));
+    }
+
+    @Test
+    void cursor_TamperedValueIsRejected() {
+        assertThrows(InvalidRequestException.class, () -> Cursor.decode("not a cursor!"));
+        assertThrows(InvalidRequestException.class, () -> Cursor.decode("MjAyNC0wMy0xNQ"));
+        assertThrows(InvalidRequestException.class, () -> Cursor.decode("MjAyNC0xMy0xNTo0Mg"));
+    }
+
+    @Test
+    void fetchLimit_FetchesOneExtraRowAndRejectsOutOfRangeSizes() {
+        assertEquals(11, CursorPageDTO.fetchLimit(10).max());
+        assertThrows(InvalidRequestException.class, () -> CursorPageDTO.fetchLimit(0));
+        assertThrows(InvalidRequestException.class, () -> CursorPageDTO.fetchLimit(CursorPageDTO.MAX_SIZE + 1));
+    }
+
+    @Test
+    void of_ExtraRowProducesCursorOfLastShownRow() {
+        List<Long> rows = List.of(5L, 4L, 3L);
+
+        CursorPageDTO<String> page = CursorPageDTO.of(rows, 2, id -> new Cursor(LocalDate.of(2024, 1, id.intValue()), id), String::valueOf);
+
+        assertEquals(List.of("5", "4"), page.getItems());
+        assertEquals(new Cursor(LocalDate.of(2024, 1, 4), 4L), Cursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void of_LastPageHasNoCursor() {
+        CursorPageDTO<String> page = CursorPageDTO.of(List.of(2L, 1L), 2, id -> new Cursor(LocalDate.now(), id), String::valueOf);
+
+        assertEquals(List.of("2", "1"), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+}
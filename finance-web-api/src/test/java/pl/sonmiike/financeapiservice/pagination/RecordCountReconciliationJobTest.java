@@ -0,0 +1,41 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RecordCountReconciliationJobTest {
+
+    @Test
+    void reconcile_ChecksUsersInIdRangesAndCountsRewrittenAndRemovedCounters() {
+        RecordCountRepository recordCountRepository = mock(RecordCountRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RecordCountReconciliationJob job = new RecordCountReconciliationJob(recordCountRepository, 100, meterRegistry);
+        when(recordCountRepository.findMaxUserId()).thenReturn(150L);
+        when(recordCountRepository.reconcileCounts(0, 100)).thenReturn(3);
+        when(recordCountRepository.deleteStaleCounts(100, 200)).thenReturn(2);
+
+        job.reconcile();
+
+        verify(recordCountRepository).reconcileCounts(0, 100);
+        verify(recordCountRepository).deleteStaleCounts(0, 100);
+        verify(recordCountRepository).reconcileCounts(100, 200);
+        verify(recordCountRepository).deleteStaleCounts(100, 200);
+        verify(recordCountRepository, times(2)).reconcileCounts(anyLong(), anyLong());
+        assertEquals(5, meterRegistry.get("record_count.reconciled").counter().count());
+        assertEquals(1, meterRegistry.get("record_count.reconcile").timer().count());
+    }
+
+    @Test
+    void reconcile_WithoutUsers_DoesNothing() {
+        RecordCountRepository recordCountRepository = mock(RecordCountRepository.class);
+        RecordCountReconciliationJob job = new RecordCountReconciliationJob(recordCountRepository, 100, new SimpleMeterRegistry());
+
+        assertEquals(0, job.reconcileCounts());
+
+        verify(recordCountRepository, never()).reconcileCounts(anyLong(), anyLong());
+    }
+}
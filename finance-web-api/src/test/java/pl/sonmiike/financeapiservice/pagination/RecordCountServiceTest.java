@@ -0,0 +1,67 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RecordCountServiceTest {
+
+    private RecordCountRepository recordCountRepository;
+    private RecordCountService recordCountService;
+
+    @BeforeEach
+    void setUp() {
+        recordCountRepository = mock(RecordCountRepository.class);
+        recordCountService = new RecordCountService(recordCountRepository);
+    }
+
+    @Test
+    void expensesAdded_UpdatesUserAndCategoryCounts() {
+        recordCountService.expensesAdded(1L, 5L, 3);
+
+        verify(recordCountRepository).addToUserAndCategory(1L, "EXPENSE", 5L, 3);
+    }
+
+    @Test
+    void expensesRemoved_AppliesNegativeDelta() {
+        recordCountService.expensesRemoved(1L, 5L, 2);
+
+        verify(recordCountRepository).addToUserAndCategory(1L, "EXPENSE", 5L, -2);
+    }
+
+    @Test
+    void removedNothing_DoesNotTouchCounts() {
+        recordCountService.expensesRemoved(1L, 5L, 0);
+        recordCountService.incomesRemoved(1L, 0);
+
+        verifyNoInteractions(recordCountRepository);
+    }
+
+    @Test
+    void incomesAdded_UpdatesUserCount() {
+        recordCountService.incomesAdded(1L, 1);
+
+        verify(recordCountRepository).addToUser(1L, "INCOME", 1);
+        verify(recordCountRepository, never()).addToUserAndCategory(anyLong(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void count_ReadsCounterRowAndTreatsMissingOrNegativeAsZero() {
+        when(recordCountRepository.findById(new RecordCountId(1L, RecordType.EXPENSE, RecordCount.ALL_CATEGORIES)))
+                .thenReturn(Optional.of(RecordCount.builder().total(42).build()));
+        when(recordCountRepository.findById(new RecordCountId(1L, RecordType.EXPENSE, 5L)))
+                .thenReturn(Optional.of(RecordCount.builder().total(-1).build()));
+        when(recordCountRepository.findById(new RecordCountId(1L, RecordType.INCOME, RecordCount.ALL_CATEGORIES)))
+                .thenReturn(Optional.empty());
+
+        assertEquals(42, recordCountService.countExpenses(1L));
+        assertEquals(0, recordCountService.countExpenses(1L, 5L));
+        assertEquals(0, recordCountService.countIncomes(1L));
+    }
+}
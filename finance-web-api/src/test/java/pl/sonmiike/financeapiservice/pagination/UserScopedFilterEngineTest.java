@@ -0,0 +1,103 @@
+package pl.sonmiike.financeapiservice.pagination;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.expenses.Expense;
+import pl.sonmiike.financeapiservice.income.Income;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserScopedFilterEngineTest {
+
+    private static final FilterTarget<Expense> EXPENSES = new FilterTarget<>(Expense.class, "user.userId", "date");
+    private static final FilterTarget<Income> INCOMES = new FilterTarget<>(Income.class, "user.userId", "incomeDate");
+
+    private EntityManager entityManager;
+    private UserScopedFilterEngine filterEngine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        filterEngine = new UserScopedFilterEngine(entityManager);
+        when(entityManager.createQuery(anyString(), any(Class.class))).thenAnswer(invocation -> mock(TypedQuery.class, RETURNS_SELF));
+    }
+
+    @Test
+    void jpql_StartsWithUserAndDateRangeAndSortsByDateAndId() {
+        RecordFilter filter = new RecordFilter(1L, "food", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), BigDecimal.ONE, null);
+
+        String jpql = filterEngine.jpql(INCOMES, filter.shape(), Sort.Direction.DESC, false);
+
+        assertEquals("SELECT r FROM Income r WHERE r.user.userId = :userId"
+                + " AND r.incomeDate >= :dateFrom AND r.incomeDate <= :dateTo AND r.amount >= :amountFrom"
+                + " AND (lower(r.name) LIKE :keyword ESCAPE '!' OR lower(r.description) LIKE :keyword ESCAPE '!')"
+                + " ORDER BY r.incomeDate DESC, r.id DESC", jpql);
+    }
+
+    @Test
+    void jpql_WithoutOptionalBounds_OnlyScopesToUser() {
+        assertEquals("SELECT count(r) FROM Expense r WHERE r.user.userId = :userId",
+                filterEngine.jpql(EXPENSES, new RecordFilter(1L, " ", null, null, null, null).shape(), Sort.Direction.ASC, true));
+    }
+
+    @Test
+    void jpql_ProjectionTarget_SelectsProjectionAndCountsEntities() {
+        FilterTarget<String> names = new FilterTarget<>(Expense.class, String.class, "r.name", "user.userId", "date");
+        int shape = new RecordFilter(1L, null, null, null, null, null).shape();
+
+        assertEquals("SELECT r.name FROM Expense r WHERE r.user.userId = :userId ORDER BY r.date DESC, r.id DESC",
+                filterEngine.jpql(names, shape, Sort.Direction.DESC, false));
+        assertEquals("SELECT count(r) FROM Expense r WHERE r.user.userId = :userId",
+                filterEngine.jpql(names, shape, Sort.Direction.DESC, true));
+    }
+
+    @Test
+    void jpql_SameShape_ReusesQueryString() {
+        int shape = new RecordFilter(1L, null, LocalDate.now(), null, null, null).shape();
+        int sameShape = new RecordFilter(2L, null, LocalDate.of(2020, 1, 1), null, null, null).shape();
+
+        assertSame(filterEngine.jpql(EXPENSES, shape, Sort.Direction.DESC, false),
+                filterEngine.jpql(EXPENSES, sameShape, Sort.Direction.DESC, false));
+    }
+
+    @Test
+    void findPage_SortedByUnindexedField_IsRejected() {
+        RecordFilter filter = new RecordFilter(1L, null, null, null, null, null);
+
+        assertThrows(InvalidRequestException.class,
+                () -> filterEngine.findPage(EXPENSES, filter, PageRequest.of(0, 10, Sort.by("amount"))));
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findPage_CapsPageSizeAndEscapesKeyword() {
+        TypedQuery<Expense> select = mock(TypedQuery.class, RETURNS_SELF);
+        when(select.getResultList()).thenReturn(List.of(new Expense()));
+        when(entityManager.createQuery(anyString(), eq(Expense.class))).thenReturn(select);
+
+        Page<Expense> page = filterEngine.findPage(EXPENSES, new RecordFilter(1L, "50%_Off", null, null, null, null),
+                PageRequest.of(0, 1000, Sort.by(Sort.Direction.ASC, "date")));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(UserScopedFilterEngine.MAX_PAGE_SIZE, page.getSize());
+        verify(select).setParameter("userId", 1L);
+        verify(select).setParameter("keyword", "%50!%!_off%");
+        verify(select).setMaxResults(UserScopedFilterEngine.MAX_PAGE_SIZE);
+        verify(entityManager).createQuery(contains("ORDER BY r.date ASC, r.id ASC"), eq(Expense.class));
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+    }
+}
@@ -0,0 +1,98 @@
+package pl.sonmiike.financeapiservice.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class ExpenseNameSuggestionsTest {
+
+    private ExpenseRepository expenseRepository;
+    private ExpenseNameSuggestions suggestions;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        suggestions = new ExpenseNameSuggestions(expenseRepository, 1000, Duration.ofMinutes(30), new SimpleMeterRegistry());
+        when(expenseRepository.countNamesByUserUserId(1L)).thenReturn(List.of(
+                new NameFrequency("Coffee", 3),
+                new NameFrequency("Cola", 1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void suggest_BuildsIndexOnceAndAppliesWritesIncrementally() {
+        assertEquals(List.of("Coffee", "Cola"), suggestions.suggest(1L, "co", 10));
+
+        suggestions.nameAdded(1L, "Cola");
+        suggestions.nameAdded(1L, "Cola");
+        suggestions.nameAdded(1L, "Cola");
+        suggestions.nameChanged(1L, "Coffee", "Cocoa");
+
+        assertEquals(List.of("Cola", "Coffee", "Cocoa"), suggestions.suggest(1L, " co", 10));
+        verify(expenseRepository, times(1)).countNamesByUserUserId(1L);
+    }
+
+    @Test
+    void writesInTransaction_AreAppliedAfterCommit() {
+        suggestions.suggest(1L, "", 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        suggestions.nameAdded(1L, "Cinema");
+        assertEquals(List.of("Coffee", "Cola"), suggestions.suggest(1L, "c", 10));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of("Coffee", "Cinema", "Cola"), suggestions.suggest(1L, "c", 10));
+    }
+
+    @Test
+    void namesAdded_AppliesWholeBatchInOneCallback() {
+        suggestions.suggest(1L, "", 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        suggestions.namesAdded(1L, List.of("Cinema", "Cola", "Cola", "Cola"));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of("Cola", "Coffee", "Cinema"), suggestions.suggest(1L, "c", 10));
+    }
+
+    @Test
+    void writesForUserWithoutIndex_AreLeftToTheNextBuild() {
+        suggestions.nameAdded(1L, "Cinema");
+
+        assertEquals(List.of("Coffee", "Cola"), suggestions.suggest(1L, "c", 10));
+    }
+
+    @Test
+    void invalidate_RebuildsFromRepository() {
+        suggestions.suggest(1L, "", 10);
+        suggestions.invalidate(1L);
+        suggestions.suggest(1L, "", 10);
+
+        verify(expenseRepository, times(2)).countNamesByUserUserId(1L);
+    }
+
+    @Test
+    void limitOutOfRange_IsRejected() {
+        assertThrows(InvalidRequestException.class, () -> suggestions.suggest(1L, "c", 0));
+        assertThrows(InvalidRequestException.class, () -> suggestions.suggest(1L, "c", ExpenseNameSuggestions.MAX_LIMIT + 1));
+    }
+}
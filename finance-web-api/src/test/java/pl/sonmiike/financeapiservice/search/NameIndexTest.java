@@ -0,0 +1,45 @@
+package pl.sonmiike.financeapiservice.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameIndexTest {
+
+    private static final NameIndex INDEX = NameIndex.of(List.of(
+            new NameFrequency("Coffee", 12),
+            new NameFrequency("cola", 3),
+            new NameFrequency("Cinema", 5),
+            new NameFrequency("Coal", 3),
+            new NameFrequency("Rent", 1),
+            new NameFrequency("Cobbler", 0)));
+
+    @Test
+    void suggest_ReturnsMostFrequentNamesWithPrefixIgnoringCase() {
+        assertEquals(List.of("Coffee", "Coal", "cola"), INDEX.suggest("CO", 10));
+        assertEquals(List.of("Coffee", "Cinema"), INDEX.suggest("c", 2));
+        assertEquals(List.of("Coffee", "Cinema", "Coal", "cola", "Rent"), INDEX.suggest("", 10));
+        assertTrue(INDEX.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    void withCount_InsertsUpdatesAndRemovesNames() {
+        NameIndex updated = INDEX
+                .withCount("Cocoa", 1)
+                .withCount("cola", 20)
+                .withCount("Coffee", -12);
+
+        assertEquals(List.of("cola", "Coal", "Cocoa"), updated.suggest("co", 10));
+        assertEquals(5, updated.size());
+        assertEquals(5, INDEX.size());
+        assertEquals(List.of("Coffee", "Coal", "cola"), INDEX.suggest("co", 10));
+    }
+
+    @Test
+    void withCount_RemovingUnknownName_IsNoOp() {
+        assertEquals(INDEX.size(), INDEX.withCount("Unknown", -1).size());
+    }
+}
@@ -0,0 +1,53 @@
+package pl.sonmiike.financeapiservice.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramIndexTest {
+
+    private record Row(String name, String description) {
+    }
+
+    private static NgramIndex<Row> index(Row... rows) {
+        return new NgramIndex<>(List.of(rows), row -> Arrays.asList(row.name(), row.description()), 2);
+    }
+
+    @Test
+    void trigrams_PadsEachWordLikePgTrgm() {
+        assertEquals(Set.of("  c", " ca", "cat", "at "), NgramIndex.trigrams("Cat"));
+        assertEquals(NgramIndex.trigrams("cat dog"), NgramIndex.trigrams("  CAT, dog!"));
+        assertTrue(NgramIndex.trigrams(null).isEmpty());
+    }
+
+    @Test
+    void search_RanksCloserMatchesFirstAndToleratesTypos() {
+        Row exact = new Row("Coffee", null);
+        Row typo = new Row("Cofee shop", "morning");
+        Row sameScore = new Row("coffee beans", null);
+        Row other = new Row("Rent", "apartment");
+
+        List<Row> result = index(typo, sameScore, other, exact).search("coffee", 10);
+
+        assertEquals(List.of(sameScore, exact, typo), result);
+    }
+
+    @Test
+    void search_MatchesOnDescriptionAndTruncatesToLimit() {
+        Row first = new Row("Card payment", "groceries at the market");
+        Row second = new Row("Groceries", null);
+        Row third = new Row("groceries", "weekly");
+
+        assertEquals(List.of(first, second), index(first, second, third).search("grocerie", 2));
+    }
+
+    @Test
+    void search_WithoutWords_ReturnsNothing() {
+        assertTrue(index(new Row("anything", null)).search(" ,.", 10).isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package pl.sonmiike.financeapiservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.expenses.Expense;
+import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
+import pl.sonmiike.financeapiservice.income.Income;
+import pl.sonmiike.financeapiservice.income.IncomeRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class RecordSearchServiceTest {
+
+    private ExpenseRepository expenseRepository;
+    private IncomeRepository incomeRepository;
+    private RecordSearchService recordSearchService;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        incomeRepository = mock(IncomeRepository.class);
+        recordSearchService = new RecordSearchService(expenseRepository, incomeRepository);
+    }
+
+    @Test
+    void trigramMode_RanksInDatabase() {
+        List<Expense> expenses = List.of(new Expense());
+        when(expenseRepository.searchByUserUserId(1L, "coffee", 20)).thenReturn(expenses);
+
+        assertEquals(expenses, recordSearchService.searchExpenses(1L, "coffee", 20));
+        verify(expenseRepository, never()).findSearchCandidatesByUserUserId(any(), any());
+    }
+
+    @Test
+    void ngramMode_RanksUserRecordsInProcess() {
+        ReflectionTestUtils.setField(recordSearchService, "searchMode", SearchMode.NGRAM);
+        Income salary = Income.builder().id(1L).name("Salary").description("May").build();
+        Income bonus = Income.builder().id(2L).name("Bonus").description("salary bonus").build();
+        when(incomeRepository.findSearchCandidatesByUserUserId(1L, Limit.of(10_000))).thenReturn(List.of(
+                new SearchCandidate(1L, "Salary", "May"),
+                new SearchCandidate(2L, "Bonus", "salary bonus"),
+                new SearchCandidate(3L, "Gift", null)));
+        when(incomeRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(bonus, salary));
+
+        assertEquals(List.of(salary, bonus), recordSearchService.searchIncomes(1L, "salary", 20));
+        verify(incomeRepository, never()).searchByUserUserId(any(), any(), anyInt());
+    }
+
+    @Test
+    void ngramMode_IndexesOnlyMostRecentRecords() {
+        ReflectionTestUtils.setField(recordSearchService, "searchMode", SearchMode.NGRAM);
+        ReflectionTestUtils.setField(recordSearchService, "maxRecords", 2);
+        when(expenseRepository.findSearchCandidatesByUserUserId(1L, Limit.of(2))).thenReturn(List.of());
+
+        assertEquals(List.of(), recordSearchService.searchExpenses(1L, "coffee", 20));
+        verify(expenseRepository).findAllById(List.of());
+    }
+
+    @Test
+    void blankQueryOrLimitOutOfRange_IsRejected() {
+        assertThrows(InvalidRequestException.class, () -> recordSearchService.searchExpenses(1L, " ", 20));
+        assertThrows(InvalidRequestException.class, () -> recordSearchService.searchIncomes(1L, "salary", 0));
+        assertThrows(InvalidRequestException.class,
+                () -> recordSearchService.searchIncomes(1L, "salary", RecordSearchService.MAX_LIMIT + 1));
+        verifyNoInteractions(expenseRepository, incomeRepository);
+    }
+}
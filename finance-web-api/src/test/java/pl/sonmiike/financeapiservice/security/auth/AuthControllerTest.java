@@ -8,6 +8,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
 import pl.sonmiike.financeapiservice.security.testconfig.TestSecurityConfig;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.refreshToken.RefreshToken;
@@ -15,6 +16,7 @@ import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenService;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -36,6 +38,9 @@ public class AuthControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     private static final String TEST_EMAIL = "test@example.com";
     private static final String TEST_PASSWORD = "Password1234";
 
@@ -92,9 +97,12 @@ public class AuthControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(expectedResponse)));
     }
 
+    @Test
+    public void logout_ShouldReturnNoContent() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer accessToken"))
+                .andExpect(status().isNoContent());
 
-
-
-
-
-}
\ No newline at end of file
+        verify(authService).logout("Bearer accessToken");
+    }
+}
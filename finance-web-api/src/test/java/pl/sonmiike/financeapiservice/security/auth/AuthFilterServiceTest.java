@@ -0,0 +1,184 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+import pl.sonmiike.financeapiservice.user.UserRepository;
+import pl.sonmiike.financeapiservice.user.UserRole;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AuthFilterServiceTest {
+
+    private static final String SECRET_KEY = "OXgzaGZ3OTMzdWRpendib281cHF1bTRsODl1YWx5ejloc2E5Zm16bW5hNzBrcmt5c2p0c3Q5dXhrMDV6YWUzOGFldDNlNHZlajllZWduenlzdTd1Y3RyN2d6dWF1MjBiNm5ib2tjeW9hb3l4aTg3NGMybmV5a3F6NG1zN2E2c20=";
+
+    private final UserEntity user = UserEntity.builder()
+            .userId(7L)
+            .email("test@test.com")
+            .username("testUser")
+            .password("encoded")
+            .role(UserRole.ROLE_USER)
+            .build();
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtService jwtService;
+    private AuthFilterService authFilterService;
+    private SimpleMeterRegistry meterRegistry;
+
+    private AutoCloseable openMocks;
+
+    @BeforeEach
+    public void init() {
+        openMocks = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = new JwtService(VerifiedTokenCache.disabled(), meterRegistry);
+        jwtService.setSecretKey(SECRET_KEY);
+        jwtService.init();
+
+        // Same lookup as ApplicationConfig#userDetailsService, so repository calls equal database queries
+        UserDetailsService userDetailsService = username -> userRepository.findByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        authFilterService = new AuthFilterService(jwtService, userDetailsService, tokenRevocationService);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        SecurityContextHolder.clearContext();
+        openMocks.close();
+    }
+
+    @Test
+    void whenTokenMode_thenAuthenticatesWithoutQueries() throws Exception {
+        ReflectionTestUtils.setField(authFilterService, "authenticationMode", AuthenticationMode.TOKEN);
+
+        authFilterService.doFilter(requestWithToken(jwtService.generateToken(user)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(7L, principal.getUserId());
+        assertEquals("test@test.com", principal.getUsername());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void whenDatabaseMode_thenAuthenticatesWithOneQuery() throws Exception {
+        ReflectionTestUtils.setField(authFilterService, "authenticationMode", AuthenticationMode.DATABASE);
+
+        authFilterService.doFilter(requestWithToken(jwtService.generateToken(user)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userRepository, times(1)).findByEmail(user.getEmail());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void whenTokenModeAndTokenWithoutUserId_thenFallsBackToDatabase() throws Exception {
+        ReflectionTestUtils.setField(authFilterService, "authenticationMode", AuthenticationMode.TOKEN);
+        UserEntity legacyUser = UserEntity.builder()
+                .email(user.getEmail())
+                .role(UserRole.ROLE_USER)
+                .build();
+
+        authFilterService.doFilter(requestWithToken(jwtService.generateToken(legacyUser)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userRepository, times(1)).findByEmail(user.getEmail());
+    }
+
+    @Test
+    void whenTokenIsRejected_thenRequestStaysUnauthenticatedAndReasonIsCounted() throws Exception {
+        String token = jwtService.generateToken(user);
+        String expiredToken = Jwts.builder()
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+
+        MockFilterChain chain = new MockFilterChain();
+        authFilterService.doFilter(requestWithToken("not-a-jwt"), new MockHttpServletResponse(), chain);
+        authFilterService.doFilter(requestWithToken(token.substring(0, token.length() - 4) + "AAAA"), new MockHttpServletResponse(), new MockFilterChain());
+        authFilterService.doFilter(requestWithToken(expiredToken), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("auth.token.rejected").tag("reason", "malformed").counter().count());
+        assertEquals(1, meterRegistry.get("auth.token.rejected").tag("reason", "bad_signature").counter().count());
+        assertEquals(1, meterRegistry.get("auth.token.rejected").tag("reason", "expired").counter().count());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void whenUserNoLongerExists_thenCountedAsUnknownUser() throws Exception {
+        UserEntity deletedUser = UserEntity.builder()
+                .userId(8L)
+                .email("deleted@test.com")
+                .role(UserRole.ROLE_USER)
+                .build();
+
+        authFilterService.doFilter(requestWithToken(jwtService.generateToken(deletedUser)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("auth.token.rejected").tag("reason", "unknown_user").counter().count());
+    }
+
+    @Test
+    void whenTokenIsRevoked_thenRequestStaysUnauthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        when(tokenRevocationService.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        authFilterService.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("auth.token.rejected").tag("reason", "revoked").counter().count());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void whenPublicRoute_thenTokenIsNotParsed() throws Exception {
+        JwtService spiedJwtService = spy(jwtService);
+        AuthFilterService filter = new AuthFilterService(spiedJwtService, username -> null, tokenRevocationService);
+        MockHttpServletRequest request = requestWithToken(jwtService.generateToken(user));
+        request.setRequestURI("/api/v1/auth/login");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verifyNoInteractions(spiedJwtService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/me/expenses");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
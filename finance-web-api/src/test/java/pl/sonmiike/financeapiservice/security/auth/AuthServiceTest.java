@@ -7,12 +7,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import pl.sonmiike.financeapiservice.exceptions.custom.EmailAlreadyTakenException;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 import pl.sonmiike.financeapiservice.user.UserRole;
@@ -20,7 +23,7 @@ import pl.sonmiike.financeapiservice.user.refreshToken.RefreshToken;
 import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenService;
 
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +42,8 @@ public class AuthServiceTest {
     private RefreshTokenService refreshTokenService;
     @Mock
     private AuthenticationManager authenticationManager;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
 
     @InjectMocks
     private AuthService authService;
@@ -61,6 +66,7 @@ public class AuthServiceTest {
         // Arrange
         RegisterRequest request = new RegisterRequest("Test User", "testuser", "test@example.com", "password123");
         UserEntity userEntity = UserEntity.builder()
+                .userId(1L)
                 .name(request.getName())
                 .username(request.getUsername())
                 .email(request.getEmail())
@@ -68,12 +74,11 @@ public class AuthServiceTest {
                 .role(UserRole.ROLE_USER)
                 .build();
         String uuid = UUID.randomUUID().toString();
-        RefreshToken refreshToken = new RefreshToken(1L, uuid , Instant.now().plusSeconds(86400), null);
+        RefreshToken refreshToken = new RefreshToken(1L, "hash", uuid, Instant.now().plusSeconds(86400), null);
 
-        when(userRepository.existsByEmail(request.getEmail())).thenReturn(false);
-        when(userRepository.save(any(UserEntity.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenReturn(userEntity);
         when(jwtService.generateToken(any(UserEntity.class))).thenReturn("accessToken");
-        when(refreshTokenService.createRefreshToken(any(String.class))).thenReturn(refreshToken);
+        when(refreshTokenService.createRefreshToken(1L)).thenReturn(refreshToken);
 
         // Act
         AuthResponse response = authService.register(request);
@@ -82,37 +87,38 @@ public class AuthServiceTest {
         assertNotNull(response);
         assertEquals("accessToken", response.getAccessToken());
         assertEquals(uuid, response.getRefreshToken());
-        verify(userRepository).save(any(UserEntity.class));
         verify(jwtService).generateToken(any(UserEntity.class));
-        verify(refreshTokenService).createRefreshToken(any(String.class));
+        verify(refreshTokenService).createRefreshToken(1L);
+        // A single insert, duplicates are detected by the unique constraint rather than a lookup
+        verify(userRepository, times(1)).saveAndFlush(any(UserEntity.class));
+        verifyNoMoreInteractions(userRepository);
     }
 
     @Test
     void whenRegisteringExistingUser_thenThrowsException() {
         RegisterRequest request = new RegisterRequest("Test User", "test@user.com", "test@example.com", "password123");
 
-        when(userRepository.existsByEmail(request.getEmail())).thenReturn(true);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenThrow(new DataIntegrityViolationException("users_email_key"));
         // Assert
         assertThrows(EmailAlreadyTakenException.class, () -> authService.register(request));
-        verify(userRepository, times(1)).existsByEmail(request.getEmail());
-        verify(userRepository, never()).save(any(UserEntity.class));
+        verify(userRepository, times(1)).saveAndFlush(any(UserEntity.class));
+        verifyNoMoreInteractions(userRepository);
         verify(jwtService, never()).generateToken(any(UserEntity.class));
-        verify(refreshTokenService, never()).createRefreshToken(any(String.class));
+        verify(refreshTokenService, never()).createRefreshToken(any(Long.class));
     }
 
     @Test
     void whenLoginSuccessful_thenReturnsAuthResponse() {
         // Given
         LoginRequest loginRequest = new LoginRequest("test@example.com", "password123");
-        UserEntity user = new UserEntity(); // Assuming you have a constructor or builder to set properties
-        user.setUsername("testUser");
+        AuthenticatedUser user = new AuthenticatedUser(1L, "test@example.com", "encoded", List.of(new SimpleGrantedAuthority("ROLE_USER")));
         RefreshToken refreshToken = new RefreshToken(); // Assuming you have a constructor or method to set properties
         refreshToken.setRefreshToken("refreshToken123");
         Authentication authentication = mock(Authentication.class);
 
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
+        when(authentication.getPrincipal()).thenReturn(user);
         when(jwtService.generateToken(user)).thenReturn("accessToken123");
-        when(refreshTokenService.createRefreshToken(user.getUsername())).thenReturn(refreshToken);
+        when(refreshTokenService.createRefreshToken(1L)).thenReturn(refreshToken);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
 
         // When
@@ -125,27 +131,50 @@ public class AuthServiceTest {
 
         // Verify the interactions
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository).findByEmail(loginRequest.getEmail());
         verify(jwtService).generateToken(user);
-        verify(refreshTokenService).createRefreshToken(user.getUsername());
+        verify(refreshTokenService).createRefreshToken(1L);
+        // The only user read is the one made by the authentication provider
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void whenUserNotFound_thenThrowsException() {
         // Given
         LoginRequest loginRequest = new LoginRequest("nonexistent@example.com", "password123");
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
 
         // When & Then
-        assertThrows(UsernameNotFoundException.class, () -> authService.login(loginRequest));
+        assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
 
-        // Verify userRepository was called
-        verify(userRepository).findByEmail(loginRequest.getEmail());
         // Ensure no other interactions
+        verifyNoInteractions(userRepository);
         verifyNoInteractions(jwtService);
         verifyNoInteractions(refreshTokenService);
     }
 
+    @Test
+    void whenLogout_thenRevokesAccessTokenAndDeletesRefreshToken() {
+        VerifiedToken token = new VerifiedToken("test@example.com", 1L, List.of("ROLE_USER"), Instant.now(), Instant.now().plusSeconds(60), "jti");
+        when(jwtService.tryVerify("accessToken")).thenReturn(TokenVerification.valid(token));
+
+        authService.logout("Bearer accessToken");
+
+        verify(tokenRevocationService).revoke(token);
+        verify(refreshTokenService).deleteRefreshToken(1L);
+    }
+
+    @Test
+    void whenLogoutWithInvalidToken_thenNothingIsRevoked() {
+        when(jwtService.tryVerify("expired")).thenReturn(TokenVerification.rejected(TokenVerification.Status.EXPIRED));
+
+        authService.logout("Bearer expired");
+        authService.logout(null);
+
+        verifyNoInteractions(tokenRevocationService);
+        verifyNoInteractions(refreshTokenService);
+    }
+
     @Test
     void whenGetUserId_thenSucceeds() {
         UserEntity userEntity = new UserEntity();
@@ -0,0 +1,77 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import pl.sonmiike.financeapiservice.user.UserEntity;
+import pl.sonmiike.financeapiservice.user.UserRole;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedUserDetailsServiceTest {
+
+    private final UserEntity user = UserEntity.builder()
+            .userId(1L)
+            .email("test@test.com")
+            .password("encoded")
+            .role(UserRole.ROLE_USER)
+            .build();
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private CachedUserDetailsService userDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new CachedUserDetailsService(email -> {
+            loads.incrementAndGet();
+            if (!email.equals(user.getEmail())) {
+                throw new UsernameNotFoundException("User not found");
+            }
+            return AuthenticatedUser.fromUser(user);
+        }, true, 100, Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void whenLoadedTwice_thenHitsCache() {
+        AuthenticatedUser first = userDetailsService.loadUserByUsername(user.getEmail());
+        AuthenticatedUser second = userDetailsService.loadUserByUsername(user.getEmail());
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void whenUserEvicted_thenReloads() {
+        userDetailsService.loadUserByUsername(user.getEmail());
+
+        userDetailsService.evictUser(user.getUserId());
+        userDetailsService.loadUserByUsername(user.getEmail());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void whenUserUnknown_thenNotCached() {
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("unknown@test.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("unknown@test.com"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void whenCachedPrincipal_thenHoldsOnlyLeanFields() {
+        AuthenticatedUser principal = userDetailsService.loadUserByUsername(user.getEmail());
+
+        assertEquals(1L, principal.getUserId());
+        assertEquals("encoded", principal.getPassword());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+    }
+}
@@ -1,5 +1,11 @@
 package pl.sonmiike.financeapiservice.security.auth;
 
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,8 +13,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRole;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class JwtServiceTest {
@@ -27,7 +37,7 @@ public class JwtServiceTest {
 
     @BeforeEach
     public void setUp() {
-        jwtService = new JwtService();
+        jwtService = new JwtService(VerifiedTokenCache.disabled(), new SimpleMeterRegistry());
         jwtService.setSecretKey(SECRET_KEY) ;
         jwtService.init();
     }
@@ -50,7 +60,7 @@ public class JwtServiceTest {
         String token = jwtService.generateToken(USER_DETAILS);
 
         // When
-        boolean isValid = jwtService.isTokenValid(token, USER_DETAILS);
+        boolean isValid = jwtService.isTokenValid(jwtService.tryVerify(token).token(), USER_DETAILS);
 
         // Then
         assertTrue(isValid);
@@ -68,10 +78,121 @@ public class JwtServiceTest {
         String token = jwtService.generateToken(USER_DETAILS);
 
         // When
-        boolean isValid = jwtService.isTokenValid(token, anotherUserDetails);
+        boolean isValid = jwtService.isTokenValid(jwtService.tryVerify(token).token(), anotherUserDetails);
 
         // Then
         assertFalse(isValid);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void whenVerifyToken_thenReturnsClaims() {
+        // Given
+        String token = jwtService.generateToken(USER_DETAILS);
+
+        // When
+        VerifiedToken verifiedToken = jwtService.tryVerify(token).token();
+
+        // Then
+        assertEquals(USER_DETAILS.getUsername(), verifiedToken.subject());
+        assertTrue(verifiedToken.expiresAt().isAfter(Instant.now()));
+        assertFalse(verifiedToken.isExpired());
+    }
+
+    @Test
+    public void whenTryVerifyValidToken_thenReturnsClaimsWithoutThrowing() {
+        TokenVerification verification = jwtService.tryVerify(jwtService.generateToken(USER_DETAILS));
+
+        assertTrue(verification.isValid());
+        assertEquals(USER_DETAILS.getUsername(), verification.token().subject());
+        assertEquals(1L, verification.token().userId());
+        assertEquals(List.of("ROLE_USER"), verification.token().roles());
+        assertNotNull(verification.token().tokenId());
+    }
+
+    @Test
+    public void whenTryVerifyInvalidTokens_thenClassifiesFailure() {
+        String token = jwtService.generateToken(USER_DETAILS);
+        String expiredToken = Jwts.builder()
+                .setSubject(USER_DETAILS.getUsername())
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin@test.com\",\"iat\":1,\"exp\":9999999999}".getBytes());
+
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify("").status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify("abc.def").status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify("a$c.def.ghi").status());
+        assertEquals(TokenVerification.Status.BAD_SIGNATURE, jwtService.tryVerify(parts[0] + "." + forgedPayload + "." + parts[2]).status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(parts[0] + "." + parts[1] + ".").status());
+        assertEquals(TokenVerification.Status.EXPIRED, jwtService.tryVerify(expiredToken).status());
+    }
+
+    @Test
+    public void whenTokenSignatureIsTampered_thenBadSignature() {
+        // Given
+        String token = jwtService.generateToken(USER_DETAILS);
+        char last = token.charAt(token.length() - 2);
+        String tamperedToken = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        // When & Then
+        assertEquals(TokenVerification.Status.BAD_SIGNATURE, jwtService.tryVerify(tamperedToken).status());
+    }
+
+    @Test
+    public void whenHeaderIsTampered_thenRejected() {
+        String[] parts = jwtService.generateToken(USER_DETAILS).split("\\.");
+
+        assertEquals(TokenVerification.Status.BAD_SIGNATURE,
+                jwtService.tryVerify(segment("{\"alg\":\"HS512\"}") + "." + parts[1] + "." + parts[2]).status());
+        assertEquals(TokenVerification.Status.MALFORMED,
+                jwtService.tryVerify(segment("{\"alg\":\"none\"}") + "." + parts[1] + ".").status());
+        assertEquals(TokenVerification.Status.MALFORMED,
+                jwtService.tryVerify(segment("{\"alg\":\"none\"}") + "." + parts[1] + "." + parts[2]).status());
+    }
+
+    @Test
+    public void whenSignedWithAnotherHmacAlgorithm_thenMalformed() {
+        String token = Jwts.builder()
+                .setSubject(USER_DETAILS.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(token).status());
+    }
+
+    @Test
+    public void whenSignatureIsPadded_thenMalformed() {
+        String token = jwtService.generateToken(USER_DETAILS);
+
+        // A 32-byte HMAC encodes to 43 characters, one pad character short of a multiple of four
+        assertTrue(jwtService.tryVerify(token).isValid());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(token + "=").status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(token + "==").status());
+    }
+
+    @Test
+    public void whenClaimsAreIncomplete_thenMalformed() {
+        Date now = new Date();
+        String withoutSubject = signed(Jwts.builder().setIssuedAt(now).setExpiration(new Date(now.getTime() + 60_000)));
+        String nonNumericExpiration = signed(Jwts.builder().setSubject(USER_DETAILS.getUsername()).setIssuedAt(now).claim("exp", "soon"));
+        String withoutExpiration = signed(Jwts.builder().setSubject(USER_DETAILS.getUsername()).setIssuedAt(now));
+
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(withoutSubject).status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(nonNumericExpiration).status());
+        assertEquals(TokenVerification.Status.MALFORMED, jwtService.tryVerify(withoutExpiration).status());
+    }
+
+    private String signed(JwtBuilder builder) {
+        return builder.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256).compact();
+    }
+
+    private static String segment(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes());
+    }
+
+}
@@ -0,0 +1,69 @@
+package pl.sonmiike.financeapiservice.security.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private final Function<String, TokenVerification> verifier = token -> {
+        verifications.incrementAndGet();
+        if (token.startsWith("bad")) {
+            return TokenVerification.rejected(TokenVerification.Status.BAD_SIGNATURE);
+        }
+        return TokenVerification.valid(new VerifiedToken("test@test.com", 1L, List.of("ROLE_USER"), Instant.now(), Instant.now().plusSeconds(60), "jti"));
+    };
+
+    @Test
+    void whenSameTokenVerifiedTwice_thenVerifierRunsOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+
+        TokenVerification first = cache.getOrVerify("token", verifier);
+        TokenVerification second = cache.getOrVerify("token", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void whenTokenRejected_thenNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+
+        assertEquals(TokenVerification.Status.BAD_SIGNATURE, cache.getOrVerify("bad-token", verifier).status());
+        assertEquals(TokenVerification.Status.BAD_SIGNATURE, cache.getOrVerify("bad-token", verifier).status());
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void whenTokenAlreadyExpired_thenNotServedFromCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+        Function<String, TokenVerification> expiredVerifier = token -> {
+            verifications.incrementAndGet();
+            return TokenVerification.valid(new VerifiedToken("test@test.com", 1L, List.of(), Instant.now().minusSeconds(120), Instant.now().minusSeconds(60), "jti"));
+        };
+
+        cache.getOrVerify("token", expiredVerifier);
+        cache.getOrVerify("token", expiredVerifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void whenDisabled_thenAlwaysVerifies() {
+        VerifiedTokenCache cache = VerifiedTokenCache.disabled();
+
+        cache.getOrVerify("token", verifier);
+        cache.getOrVerify("token", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+}
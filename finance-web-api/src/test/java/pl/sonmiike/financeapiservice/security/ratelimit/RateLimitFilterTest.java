@@ -0,0 +1,87 @@
+package pl.sonmiike.financeapiservice.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import pl.sonmiike.financeapiservice.security.auth.AuthenticatedUser;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = new RateLimitFilter(
+                new TokenBucketRateLimiter(1, 0.1, Duration.ofMinutes(1)),
+                new TokenBucketRateLimiter(2, 0.1, Duration.ofMinutes(1)),
+                meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void whenAuthRouteLimitExceeded_thenReturns429WithRetryAfter() throws Exception {
+        MockHttpServletResponse first = perform(request("/api/v1/auth/login", "10.0.0.1"));
+        MockHttpServletResponse second = perform(request("/api/v1/auth/login", "10.0.0.1"));
+        MockHttpServletResponse otherClient = perform(request("/api/v1/auth/login", "10.0.0.2"));
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("10", second.getHeader("Retry-After"));
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(1, meterRegistry.get("rate_limit.rejected").tag("group", "auth").counter().count());
+    }
+
+    @Test
+    void whenUserRouteLimitExceeded_thenLimitsPerUserId() throws Exception {
+        authenticateAs(1L);
+        assertEquals(200, perform(request("/me/expenses", "10.0.0.1")).getStatus());
+        assertEquals(200, perform(request("/me/expenses", "10.0.0.2")).getStatus());
+        assertEquals(429, perform(request("/me/income", "10.0.0.3")).getStatus());
+
+        authenticateAs(2L);
+        assertEquals(200, perform(request("/me/expenses", "10.0.0.1")).getStatus());
+        assertEquals(1, meterRegistry.get("rate_limit.rejected").tag("group", "user").counter().count());
+    }
+
+    @Test
+    void whenUserRouteIsNotAuthenticated_thenPassesThrough() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform(request("/me/expenses", "10.0.0.1")).getStatus());
+        }
+    }
+
+    private MockHttpServletRequest request(String path, String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private void authenticateAs(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, userId + "@test.com", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,63 @@
+package pl.sonmiike.financeapiservice.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void whenBurstExceedsCapacity_thenRejectsWithWaitUntilNextToken() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(3, 1, Duration.ofMinutes(1), now::get);
+
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(1), rateLimiter.tryAcquire("client"));
+    }
+
+    @Test
+    void whenTimePasses_thenTokensAreRefilled() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(2, 2, Duration.ofMinutes(1), now::get);
+        rateLimiter.tryAcquire("client");
+        rateLimiter.tryAcquire("client");
+        assertTrue(rateLimiter.tryAcquire("client") > 0);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertTrue(rateLimiter.tryAcquire("client") > 0);
+    }
+
+    @Test
+    void whenKeysDiffer_thenBucketsAreIndependent() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 1, Duration.ofMinutes(1), now::get);
+
+        assertEquals(0, rateLimiter.tryAcquire(1L));
+        assertTrue(rateLimiter.tryAcquire(1L) > 0);
+        assertEquals(0, rateLimiter.tryAcquire(2L));
+    }
+
+    @Test
+    void whenBucketsAreFullAgain_thenSweepDropsThem() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(5, 1, Duration.ofSeconds(30), now::get);
+        rateLimiter.tryAcquire("idle");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        rateLimiter.tryAcquire("active");
+        rateLimiter.tryAcquire("active");
+        assertEquals(2, rateLimiter.size());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(21));
+        rateLimiter.tryAcquire("active");
+
+        // "active" was refilled too, but was recreated by the request that triggered the sweep
+        assertEquals(1, rateLimiter.size());
+    }
+}
@@ -0,0 +1,42 @@
+package pl.sonmiike.financeapiservice.security.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevocationBloomFilterTest {
+
+    @Test
+    void whenIdsAdded_thenAllAreFound() {
+        RevocationBloomFilter bloomFilter = new RevocationBloomFilter(10_000, 0.001);
+        String[] tokenIds = new String[10_000];
+        for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = UUID.randomUUID().toString();
+            bloomFilter.put(tokenIds[i]);
+        }
+
+        for (String tokenId : tokenIds) {
+            assertTrue(bloomFilter.mightContain(tokenId));
+        }
+        assertEquals(10, bloomFilter.hashCount());
+    }
+
+    @Test
+    void whenIdsNeverAdded_thenFalsePositiveRateStaysNearTarget() {
+        RevocationBloomFilter bloomFilter = new RevocationBloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 500, "False positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,90 @@
+package pl.sonmiike.financeapiservice.security.revocation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.sonmiike.financeapiservice.security.auth.VerifiedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TokenRevocationServiceTest {
+
+    private RevokedTokenRepository revokedTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    public void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findActiveTokenIds(any(Instant.class))).thenReturn(List.of("revoked-at-startup"));
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, 1000, 0.001, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        tokenRevocationService.rebuild();
+    }
+
+    @Test
+    void whenTokenNeverRevoked_thenTableIsNotQueried() {
+        assertFalse(tokenRevocationService.isRevoked(token("never-revoked")));
+
+        verify(revokedTokenRepository, never()).existsById(any());
+    }
+
+    @Test
+    void whenTokenRevokedBeforeStartup_thenRebuiltFilterFindsIt() {
+        when(revokedTokenRepository.existsById("revoked-at-startup")).thenReturn(true);
+
+        assertTrue(tokenRevocationService.isRevoked(token("revoked-at-startup")));
+    }
+
+    @Test
+    void whenTokenRevoked_thenPersistedAndRejected() {
+        VerifiedToken token = token("logged-out");
+        when(revokedTokenRepository.existsById("logged-out")).thenReturn(true);
+
+        tokenRevocationService.revoke(token);
+
+        verify(revokedTokenRepository).save(argThat(revoked -> revoked.getTokenId().equals("logged-out")
+                && revoked.getUserId().equals(1L)
+                && revoked.getExpiresAt().equals(token.expiresAt())));
+        assertTrue(tokenRevocationService.isRevoked(token));
+    }
+
+    @Test
+    void whenRevokedOnAnotherInstance_thenPickedUpBySync() {
+        when(revokedTokenRepository.findTokenIdsRevokedSince(any(Instant.class))).thenReturn(List.of("revoked-elsewhere"));
+        when(revokedTokenRepository.existsById("revoked-elsewhere")).thenReturn(true);
+
+        tokenRevocationService.syncRecentRevocations();
+
+        assertTrue(tokenRevocationService.isRevoked(token("revoked-elsewhere")));
+    }
+
+    @Test
+    void whenTokenHasNoId_thenItCannotBeRevoked() {
+        VerifiedToken legacyToken = token(null);
+
+        tokenRevocationService.revoke(legacyToken);
+
+        assertFalse(tokenRevocationService.isRevoked(legacyToken));
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void whenExpiredRevocationsPurged_thenFilterIsRebuilt() {
+        when(revokedTokenRepository.deleteExpired(any(Instant.class))).thenReturn(3);
+        when(revokedTokenRepository.findActiveTokenIds(any(Instant.class))).thenReturn(List.of());
+
+        tokenRevocationService.purgeExpired();
+
+        assertFalse(tokenRevocationService.isRevoked(token("revoked-at-startup")));
+        verify(revokedTokenRepository, never()).existsById(any());
+    }
+
+    private static VerifiedToken token(String tokenId) {
+        return new VerifiedToken("test@test.com", 1L, List.of("ROLE_USER"), Instant.now(), Instant.now().plusSeconds(60), tokenId);
+    }
+}
@@ -0,0 +1,78 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvStatementParserTest {
+
+    private final List<StatementRow> rows = new ArrayList<>();
+    private final List<String> rejections = new ArrayList<>();
+
+    private final StatementRowHandler handler = new StatementRowHandler() {
+        @Override
+        public void row(long line, StatementRow row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void rejected(long line, String reason) {
+            rejections.add(line + ": " + reason);
+        }
+    };
+
+    private void parse(String csv) throws IOException {
+        new CsvStatementParser().parse(new StringReader(csv), handler);
+    }
+
+    @Test
+    void parse_ReadsColumnsByHeaderNameWithQuotedFields() throws IOException {
+        parse("Amount,Date,Name,Ignored,Description,Category\r\n"
+                + "-12.50,2024-03-01,Coffee,x,\"Latte, large\",Food\r\n"
+                + "2500,2024-03-02,\"Salary \"\"March\"\"\",,\"two\nlines\",\n");
+
+        assertEquals(List.of(
+                new StatementRow(LocalDate.of(2024, 3, 1), "Coffee", "Latte, large", new BigDecimal("-12.50"), "Food"),
+                new StatementRow(LocalDate.of(2024, 3, 2), "Salary \"March\"", "two\nlines", new BigDecimal("2500"), null)
+        ), rows);
+        assertTrue(rejections.isEmpty());
+    }
+
+    @Test
+    void parse_RejectsBadRowsAndGoesOn() throws IOException {
+        parse("date,amount,name\n"
+                + "03/01/2024,-1,Coffee\n"
+                + "2024-03-01,abc,Coffee\n"
+                + "2024-03-01,-1,\n"
+                + "\n"
+                + "2024-03-02,-3.10,Bus\n");
+
+        assertEquals(1, rows.size());
+        assertEquals("Bus", rows.get(0).name());
+        assertEquals(List.of(
+                "2: Invalid date '03/01/2024', expected yyyy-MM-dd",
+                "3: Invalid amount 'abc'",
+                "4: Missing name"), rejections);
+    }
+
+    @Test
+    void parse_WithoutRequiredColumn_Fails() {
+        StatementFormatException exception = assertThrows(StatementFormatException.class, () -> parse("date,name\n2024-03-01,Coffee\n"));
+        assertEquals("The header has no 'amount' column", exception.getMessage());
+    }
+
+    @Test
+    void parse_UnterminatedQuote_FailsWithinFieldBound() {
+        String csv = "date,amount,name\n2024-03-01,-1,\"" + "x".repeat(CsvStatementParser.MAX_FIELD_LENGTH + 10);
+
+        StatementFormatException exception = assertThrows(StatementFormatException.class, () -> parse(csv));
+        assertTrue(exception.getMessage().startsWith("Line 2: field longer than"));
+    }
+}
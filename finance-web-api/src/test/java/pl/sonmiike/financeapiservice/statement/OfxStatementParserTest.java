@@ -0,0 +1,91 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OfxStatementParserTest {
+
+    private final List<StatementRow> rows = new ArrayList<>();
+    private final List<String> rejections = new ArrayList<>();
+
+    private final StatementRowHandler handler = new StatementRowHandler() {
+        @Override
+        public void row(long line, StatementRow row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void rejected(long line, String reason) {
+            rejections.add(line + ": " + reason);
+        }
+    };
+
+    @Test
+    void parse_SgmlWithoutClosingElementTags() throws IOException {
+        String ofx = """
+                OFXHEADER:100
+                DATA:OFXSGML
+
+                <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>
+                <DTSTART>20240301
+                <STMTTRN>
+                <TRNTYPE>DEBIT
+                <DTPOSTED>20240301120000[0:GMT]
+                <TRNAMT>-12.50
+                <NAME>Coffee &amp; Co
+                <MEMO>Latte
+                </STMTTRN>
+                <STMTTRN>
+                <TRNTYPE>CREDIT
+                <DTPOSTED>20240302
+                <TRNAMT>2500.00
+                <NAME>Salary
+                </STMTTRN>
+                <STMTTRN>
+                <DTPOSTED>2024-03
+                <TRNAMT>1
+                <NAME>Broken
+                </STMTTRN>
+                </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+                """;
+
+        new OfxStatementParser().parse(new StringReader(ofx), handler);
+
+        assertEquals(List.of(
+                new StatementRow(LocalDate.of(2024, 3, 1), "Coffee & Co", "Latte", new BigDecimal("-12.50"), null),
+                new StatementRow(LocalDate.of(2024, 3, 2), "Salary", null, new BigDecimal("2500.00"), null)
+        ), rows);
+        assertEquals(List.of("3: Invalid DTPOSTED '2024-03'"), rejections);
+    }
+
+    @Test
+    void parse_XmlWithPayeeInsteadOfName() throws IOException {
+        String ofx = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <OFX><BANKTRANLIST>
+                <STMTTRN><DTPOSTED>20240105</DTPOSTED><TRNAMT>-3.10</TRNAMT><PAYEE>Bus</PAYEE></STMTTRN>
+                <STMTTRN><DTPOSTED>20240106</DTPOSTED><TRNAMT>-4.00</TRNAMT></STMTTRN>
+                </BANKTRANLIST></OFX>
+                """;
+
+        new OfxStatementParser().parse(new StringReader(ofx), handler);
+
+        assertEquals(List.of(new StatementRow(LocalDate.of(2024, 1, 5), "Bus", null, new BigDecimal("-3.10"), null)), rows);
+        assertEquals(List.of("2: Transaction without DTPOSTED, TRNAMT or NAME"), rejections);
+    }
+
+    @Test
+    void parse_UnclosedTransaction_Fails() {
+        assertThrows(StatementFormatException.class, () -> new OfxStatementParser()
+                .parse(new StringReader("<STMTTRN><DTPOSTED>20240105<TRNAMT>-1<NAME>x"), handler));
+    }
+}
@@ -0,0 +1,103 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatementExportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatementExportService statementExportService;
+
+    @MockBean
+    private AuthService authService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void exportExpenses_StreamsCsvAttachment() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(5).write("date,amount\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(statementExportService).export(eq(RecordType.EXPENSE), eq(1L), eq(LocalDate.of(2024, 1, 1)), eq(null), eq(ExportFormat.CSV), any());
+
+        MvcResult started = mockMvc.perform(get("/me/expenses/export").param("dateFrom", "2024-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"expenses.csv\""))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("date,amount\r\n"));
+    }
+
+    @Test
+    void exportIncomes_GzipsWhenAccepted() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(5).write("{\"name\":\"Salary\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(statementExportService).export(eq(RecordType.INCOME), eq(1L), eq(null), eq(null), eq(ExportFormat.NDJSON), any());
+
+        MvcResult started = mockMvc.perform(get("/me/income/export")
+                        .param("format", "NDJSON")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("{\"name\":\"Salary\"}\n", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportExpenses_ReversedRange_ReturnsBadRequest() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.doThrow(new InvalidRequestException("dateFrom must not be after dateTo"))
+                .when(statementExportService).validateRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1));
+
+        mockMvc.perform(get("/me/expenses/export").param("dateFrom", "2024-02-01").param("dateTo", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+}
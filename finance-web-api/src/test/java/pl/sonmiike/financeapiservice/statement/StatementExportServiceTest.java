@@ -0,0 +1,170 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StatementExportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private StatementExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        exportService = new StatementExportService(jdbcTemplate, transactionManager, 500);
+    }
+
+    @Test
+    void export_StreamsExpensesAsCsvFromForwardOnlyCursor() throws Exception {
+        stubRows(
+                new Object[]{LocalDate.of(2024, 5, 1), new BigDecimal("-12.50"), "Coffee, large", "Said \"hi\"", "Food"},
+                new Object[]{LocalDate.of(2024, 5, 2), new BigDecimal("-3"), "Bus", null, "Transport"});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(RecordType.EXPENSE, 1L, LocalDate.of(2024, 5, 1), null, ExportFormat.CSV, output);
+
+        assertEquals("""
+                date,amount,name,description,category\r
+                2024-05-01,-12.50,"Coffee, large","Said ""hi\""",Food\r
+                2024-05-02,-3,Bus,,Transport\r
+                """, output.toString(StandardCharsets.UTF_8));
+        assertTrue(capturedSql().startsWith("SELECT e.date, -e.amount,"));
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+
+        PreparedStatement statement = prepare();
+        verify(statement).setFetchSize(500);
+        verify(statement).setObject(1, 1L);
+        verify(statement).setObject(2, LocalDate.of(2024, 5, 1));
+    }
+
+    @Test
+    void export_WritesIncomesAsNdjsonWithoutCategory() throws Exception {
+        stubRows(new Object[]{LocalDate.of(2024, 5, 10), new BigDecimal("5000.00"), "Salary", "May", null});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(RecordType.INCOME, 1L, null, null, ExportFormat.NDJSON, output);
+
+        assertEquals("{\"date\":\"2024-05-10\",\"amount\":5000.00,\"name\":\"Salary\",\"description\":\"May\"}\n",
+                output.toString(StandardCharsets.UTF_8));
+        String sql = capturedSql();
+        assertTrue(sql.contains("FROM income i"));
+        assertTrue(sql.endsWith("ORDER BY i.income_date, i.id"));
+    }
+
+    @Test
+    void export_NothingToExport_WritesEmptyNdjson() throws Exception {
+        stubRows();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(RecordType.EXPENSE, 1L, null, null, ExportFormat.NDJSON, output);
+
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    void exportedCsv_ImportsBackAsSameExpensesAndIncomes() throws Exception {
+        // Expense amounts are stored positive, the export query negates them
+        stubRows(new Object[]{LocalDate.of(2024, 5, 1), new BigDecimal("-12.50"), "Coffee", "Latte", "Food"});
+        ByteArrayOutputStream expenses = new ByteArrayOutputStream();
+        exportService.export(RecordType.EXPENSE, 1L, null, null, ExportFormat.CSV, expenses);
+        reset(jdbcTemplate);
+        stubRows(new Object[]{LocalDate.of(2024, 5, 10), new BigDecimal("5000.00"), "Salary", "May", null});
+        ByteArrayOutputStream incomes = new ByteArrayOutputStream();
+        exportService.export(RecordType.INCOME, 1L, null, null, ExportFormat.CSV, incomes);
+
+        List<StatementRow> rows = new ArrayList<>();
+        StatementRowHandler handler = new StatementRowHandler() {
+            @Override
+            public void row(long line, StatementRow row) {
+                rows.add(row);
+            }
+
+            @Override
+            public void rejected(long line, String reason) {
+                fail(line + ": " + reason);
+            }
+        };
+        new CsvStatementParser().parse(new StringReader(expenses.toString(StandardCharsets.UTF_8)), handler);
+        new CsvStatementParser().parse(new StringReader(incomes.toString(StandardCharsets.UTF_8)), handler);
+
+        assertEquals(List.of(
+                new StatementRow(LocalDate.of(2024, 5, 1), "Coffee", "Latte", new BigDecimal("-12.50"), "Food"),
+                new StatementRow(LocalDate.of(2024, 5, 10), "Salary", "May", new BigDecimal("5000.00"), null)), rows);
+    }
+
+    @Test
+    void validateRange_RejectsReversedRange() {
+        assertThrows(InvalidRequestException.class,
+                () -> exportService.validateRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)));
+        assertDoesNotThrow(() -> exportService.validateRange(LocalDate.of(2024, 1, 1), null));
+    }
+
+    private void stubRows(Object[]... rows) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                when(resultSet.getObject(1, LocalDate.class)).thenReturn((LocalDate) row[0]);
+                when(resultSet.getBigDecimal(2)).thenReturn((BigDecimal) row[1]);
+                when(resultSet.getString(3)).thenReturn((String) row[2]);
+                when(resultSet.getString(4)).thenReturn((String) row[3]);
+                when(resultSet.getString(5)).thenReturn((String) row[4]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private PreparedStatement prepare() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        creator().createPreparedStatement(connection);
+        verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        return statement;
+    }
+
+    private String capturedSql() throws SQLException {
+        Connection connection = mock(Connection.class);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(connection.prepareStatement(sql.capture(), anyInt(), anyInt())).thenReturn(mock(PreparedStatement.class));
+        creator().createPreparedStatement(connection);
+        return sql.getValue();
+    }
+
+    private PreparedStatementCreator creator() {
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).query(creator.capture(), any(RowCallbackHandler.class));
+        return creator.getValue();
+    }
+}
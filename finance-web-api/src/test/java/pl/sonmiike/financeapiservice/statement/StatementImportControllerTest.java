@@ -0,0 +1,65 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.sonmiike.financeapiservice.security.auth.AuthService;
+import pl.sonmiike.financeapiservice.security.auth.JwtService;
+import pl.sonmiike.financeapiservice.security.revocation.TokenRevocationService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StatementImportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatementImportService statementImportService;
+
+    @MockBean
+    private AuthService authService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void importStatement_DetectsFormatFromFileName() throws Exception {
+        ImportReportDTO report = new ImportReportDTO();
+        report.setFormat(StatementFormat.OFX);
+        report.setIncomesImported(3);
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+        Mockito.when(statementImportService.importStatement(eq(1L), any(), eq(StatementFormat.OFX), eq(null))).thenReturn(report);
+
+        mockMvc.perform(multipart("/me/imports")
+                        .file(new MockMultipartFile("file", "march.ofx", "application/x-ofx", "<OFX></OFX>".getBytes())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.format").value("OFX"))
+                .andExpect(jsonPath("$.incomesImported").value(3))
+                .andExpect(jsonPath("$.failure").doesNotExist());
+    }
+
+    @Test
+    void importStatement_UnknownExtensionWithoutFormat_ReturnsBadRequest() throws Exception {
+        Mockito.when(authService.getUserId(any())).thenReturn(1L);
+
+        mockMvc.perform(multipart("/me/imports")
+                        .file(new MockMultipartFile("file", "statement.txt", "text/plain", "x".getBytes())))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(statementImportService);
+    }
+}
@@ -0,0 +1,151 @@
+package pl.sonmiike.financeapiservice.statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.sonmiike.financeapiservice.category.Category;
+import pl.sonmiike.financeapiservice.category.CategoryRepository;
+import pl.sonmiike.financeapiservice.category.monthlyBudget.SpentAmountService;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StatementImportServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CategoryRepository categoryRepository;
+    private RecordCountService recordCountService;
+    private SpentAmountService spentAmountService;
+    private ExpenseNameSuggestions expenseNameSuggestions;
+    private StatementImportService statementImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        categoryRepository = mock(CategoryRepository.class);
+        recordCountService = mock(RecordCountService.class);
+        spentAmountService = mock(SpentAmountService.class);
+        expenseNameSuggestions = mock(ExpenseNameSuggestions.class);
+        statementImportService = new StatementImportService(jdbcTemplate, transactionTemplate, categoryRepository,
+                recordCountService, spentAmountService, expenseNameSuggestions, 2);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(categoryRepository.findAllCategoriesByUserId(USER_ID)).thenReturn(List.of(
+                Category.builder().id(10L).name("Food").build(),
+                Category.builder().id(20L).name("Transport").build()));
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importStatement_WritesChunksAndReportsRejections() {
+        ImportReportDTO report = statementImportService.importStatement(USER_ID, csv("""
+                date,amount,name,category
+                2024-03-01,-12.50,Coffee,food
+                2024-03-01,-3.10,Bus,Transport
+                2024-03-02,2500,Salary,
+                2024-03-03,-9.99,Cinema,Fun
+                2024-03-04,0,Nothing,
+                """), StatementFormat.CSV, 10L);
+
+        assertEquals(5, report.getRowsRead());
+        assertEquals(3, report.getExpensesImported());
+        assertEquals(1, report.getIncomesImported());
+        assertEquals(1, report.getRowsRejected());
+        assertEquals(List.of(new ImportReportDTO.ImportErrorDTO(6, "Amount is zero")), report.getErrors());
+        assertEquals(2, report.getChunksCommitted());
+        assertNull(report.getFailure());
+
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO expense"), anyList());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO income"), anyList());
+        // Cinema has no matching category and goes to the default one
+        verify(recordCountService, times(2)).expensesAdded(USER_ID, 10L, 1L);
+        verify(recordCountService).expensesAdded(USER_ID, 20L, 1L);
+        verify(recordCountService).incomesAdded(USER_ID, 1);
+        verify(expenseNameSuggestions).invalidate(USER_ID);
+    }
+
+    @Test
+    void importStatement_StoresExpensesWithPositiveAmount() {
+        List<Object[]> inserted = new ArrayList<>();
+        // The chunk reuses its lists, so the rows are copied when the batch runs
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO expense"), anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+
+        statementImportService.importStatement(USER_ID, csv("date,amount,name\n2024-03-01,-12.50,Coffee\n"), StatementFormat.CSV, 10L);
+
+        assertEquals(1, inserted.size());
+        assertEquals(new BigDecimal("12.50"), inserted.get(0)[3]);
+        assertEquals(10L, inserted.get(0)[5]);
+    }
+
+    @Test
+    void importStatement_WithoutDefaultCategory_RejectsUnmatchedExpenses() {
+        ImportReportDTO report = statementImportService.importStatement(USER_ID,
+                csv("date,amount,name,category\n2024-03-01,-1,Coffee,Fun\n2024-03-01,-1,Tea,\n"), StatementFormat.CSV, null);
+
+        assertEquals(2, report.getRowsRejected());
+        assertEquals("Unknown category 'Fun'", report.getErrors().get(0).message());
+        verifyNoInteractions(jdbcTemplate, expenseNameSuggestions);
+    }
+
+    @Test
+    void importStatement_FailedChunk_StopsAndKeepsEarlierChunks() {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO income"), anyList()))
+                .thenThrow(new DataIntegrityViolationException("boom"));
+
+        ImportReportDTO report = statementImportService.importStatement(USER_ID, csv("""
+                date,amount,name
+                2024-03-01,-1,Coffee
+                2024-03-01,-2,Tea
+                2024-03-02,100,Refund
+                2024-03-03,-3,Bus
+                """), StatementFormat.CSV, 10L);
+
+        assertEquals(2, report.getExpensesImported());
+        assertEquals(1, report.getChunksCommitted());
+        assertEquals("Lines 4 to 5 could not be saved, the import stopped there", report.getFailure());
+    }
+
+    @Test
+    void importStatement_DefaultCategoryNotOfUser_IsRejected() {
+        assertThrows(InvalidRequestException.class,
+                () -> statementImportService.importStatement(USER_ID, csv(""), StatementFormat.CSV, 99L));
+    }
+
+    @Test
+    void importStatement_MalformedFile_ReportsFailure() {
+        ImportReportDTO report = statementImportService.importStatement(USER_ID, csv("name,amount\n"), StatementFormat.CSV, 10L);
+
+        assertEquals("The header has no 'date' column", report.getFailure());
+        verifyNoInteractions(transactionTemplate);
+    }
+}
@@ -0,0 +1,111 @@
+package pl.sonmiike.financeapiservice.update;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
+import pl.sonmiike.financeapiservice.expenses.Expense;
+import pl.sonmiike.financeapiservice.income.Income;
+import pl.sonmiike.financeapiservice.pagination.FilterTarget;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecordUpdateEngineTest {
+
+    private static final FilterTarget<Expense> EXPENSES = new FilterTarget<>(Expense.class, "user.userId", "date");
+    private static final FilterTarget<Income> INCOMES = new FilterTarget<>(Income.class, "user.userId", "incomeDate");
+
+    private EntityManager entityManager;
+    private Query statement;
+    private TypedQuery<Long> versionQuery;
+    private RecordUpdateEngine updateEngine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        statement = mock(Query.class, RETURNS_SELF);
+        versionQuery = mock(TypedQuery.class, RETURNS_SELF);
+        updateEngine = new RecordUpdateEngine(entityManager);
+        when(entityManager.createQuery(startsWith("UPDATE"))).thenReturn(statement);
+        when(entityManager.createQuery(startsWith("SELECT r.version"), eq(Long.class))).thenReturn(versionQuery);
+    }
+
+    @Test
+    void jpql_SetsOnlyPatchedFieldsAndGuardsOwnerAndVersion() {
+        assertEquals("UPDATE Income r SET r.incomeDate = :date, r.amount = :amount, r.version = r.version + 1"
+                        + " WHERE r.id = :id AND r.user.userId = :userId AND r.version = :version",
+                updateEngine.jpql(INCOMES, RecordUpdate.DATE | RecordUpdate.AMOUNT, true));
+        assertEquals("UPDATE Expense r SET r.name = :name, r.description = :description, r.date = :date, r.amount = :amount,"
+                        + " r.version = r.version + 1 WHERE r.id = :id AND r.user.userId = :userId",
+                updateEngine.jpql(EXPENSES, RecordUpdate.ALL, false));
+    }
+
+    @Test
+    void jpql_SameShape_ReusesStatement() {
+        assertSame(updateEngine.jpql(EXPENSES, RecordUpdate.NAME, true), updateEngine.jpql(EXPENSES, RecordUpdate.NAME, true));
+    }
+
+    @Test
+    void update_MatchingVersion_IsOneStatement() {
+        when(statement.executeUpdate()).thenReturn(1);
+
+        long version = updateEngine.update(EXPENSES, 5L, 1L, 3L,
+                RecordUpdate.replacing("Coffee", "Morning", LocalDate.of(2024, 5, 1), BigDecimal.TEN));
+
+        assertEquals(4L, version);
+        verify(statement).setParameter("version", 3L);
+        verify(statement).setParameter("name", "Coffee");
+        verify(statement).setParameter("amount", BigDecimal.TEN);
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void update_StaleVersion_ThrowsPreconditionFailedWithCurrentTag() {
+        when(statement.executeUpdate()).thenReturn(0);
+        when(versionQuery.getResultList()).thenReturn(List.of(7L));
+
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class, () -> updateEngine.update(EXPENSES, 5L, 1L, 3L,
+                new RecordUpdate(null, null, null, BigDecimal.ONE, RecordUpdate.AMOUNT)));
+
+        assertTrue(exception.getMessage().endsWith("\"7\""));
+    }
+
+    @Test
+    void update_MissingOrForeignRecord_ThrowsNotFound() {
+        when(statement.executeUpdate()).thenReturn(0);
+        when(versionQuery.getResultList()).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> updateEngine.update(INCOMES, 5L, 2L, 3L,
+                new RecordUpdate("Salary", null, null, null, RecordUpdate.NAME)));
+    }
+
+    @Test
+    void update_Unconditional_ReadsNewVersion() {
+        when(statement.executeUpdate()).thenReturn(1);
+        when(versionQuery.getResultList()).thenReturn(List.of(12L));
+
+        assertEquals(12L, updateEngine.update(INCOMES, 5L, 1L, null,
+                new RecordUpdate("Salary", null, null, null, RecordUpdate.NAME)));
+        verify(statement, never()).setParameter(eq("version"), any());
+    }
+
+    @Test
+    void update_EmptyPatch_OnlyChecksVersion() {
+        when(versionQuery.getResultList()).thenReturn(List.of(3L));
+        RecordUpdate empty = new RecordUpdate(null, null, null, null, 0);
+
+        assertEquals(3L, updateEngine.update(EXPENSES, 5L, 1L, 3L, empty));
+        assertThrows(PreconditionFailedException.class, () -> updateEngine.update(EXPENSES, 5L, 1L, 2L, empty));
+        verify(entityManager, never()).createQuery(anyString());
+    }
+}
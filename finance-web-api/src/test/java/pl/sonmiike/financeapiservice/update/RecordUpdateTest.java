@@ -0,0 +1,52 @@
+package pl.sonmiike.financeapiservice.update;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import pl.sonmiike.financeapiservice.exceptions.custom.InvalidRequestException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionFailedException;
+import pl.sonmiike.financeapiservice.exceptions.custom.PreconditionRequiredException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordUpdateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void fromMergePatch_SetsOnlyPresentFields() throws Exception {
+        RecordUpdate update = RecordUpdate.fromMergePatch(objectMapper.readTree("{\"incomeDate\":\"2024-05-10\",\"amount\":\"12.50\"}"), "incomeDate");
+
+        assertEquals(new RecordUpdate(null, null, LocalDate.of(2024, 5, 10), new BigDecimal("12.50"), RecordUpdate.DATE | RecordUpdate.AMOUNT), update);
+        assertFalse(update.has(RecordUpdate.NAME));
+    }
+
+    @Test
+    void fromMergePatch_EmptyObject_IsEmptyUpdate() throws Exception {
+        assertTrue(RecordUpdate.fromMergePatch(objectMapper.readTree("{}"), "date").isEmpty());
+    }
+
+    @Test
+    void fromMergePatch_RejectsInvalidPatches() {
+        for (String patch : new String[]{"[]", "{\"name\":null}", "{\"name\":\" \"}", "{\"categoryId\":2}",
+                "{\"date\":\"10.05.2024\"}", "{\"amount\":0}", "{\"amount\":\"abc\"}", "{\"description\":\"" + "x".repeat(101) + "\"}"}) {
+            assertThrows(InvalidRequestException.class, () -> RecordUpdate.fromMergePatch(objectMapper.readTree(patch), "date"), patch);
+        }
+    }
+
+    @Test
+    void parseIfMatch_ReadsVersionOfStrongAndWeakTags() {
+        assertEquals(3L, EntityTags.parseIfMatch(EntityTags.of(3)));
+        assertEquals(3L, EntityTags.parseIfMatch("W/\"3\""));
+        assertNull(EntityTags.parseIfMatch("*"));
+    }
+
+    @Test
+    void parseIfMatch_MissingOrForeignTag_IsRejected() {
+        assertThrows(PreconditionRequiredException.class, () -> EntityTags.parseIfMatch(null));
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.parseIfMatch("\"abc\""));
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.parseIfMatch("3"));
+    }
+}
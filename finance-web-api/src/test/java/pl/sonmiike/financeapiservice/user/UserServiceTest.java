@@ -13,6 +13,9 @@ import pl.sonmiike.financeapiservice.category.UserCategoryRepository;
 import pl.sonmiike.financeapiservice.exceptions.custom.ResourceNotFoundException;
 import pl.sonmiike.financeapiservice.expenses.ExpenseRepository;
 import pl.sonmiike.financeapiservice.income.IncomeRepository;
+import pl.sonmiike.financeapiservice.pagination.RecordCountService;
+import pl.sonmiike.financeapiservice.search.ExpenseNameSuggestions;
+import pl.sonmiike.financeapiservice.security.auth.CachedUserDetailsService;
 import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenRepository;
 
 import java.util.List;
@@ -39,9 +42,17 @@ public class UserServiceTest {
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Mock
+    private RecordCountService recordCountService;
+    @Mock
+    private ExpenseNameSuggestions expenseNameSuggestions;
+
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private CachedUserDetailsService userDetailsService;
+
     @InjectMocks
     private UserService userService;
 
@@ -162,6 +173,8 @@ public class UserServiceTest {
         verify(expenseRepository).deleteAllByUserUserId(userId);
         verify(userCategoryRepository).deleteAllByUserUserId(userId);
         verify(refreshTokenRepository).deleteAllByUserUserId(userId);
+        verify(recordCountService).deleteAllForUser(userId);
+        verify(userDetailsService).evictUser(userId);
     }
 
     @Test
@@ -176,5 +189,6 @@ public class UserServiceTest {
         verify(expenseRepository, never()).deleteAllByUserUserId(anyLong());
         verify(userCategoryRepository, never()).deleteAllByUserUserId(anyLong());
         verify(refreshTokenRepository, never()).deleteAllByUserUserId(anyLong());
+        verify(userDetailsService, never()).evictUser(anyLong());
     }
 }
@@ -0,0 +1,51 @@
+package pl.sonmiike.financeapiservice.user.refreshtoken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenPurgeJob;
+import pl.sonmiike.financeapiservice.user.refreshToken.RefreshTokenRepository;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RefreshTokenPurgeJobTest {
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void whenExpiredTokensExceedOneChunk_thenDeletesChunkByChunkUntilPartialChunk() {
+        RefreshTokenPurgeJob purgeJob = new RefreshTokenPurgeJob(refreshTokenRepository, 100, 10, meterRegistry);
+        when(refreshTokenRepository.deleteExpiredChunk(any(Instant.class), eq(100))).thenReturn(100, 100, 42);
+        when(refreshTokenRepository.count()).thenReturn(7L);
+
+        purgeJob.purgeExpiredTokens();
+
+        verify(refreshTokenRepository, times(3)).deleteExpiredChunk(any(Instant.class), eq(100));
+        assertEquals(242, meterRegistry.get("auth.refresh_token.purged").counter().count());
+        assertEquals(7, meterRegistry.get("auth.refresh_token.rows").gauge().value());
+        assertEquals(1, meterRegistry.get("auth.refresh_token.purge").timer().count());
+    }
+
+    @Test
+    void whenBacklogIsLarge_thenStopsAfterMaxChunksPerRun() {
+        RefreshTokenPurgeJob purgeJob = new RefreshTokenPurgeJob(refreshTokenRepository, 100, 3, meterRegistry);
+        when(refreshTokenRepository.deleteExpiredChunk(any(Instant.class), eq(100))).thenReturn(100);
+
+        purgeJob.purgeExpiredTokens();
+
+        verify(refreshTokenRepository, times(3)).deleteExpiredChunk(any(Instant.class), eq(100));
+        assertEquals(300, meterRegistry.get("auth.refresh_token.purged").counter().count());
+    }
+}
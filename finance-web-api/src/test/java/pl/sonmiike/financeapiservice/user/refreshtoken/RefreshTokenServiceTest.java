@@ -6,7 +6,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import pl.sonmiike.financeapiservice.user.UserEntity;
 import pl.sonmiike.financeapiservice.user.UserRepository;
 import pl.sonmiike.financeapiservice.user.refreshToken.RefreshToken;
@@ -46,59 +45,72 @@ public class RefreshTokenServiceTest {
 
     @Test
     void whenUserExistsAndNoRefreshToken_ThenCreateNewRefreshToken() {
-        String username = "test@example.com";
         UserEntity userEntity = new UserEntity();
-        userEntity.setEmail(username);
+        userEntity.setUserId(1L);
 
-        when(userRepository.findByEmail(username)).thenReturn(Optional.of(userEntity));
+        when(refreshTokenRepository.findByUserUserId(1L)).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(1L)).thenReturn(userEntity);
         when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(username);
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(1L);
 
         assertNotNull(refreshToken);
         assertNotNull(refreshToken.getRefreshToken());
+        assertEquals(64, refreshToken.getTokenHash().length());
+        assertNotEquals(refreshToken.getRefreshToken(), refreshToken.getTokenHash());
+        assertSame(userEntity, refreshToken.getUser());
         assertTrue(refreshToken.getExpirationTime().isAfter(Instant.now()));
         verify(refreshTokenRepository, times(1)).save(refreshToken);
+        // Only a reference for the foreign key, the user is not read again
+        verify(userRepository, never()).findByEmail(any(String.class));
+        verify(userRepository, never()).findById(any(Long.class));
     }
 
     @Test
-    public void whenUserExistsAndHasRefreshToken_ThenNoNewRefreshTokenCreated() {
-        String username = "test@example.com";
+    public void whenUserHasExpiredRefreshToken_ThenItIsRotated() {
         UserEntity userEntity = new UserEntity();
-        userEntity.setEmail(username);
+        userEntity.setUserId(1L);
         RefreshToken existingRefreshToken = RefreshToken.builder()
-                .refreshToken(UUID.randomUUID().toString())
-                .expirationTime(Instant.now().plusMillis(5 * 60 * 60 * 10000))
+                .tokenId(5L)
+                .tokenHash("previousHash")
+                .expirationTime(Instant.now().minusMillis(1000))
                 .user(userEntity)
                 .build();
-        userEntity.setRefreshToken(existingRefreshToken);
 
-        when(userRepository.findByEmail(username)).thenReturn(Optional.of(userEntity));
+        when(refreshTokenRepository.findByUserUserId(1L)).thenReturn(Optional.of(existingRefreshToken));
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(username);
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(1L);
 
-        assertSame(existingRefreshToken, refreshToken);
-        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        // Same row, new token
+        assertEquals(5L, refreshToken.getTokenId());
+        assertNotEquals("previousHash", refreshToken.getTokenHash());
+        assertTrue(refreshToken.getExpirationTime().isAfter(Instant.now()));
+        verify(refreshTokenRepository, times(1)).save(existingRefreshToken);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    void whenUserNotFound_ThenThrowException() {
-        String username = "nonexistent@example.com";
-        when(userRepository.findByEmail(username)).thenReturn(Optional.empty());
+    void whenRefreshTokenCreated_ThenItVerifiesByHash() {
+        when(refreshTokenRepository.findByUserUserId(1L)).thenReturn(Optional.empty());
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(i -> i.getArguments()[0]);
+        RefreshToken issued = refreshTokenService.createRefreshToken(1L);
+        when(refreshTokenRepository.findByTokenHash(issued.getTokenHash())).thenReturn(Optional.of(issued));
 
+        RefreshToken verifiedToken = refreshTokenService.verifyRefreshToken(issued.getRefreshToken());
 
-        assertThrows(UsernameNotFoundException.class, () -> refreshTokenService.createRefreshToken(username));
+        assertSame(issued, verifiedToken);
     }
 
     @Test
     void whenRefreshTokenIsValid_ThenReturnIt() {
         String token = UUID.randomUUID().toString();
         RefreshToken refreshToken = RefreshToken.builder()
-                .refreshToken(token)
+                .tokenHash("hash")
                 .expirationTime(Instant.now().plusMillis(1000)) // Future expiration time
                 .build();
 
-        when(refreshTokenRepository.findByRefreshToken(token)).thenReturn(Optional.of(refreshToken));
+        when(refreshTokenRepository.findByTokenHash(any(String.class))).thenReturn(Optional.of(refreshToken));
 
         RefreshToken verifiedToken = refreshTokenService.verifyRefreshToken(token);
 
@@ -111,11 +123,11 @@ public class RefreshTokenServiceTest {
     void whenRefreshTokenIsExpired_ThenThrowRuntimeException() {
         String token = UUID.randomUUID().toString();
         RefreshToken refreshToken = RefreshToken.builder()
-                .refreshToken(token)
+                .tokenHash("hash")
                 .expirationTime(Instant.now().minusMillis(1000)) // Past expiration time
                 .build();
 
-        when(refreshTokenRepository.findByRefreshToken(token)).thenReturn(Optional.of(refreshToken));
+        when(refreshTokenRepository.findByTokenHash(any(String.class))).thenReturn(Optional.of(refreshToken));
 
         assertThrows(RuntimeException.class, () -> refreshTokenService.verifyRefreshToken(token));
         verify(refreshTokenRepository, times(1)).delete(refreshToken);